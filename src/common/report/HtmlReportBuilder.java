@@ -0,0 +1,115 @@
+package common.report;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a report as a plain HTML page.
+ * 
+ * @author Group1
+ */
+class HtmlReportBuilder extends ReportBuilder {
+
+	private StringBuilder body;
+
+	private String title;
+
+	HtmlReportBuilder(String fileName) {
+		super(fileName);
+		this.body = new StringBuilder();
+		this.title = "";
+	}
+
+	@Override
+	public void addTitle(String title) {
+		this.title = title;
+		this.body.append("<h1>")
+				.append(escape(title))
+				.append("</h1>\n");
+	}
+
+	@Override
+	public void addHeading(String heading) {
+		this.body.append("<h2>")
+				.append(escape(heading))
+				.append("</h2>\n");
+	}
+
+	@Override
+	public void addText(String text) {
+		this.body.append("<p>")
+				.append(escape(text))
+				.append("</p>\n");
+	}
+
+	@Override
+	public void startTable(String... headers) {
+		this.body.append("<table border=\"1\">\n");
+		appendRow("th", headers);
+	}
+
+	@Override
+	public void addRow(String... cells) {
+		appendRow("td", cells);
+	}
+
+	@Override
+	public void endTable() {
+		this.body.append("</table>\n");
+	}
+
+	@Override
+	public void close() throws IOException {
+		Writer writer = new FileWriter(
+				getFileName());
+		try {
+			writer.write("<html>\n<head><title>");
+			writer.write(escape(this.title));
+			writer.write("</title></head>\n<body>\n");
+			writer.write(this.body.toString());
+			writer.write("</body>\n</html>\n");
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void appendRow(String tag,
+			String[] cells) {
+		this.body.append("<tr>");
+		for (String cell : cells) {
+			this.body.append('<').append(tag)
+					.append('>')
+					.append(escape(cell))
+					.append("</").append(tag)
+					.append('>');
+		}
+		this.body.append("</tr>\n");
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(
+				text.length());
+		for (int c = 0; c < text.length(); c++) {
+			char ch = text.charAt(c);
+			switch (ch) {
+				case '<':
+					escaped.append("&lt;");
+					break;
+				case '>':
+					escaped.append("&gt;");
+					break;
+				case '&':
+					escaped.append("&amp;");
+					break;
+				case '"':
+					escaped.append("&quot;");
+					break;
+				default:
+					escaped.append(ch);
+					break;
+			}
+		}
+		return escaped.toString();
+	}
+}
@@ -0,0 +1,126 @@
+package common.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+/**
+ * Writes a report as a PDF document. The document is built in memory and
+ * written out by close().
+ * 
+ * @author Group1
+ */
+class PdfReportBuilder extends ReportBuilder {
+
+	private static final Font TITLE_FONT = new Font(
+			Font.FontFamily.HELVETICA, 18,
+			Font.BOLD);
+
+	private static final Font HEADING_FONT = new Font(
+			Font.FontFamily.HELVETICA, 14,
+			Font.BOLD);
+
+	private static final Font HEADER_FONT = new Font(
+			Font.FontFamily.HELVETICA, 10,
+			Font.BOLD);
+
+	private static final Font CELL_FONT = new Font(
+			Font.FontFamily.HELVETICA, 10);
+
+	private Document document;
+
+	private ByteArrayOutputStream bytes;
+
+	private PdfPTable table;
+
+	PdfReportBuilder(String fileName)
+			throws IOException {
+		super(fileName);
+		this.document = new Document();
+		this.bytes = new ByteArrayOutputStream();
+		try {
+			PdfWriter.getInstance(this.document,
+					this.bytes);
+		} catch (DocumentException e) {
+			throw new IOException(e.getMessage());
+		}
+		this.document.open();
+	}
+
+	@Override
+	public void addTitle(String title) {
+		Paragraph paragraph = new Paragraph(title,
+				TITLE_FONT);
+		paragraph.setAlignment(Element.ALIGN_CENTER);
+		paragraph.setSpacingAfter(12);
+		add(paragraph);
+	}
+
+	@Override
+	public void addHeading(String heading) {
+		Paragraph paragraph = new Paragraph(
+				heading, HEADING_FONT);
+		paragraph.setSpacingBefore(12);
+		paragraph.setSpacingAfter(6);
+		add(paragraph);
+	}
+
+	@Override
+	public void addText(String text) {
+		add(new Paragraph(text, CELL_FONT));
+	}
+
+	@Override
+	public void startTable(String... headers) {
+		this.table = new PdfPTable(headers.length);
+		this.table.setWidthPercentage(100);
+		this.table.setHeaderRows(1);
+		for (String header : headers) {
+			this.table.addCell(new Paragraph(
+					header, HEADER_FONT));
+		}
+	}
+
+	@Override
+	public void addRow(String... cells) {
+		for (String cell : cells) {
+			this.table.addCell(new Paragraph(
+					cell, CELL_FONT));
+		}
+	}
+
+	@Override
+	public void endTable() {
+		add(this.table);
+		this.table = null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.document.close();
+		OutputStream out = new FileOutputStream(
+				getFileName());
+		try {
+			this.bytes.writeTo(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private void add(Element element) {
+		try {
+			this.document.add(element);
+		} catch (DocumentException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package common.report;
+
+import gui.common.FileFormat;
+
+import java.awt.Desktop;
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * ReportBuilder writes a report made of a title, headings, lines of text and
+ * tables to a file. The reports only describe their content; the builder for
+ * the chosen FileFormat decides how it looks.
+ * 
+ * <pre>
+ * ReportBuilder builder = ReportBuilder.create(format, &quot;SupplyReport&quot;);
+ * builder.addTitle(&quot;3-Month Supply Report&quot;);
+ * builder.startTable(&quot;Description&quot;, &quot;Barcode&quot;);
+ * builder.addRow(&quot;Beans&quot;, &quot;123&quot;);
+ * builder.endTable();
+ * builder.close();
+ * </pre>
+ * 
+ * @author Group1
+ */
+public abstract class ReportBuilder {
+
+	private static final String DIRECTORY = "./data/";
+
+	private final String fileName;
+
+	/**
+	 * @pre fileName is not null
+	 * @post getFileName() == fileName
+	 * @param fileName
+	 *            the file the report is written to
+	 */
+	protected ReportBuilder(String fileName) {
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Creates a builder for a new report file in the data directory.
+	 * 
+	 * @pre format and name are not null
+	 * @post true
+	 * @param format
+	 *            the format the report is written in
+	 * @param name
+	 *            the start of the file name
+	 * @return a builder for an empty report
+	 * @throws IOException
+	 *             if the report can't be started
+	 */
+	public static ReportBuilder create(
+			FileFormat format, String name)
+			throws IOException {
+		new File(DIRECTORY).mkdirs();
+		String base = DIRECTORY + name
+				+ new Date().getTime();
+		if (format == FileFormat.PDF) {
+			return new PdfReportBuilder(base
+					+ ".pdf");
+		}
+		return new HtmlReportBuilder(base
+				+ ".html");
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the file the report is written to
+	 */
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	/**
+	 * @pre title is not null
+	 * @post the report has title as its title
+	 */
+	public abstract void addTitle(String title);
+
+	/**
+	 * @pre heading is not null and no table is open
+	 * @post heading starts a new section of the report
+	 */
+	public abstract void addHeading(String heading);
+
+	/**
+	 * @pre text is not null and no table is open
+	 * @post text is added as its own line
+	 */
+	public abstract void addText(String text);
+
+	/**
+	 * @pre headers is not empty and no table is open
+	 * @post a table with a column for each header is open
+	 */
+	public abstract void startTable(String... headers);
+
+	/**
+	 * @pre a table is open and cells has one value for each of its columns
+	 * @post cells is added as the table's next row
+	 */
+	public abstract void addRow(String... cells);
+
+	/**
+	 * @pre a table is open
+	 * @post no table is open
+	 */
+	public abstract void endTable();
+
+	/**
+	 * Writes the report to its file.
+	 * 
+	 * @pre no table is open
+	 * @post the report is in getFileName()
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public abstract void close() throws IOException;
+
+	/**
+	 * Shows the written report in the desktop's viewer for its format.
+	 * 
+	 * @pre close() has been called
+	 * @post true
+	 */
+	public void display() {
+		try {
+			Desktop.getDesktop().open(
+					new File(this.fileName));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (UnsupportedOperationException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 /**
  * Utility class containing date/time functionality
@@ -33,6 +34,14 @@ public final class DateUtils {
 	 */
 	public static final String DATE_TIME_FORMAT = "MM/dd/yyyy hh:mm a";
 
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	// days in 400 years of the Gregorian calendar
+	private static final int DAYS_PER_ERA = 146097;
+
+	// days from 1 March of year 0 to 1 January 1970
+	private static final int DAYS_BEFORE_EPOCH = 719468;
+
 	private static SimpleDateFormat dateFormatter;
 	private static SimpleDateFormat shortDateFormatter;
 	private static SimpleDateFormat dateTimeFormatter;
@@ -153,16 +162,122 @@ public final class DateUtils {
 	 */
 	public static Date removeTimeFromDate(
 			Date date) {
-		GregorianCalendar calendar = new GregorianCalendar();
+		return new Date(startOfDay(toEpochDay(date
+				.getTime())));
+	}
 
-		calendar.setTime(date);
+	/**
+	 * Returns the number of the day, counted from 1 January 1970, that a time
+	 * falls on in the local time zone.
+	 * 
+	 * @param time
+	 *            milliseconds since 1970 UTC
+	 * 
+	 *            {@pre None}
+	 * 
+	 *            {@post Returns the local day number of time.}
+	 */
+	public static int toEpochDay(long time) {
+		long local = time
+				+ TimeZone.getDefault().getOffset(time);
+		long day = local / MILLIS_PER_DAY;
+		if ((local % MILLIS_PER_DAY) < 0) {
+			day--;
+		}
+		return (int) day;
+	}
 
-		calendar.set(Calendar.HOUR_OF_DAY, 0);
-		calendar.set(Calendar.MINUTE, 0);
-		calendar.set(Calendar.SECOND, 0);
-		calendar.set(Calendar.MILLISECOND, 0);
+	/**
+	 * Returns the time of midnight at the start of a day in the local time
+	 * zone.
+	 * 
+	 * @param epochDay
+	 *            day number, counted from 1 January 1970
+	 * 
+	 *            {@pre None}
+	 * 
+	 *            {@post Returns the first time that falls on epochDay.}
+	 */
+	public static long startOfDay(int epochDay) {
+		TimeZone zone = TimeZone.getDefault();
+		long local = epochDay * MILLIS_PER_DAY;
+		// the offset at midnight may differ from the one a day's length away
+		long guess = local - zone.getOffset(local);
+		long time = local - zone.getOffset(guess);
+		if ((time + zone.getOffset(time)) < local) {
+			// midnight was skipped by a daylight saving change, which starts
+			// the day instead
+			time = guess;
+		}
+		return time;
+	}
 
-		return calendar.getTime();
+	/**
+	 * Adds whole months to a day number. A day of the month that the target
+	 * month doesn't have becomes that month's last day, as with
+	 * Calendar.add.
+	 * 
+	 * @param epochDay
+	 *            day number, counted from 1 January 1970
+	 * @param months
+	 *            number of months to add
+	 * 
+	 *            {@pre months >= 0}
+	 * 
+	 *            {@post Returns the day number months after epochDay.}
+	 */
+	public static int addMonths(int epochDay,
+			int months) {
+		// civil date from day number, in a year that starts on 1 March so
+		// that the leap day is the last day of the year
+		int shifted = epochDay + DAYS_BEFORE_EPOCH;
+		int era = ((shifted >= 0) ? shifted
+				: (shifted - DAYS_PER_ERA + 1))
+				/ DAYS_PER_ERA;
+		int dayOfEra = shifted - (era * DAYS_PER_ERA);
+		int yearOfEra = (dayOfEra - (dayOfEra / 1460)
+				+ (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+		int dayOfYear = dayOfEra
+				- ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+		int marchMonth = ((5 * dayOfYear) + 2) / 153;
+		int dayOfMonth = dayOfYear
+				- (((153 * marchMonth) + 2) / 5) + 1;
+		int year = yearOfEra + (era * 400)
+				+ ((marchMonth >= 10) ? 1 : 0);
+		int month = (marchMonth < 10) ? (marchMonth + 3)
+				: (marchMonth - 9);
+
+		int monthIndex = (year * 12) + (month - 1)
+				+ months;
+		year = monthIndex / 12;
+		month = (monthIndex % 12) + 1;
+		int first = epochDay(year, month, 1);
+		int length = epochDay(year + (month / 12),
+				(month % 12) + 1, 1) - first;
+		return first + Math.min(dayOfMonth, length)
+				- 1;
+	}
+
+	/**
+	 * Returns the day number, counted from 1 January 1970, of a date given
+	 * by year, month (1 to 12) and day of the month.
+	 */
+	private static int epochDay(int year, int month,
+			int dayOfMonth) {
+		if (month <= 2) {
+			year--;
+		}
+		int era = ((year >= 0) ? year
+				: (year - 399)) / 400;
+		int yearOfEra = year - (era * 400);
+		int marchMonth = (month + 9) % 12;
+		int dayOfYear = (((153 * marchMonth) + 2) / 5)
+				+ dayOfMonth - 1;
+		int dayOfEra = (yearOfEra * 365)
+				+ (yearOfEra / 4) - (yearOfEra / 100)
+				+ dayOfYear;
+		return ((era * DAYS_PER_ERA) + dayOfEra)
+				- DAYS_BEFORE_EPOCH;
 	}
 
 	/**
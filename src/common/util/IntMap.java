@@ -0,0 +1,226 @@
+package common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hash map from int keys to objects that keeps its keys in a plain int
+ * array. Collisions go to the next free slot (open addressing), so an entry
+ * costs two array slots instead of a boxed key and an entry object.
+ *
+ * Values can't be null; get() returns null for a missing key.
+ *
+ * @author Group1
+ *
+ * @param <V>
+ *            the type of the values
+ */
+public class IntMap<V> {
+
+	private static final int MIN_CAPACITY = 8;
+
+	private int[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	/**
+	 * @pre true
+	 * @post isEmpty()
+	 */
+	public IntMap() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * @pre expected >= 0
+	 * @post isEmpty()
+	 * @param expected
+	 *            how many keys the map should hold before it has to grow
+	 */
+	public IntMap(int expected) {
+		int capacity = MIN_CAPACITY;
+		while ((capacity * 3) / 4 < expected) {
+			capacity <<= 1;
+		}
+		this.keys = new int[capacity];
+		this.values = new Object[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the value stored under key, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int slot = find(key);
+		return (slot < 0) ? null
+				: (V) this.values[slot];
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if a value is stored under key
+	 */
+	public boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * @pre value is not null
+	 * @post get(key) == value
+	 * @return the value that was stored under key, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		assert value != null;
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (this.values[slot] != null) {
+			if (this.keys[slot] == key) {
+				V old = (V) this.values[slot];
+				this.values[slot] = value;
+				return old;
+			}
+			slot = (slot + 1) & mask;
+		}
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		this.size++;
+		if ((this.size * 4) > (this.keys.length * 3)) {
+			resize(this.keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * @pre true
+	 * @post !containsKey(key)
+	 * @return the value that was stored under key, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return null;
+		}
+		V old = (V) this.values[slot];
+		this.size--;
+
+		// pull later entries of the same run back so no lookup stops early
+		int mask = this.keys.length - 1;
+		int hole = slot;
+		int next = (slot + 1) & mask;
+		while (this.values[next] != null) {
+			int home = hash(this.keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				this.keys[hole] = this.keys[next];
+				this.values[hole] = this.values[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		this.values[hole] = null;
+		return old;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of keys
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if there are no keys
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @pre true
+	 * @post isEmpty()
+	 */
+	public void clear() {
+		Arrays.fill(this.values, null);
+		this.size = 0;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return a copy of the keys, in no particular order
+	 */
+	public int[] keys() {
+		int[] copy = new int[this.size];
+		int c = 0;
+		for (int slot = 0; slot < this.keys.length; slot++) {
+			if (this.values[slot] != null) {
+				copy[c++] = this.keys[slot];
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return a copy of the values, in the same order as keys()
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> copy = new ArrayList<V>(this.size);
+		for (int slot = 0; slot < this.keys.length; slot++) {
+			if (this.values[slot] != null) {
+				copy.add((V) this.values[slot]);
+			}
+		}
+		return copy;
+	}
+
+	private int find(int key) {
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+		while (this.values[slot] != null) {
+			if (this.keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		this.keys = new int[capacity];
+		this.values = new Object[capacity];
+		int mask = capacity - 1;
+		for (int c = 0; c < oldKeys.length; c++) {
+			if (oldValues[c] != null) {
+				int slot = hash(oldKeys[c]) & mask;
+				while (this.values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				this.keys[slot] = oldKeys[c];
+				this.values[slot] = oldValues[c];
+			}
+		}
+	}
+
+	// ids are often consecutive, so spread them over the table
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,179 @@
+package controller.notify;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The objects added, removed and changed by one or more model updates. A
+ * ChangeSet can also be unknown, meaning anything may have changed and
+ * whoever receives it has to reload everything.
+ *
+ * @author Group1
+ *
+ * @param <T>
+ *            the kind of object that changed
+ */
+public class ChangeSet<T> {
+
+	private Set<T> added;
+
+	private Set<T> removed;
+
+	private Set<T> changed;
+
+	private boolean unknown;
+
+	/**
+	 * @pre true
+	 * @post isEmpty()
+	 */
+	public ChangeSet() {
+		this.added = new LinkedHashSet<T>();
+		this.removed = new LinkedHashSet<T>();
+		this.changed = new LinkedHashSet<T>();
+		this.unknown = false;
+	}
+
+	/**
+	 * @pre true
+	 * @post isUnknown()
+	 * @return a ChangeSet that doesn't say what changed
+	 */
+	public static <T> ChangeSet<T> unknown() {
+		ChangeSet<T> changes = new ChangeSet<T>();
+		changes.unknown = true;
+		return changes;
+	}
+
+	/**
+	 * @pre object is not null
+	 * @post object is added unless it was removed earlier in this set, in which
+	 *       case it counts as changed
+	 * @param object
+	 */
+	public void add(T object) {
+		if (this.unknown) {
+			return;
+		}
+		if (this.removed.remove(object)) {
+			this.changed.add(object);
+		} else {
+			this.added.add(object);
+		}
+	}
+
+	/**
+	 * @pre objects is not null
+	 * @post every object is added
+	 * @param objects
+	 */
+	public void addAll(Collection<T> objects) {
+		for (T object : objects) {
+			add(object);
+		}
+	}
+
+	/**
+	 * @pre object is not null
+	 * @post object is removed, or forgotten if it was added in this set
+	 * @param object
+	 */
+	public void remove(T object) {
+		if (this.unknown) {
+			return;
+		}
+		if (!this.added.remove(object)) {
+			this.changed.remove(object);
+			this.removed.add(object);
+		}
+	}
+
+	/**
+	 * @pre object is not null
+	 * @post object is changed unless it was added in this set
+	 * @param object
+	 */
+	public void change(T object) {
+		if (this.unknown
+				|| this.added.contains(object)) {
+			return;
+		}
+		this.changed.add(object);
+	}
+
+	/**
+	 * Folds later changes into this set, as if they had been recorded here
+	 * after everything already in it.
+	 *
+	 * @pre later is not null
+	 * @post this set describes both sets of changes
+	 * @param later
+	 */
+	public void merge(ChangeSet<T> later) {
+		if (later.unknown) {
+			this.unknown = true;
+		}
+		if (this.unknown) {
+			this.added.clear();
+			this.removed.clear();
+			this.changed.clear();
+			return;
+		}
+		for (T object : later.removed) {
+			remove(object);
+		}
+		for (T object : later.added) {
+			add(object);
+		}
+		for (T object : later.changed) {
+			change(object);
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if the set doesn't say what changed
+	 */
+	public boolean isUnknown() {
+		return this.unknown;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if nothing is known to have changed
+	 */
+	public boolean isEmpty() {
+		return !this.unknown && this.added.isEmpty()
+				&& this.removed.isEmpty()
+				&& this.changed.isEmpty();
+	}
+
+	public Set<T> getAdded() {
+		return Collections
+				.unmodifiableSet(this.added);
+	}
+
+	public Set<T> getRemoved() {
+		return Collections
+				.unmodifiableSet(this.removed);
+	}
+
+	public Set<T> getChanged() {
+		return Collections
+				.unmodifiableSet(this.changed);
+	}
+
+	@Override
+	public String toString() {
+		if (this.unknown) {
+			return "unknown";
+		}
+		return "added=" + this.added
+				+ " removed=" + this.removed
+				+ " changed=" + this.changed;
+	}
+}
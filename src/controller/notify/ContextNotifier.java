@@ -8,6 +8,12 @@ import gui.product.ProductData;
 
 public class ContextNotifier implements Notifier {
 
+	@Override
+	public Notifier coalesce(Notifier later) {
+		// everything is reread, only the latest selection matters
+		return later;
+	}
+
 	@Override
 	public void performAction(
 			IInventoryView view,
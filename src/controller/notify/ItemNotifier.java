@@ -6,17 +6,128 @@ import gui.inventory.InventoryView;
 import gui.inventory.ProductContainerData;
 import gui.item.ItemData;
 import gui.product.ProductData;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import model.managers.ItemManager;
+import model.models.Item;
 import model.models.Product;
 import model.models.productContainer.ProductContainer;
 import controller.context.Context;
 
-;
-
 public class ItemNotifier implements Notifier {
 
+	private ChangeSet<Item> changes;
+
+	/**
+	 * A notifier that doesn't say which items changed.
+	 */
 	public ItemNotifier() {
+		this.changes = ChangeSet.unknown();
+	}
+
+	/**
+	 * @pre changes is not null
+	 * @post getChanges() == changes
+	 * @param changes
+	 *            the items that changed
+	 */
+	public ItemNotifier(ChangeSet<Item> changes) {
+		this.changes = changes;
+	}
+
+	/**
+	 * @pre items is not null
+	 * @post true
+	 * @param items
+	 * @return a notifier for newly added items
+	 */
+	public static ItemNotifier added(
+			Collection<Item> items) {
+		ChangeSet<Item> changes = new ChangeSet<Item>();
+		changes.addAll(items);
+		return new ItemNotifier(changes);
+	}
+
+	/**
+	 * @pre item is not null
+	 * @post true
+	 * @param item
+	 * @return a notifier for an item that was consumed
+	 */
+	public static ItemNotifier removed(Item item) {
+		ChangeSet<Item> changes = new ChangeSet<Item>();
+		changes.remove(item);
+		return new ItemNotifier(changes);
+	}
+
+	/**
+	 * @pre item is not null
+	 * @post true
+	 * @param item
+	 * @return a notifier for an item that was edited or moved
+	 */
+	public static ItemNotifier changed(Item item) {
+		ChangeSet<Item> changes = new ChangeSet<Item>();
+		changes.change(item);
+		return new ItemNotifier(changes);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the items this notification is about
+	 */
+	public ChangeSet<Item> getChanges() {
+		return this.changes;
+	}
+
+	/**
+	 * Updates only the rows for the items in the change set. At the root the
+	 * product counts are shown next to the items, so those rows are updated
+	 * too.
+	 */
+	private void refreshRows(IInventoryView view,
+			ProductContainer container) {
+		Set<Item> items = new LinkedHashSet<Item>();
+		items.addAll(this.changes.getRemoved());
+		items.addAll(this.changes.getAdded());
+		items.addAll(this.changes.getChanged());
+
+		ProductData selected = view
+				.getSelectedProduct();
+		if (selected != null) {
+			Product product = (Product) selected
+					.getTag();
+			for (Item item : items) {
+				TableRows.refreshItem(view,
+						container, product, item);
+			}
+		}
+
+		if (container == null) {
+			Set<Product> products = new LinkedHashSet<Product>();
+			for (Item item : items) {
+				products.add(item.getProduct());
+			}
+			for (Product product : products) {
+				TableRows.refreshProduct(view, null,
+						product);
+			}
+		}
+	}
 
+	@Override
+	public Notifier coalesce(Notifier later) {
+		if (!(later instanceof ItemNotifier)) {
+			return later;
+		}
+		ChangeSet<Item> merged = new ChangeSet<Item>();
+		merged.merge(this.changes);
+		merged.merge(((ItemNotifier) later).changes);
+		return new ItemNotifier(merged);
 	}
 
 	@Override
@@ -34,6 +145,14 @@ public class ItemNotifier implements Notifier {
 				.getSelectedProductContainer()
 				.getTag();
 
+		if (!this.changes.isUnknown()) {
+			refreshRows(view,
+					(productContainer == Context
+							.getInstance().getRoot()) ? null
+							: productContainer);
+			return;
+		}
+
 		if ((view.getClass() == InventoryView.class)
 				&& (productContainer == Context
 						.getInstance().getRoot())) {
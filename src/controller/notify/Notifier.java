@@ -8,4 +8,16 @@ public interface Notifier {
 	public void performAction(
 			IInventoryView view,
 			ProductContainerData root);
+
+	/**
+	 * Combines this notifier with one sent later by the same model, so the
+	 * pair can be delivered as a single notification.
+	 * 
+	 * @pre later is not null
+	 * @post true
+	 * @param later
+	 *            the notifier sent after this one
+	 * @return a notifier that covers both
+	 */
+	public Notifier coalesce(Notifier later);
 }
@@ -26,6 +26,12 @@ public class ProductContainerNotifier implements
 		this.changedContainer.setOldName(oldName);
 	}
 
+	@Override
+	public Notifier coalesce(Notifier later) {
+		// everything is reread, only the latest selection matters
+		return later;
+	}
+
 	@Override
 	public void performAction(
 			IInventoryView view,
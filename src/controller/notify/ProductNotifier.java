@@ -6,6 +6,7 @@ import gui.inventory.InventoryView;
 import gui.inventory.ProductContainerData;
 import gui.product.ProductData;
 import model.managers.ProductManager;
+import model.models.Product;
 import model.models.productContainer.ProductContainer;
 import controller.context.Context;
 
@@ -13,6 +14,9 @@ public class ProductNotifier implements Notifier {
 
 	private boolean itemNeedsAdded = false;
 
+	private ChangeSet<Product> changes = ChangeSet
+			.unknown();
+
 	public ProductNotifier() {
 
 	}
@@ -21,10 +25,48 @@ public class ProductNotifier implements Notifier {
 		this.itemNeedsAdded = itemNeedsAdded;
 	}
 
+	/**
+	 * @pre product is not null
+	 * @post true
+	 * @param product
+	 * @return a notifier for a product whose item counts or containers changed
+	 */
+	public static ProductNotifier changed(
+			Product product) {
+		ProductNotifier notifier = new ProductNotifier();
+		notifier.changes = new ChangeSet<Product>();
+		notifier.changes.change(product);
+		return notifier;
+	}
+
 	public boolean itemNeedsAdded() {
 		return this.itemNeedsAdded;
 	}
 
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the products this notification is about
+	 */
+	public ChangeSet<Product> getChanges() {
+		return this.changes;
+	}
+
+	@Override
+	public Notifier coalesce(Notifier later) {
+		if (!(later instanceof ProductNotifier)) {
+			return later;
+		}
+		ProductNotifier other = (ProductNotifier) later;
+		ProductNotifier merged = new ProductNotifier(
+				this.itemNeedsAdded
+						|| other.itemNeedsAdded);
+		merged.changes = new ChangeSet<Product>();
+		merged.changes.merge(this.changes);
+		merged.changes.merge(other.changes);
+		return merged;
+	}
+
 	@Override
 	public void performAction(
 			IInventoryView view,
@@ -33,6 +75,28 @@ public class ProductNotifier implements Notifier {
 		ProductContainerData pcd = view
 				.getSelectedProductContainer();
 
+		if ((pcd != null) && !this.changes.isUnknown()) {
+			ProductContainer container = (pcd == root) ? null
+					: (ProductContainer) pcd.getTag();
+			for (Product product : this.changes
+					.getRemoved()) {
+				view.removeProduct(ProductData
+						.convertToProductData(product,
+								0));
+			}
+			for (Product product : this.changes
+					.getAdded()) {
+				TableRows.refreshProduct(view,
+						container, product);
+			}
+			for (Product product : this.changes
+					.getChanged()) {
+				TableRows.refreshProduct(view,
+						container, product);
+			}
+			return;
+		}
+
 		if (pcd == root) {// this is just for the root storage unit notifier
 			// view.setProducts(new ProductData[0]);
 			if (view.getClass() == InventoryView.class) {
@@ -0,0 +1,142 @@
+package controller.notify;
+
+import gui.inventory.IInventoryView;
+import gui.item.ItemData;
+import gui.product.ProductData;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.SortedSet;
+
+import model.managers.ItemManager;
+import model.managers.ProductManager;
+import model.models.Item;
+import model.models.Product;
+import model.models.productContainer.ProductContainer;
+
+/**
+ * Brings single rows of the inventory tables up to date with the model, for
+ * notifiers that know exactly which products and items changed. A null
+ * container stands for the root, which lists every product that has items.
+ *
+ * @author Group1
+ */
+class TableRows {
+
+	private TableRows() {
+	}
+
+	/**
+	 * Updates, inserts or removes the row for product so the "Products" table
+	 * matches what a full reload would show for container.
+	 *
+	 * @pre view and product are not null
+	 * @post product's row is up to date
+	 */
+	static void refreshProduct(
+			IInventoryView view,
+			ProductContainer container,
+			Product product) {
+		ProductManager productManager = ProductManager
+				.getInstance();
+		ItemManager itemManager = ItemManager
+				.getInstance();
+		boolean shown;
+		ProductData data;
+		if (container == null) {
+			shown = isShownAtRoot(product);
+			data = ProductData.convertToProductData(
+					product,
+					itemManager.getLiveItemCount(product
+							.getBarcode()));
+		} else {
+			Collection<Product> products = productManager
+					.getProductsByContainer(container);
+			shown = (products != null)
+					&& products.contains(product);
+			data = ProductData.convertToProductData(
+					product, container);
+		}
+
+		if (!shown) {
+			view.removeProduct(data);
+		} else if (!view.updateProduct(data)) {
+			view.insertProduct(
+					productIndex(container, product),
+					data);
+		}
+	}
+
+	/**
+	 * Removes item's row and, if item still belongs in the "Items" table for
+	 * container and the selected product, puts it back where it now sorts.
+	 *
+	 * @pre view and item are not null
+	 * @post item's row is up to date
+	 */
+	static void refreshItem(IInventoryView view,
+			ProductContainer container,
+			Product selectedProduct, Item item) {
+		ItemData data = ItemData
+				.convertToItemData(item);
+		view.removeItem(data);
+		if ((item.getContainer() == ProductContainer.CONSUMED_ITEMS)
+				|| !item.getProduct().equals(
+						selectedProduct)) {
+			return;
+		}
+		ItemManager itemManager = ItemManager
+				.getInstance();
+		Set<Item> shown;
+		if (container == null) {
+			shown = itemManager
+					.getItemsByProduct(selectedProduct);
+		} else {
+			shown = itemManager
+					.getItemsByContainerAndProduct(
+							container,
+							selectedProduct
+									.getBarcode());
+		}
+		// only the manager's sorted sets can contain the item
+		if ((shown != null) && shown.contains(item)) {
+			view.insertItem(((SortedSet<Item>) shown)
+					.headSet(item).size(), data);
+		}
+	}
+
+	private static boolean isShownAtRoot(
+			Product product) {
+		return (ProductManager.getInstance()
+				.getProductByBarcode(
+						product.getBarcode()) != null)
+				&& (ItemManager.getInstance()
+						.getItemsByProduct(product) != null);
+	}
+
+	private static int productIndex(
+			ProductContainer container,
+			Product product) {
+		int index = 0;
+		if (container == null) {
+			// the root lists every product with items in natural order
+			for (Product other : ProductManager
+					.getInstance().getAllProducts()) {
+				if ((other.compareTo(product) < 0)
+						&& isShownAtRoot(other)) {
+					index++;
+				}
+			}
+			return index;
+		}
+		for (Product other : ProductManager
+				.getInstance()
+				.getProductsByContainer(container)) {
+			if (other.equals(product)) {
+				break;
+			}
+			index++;
+		}
+		return index;
+	}
+}
@@ -18,6 +18,7 @@ import java.util.Observer;
 import java.util.Set;
 
 import model.managers.ItemManager;
+import model.managers.NotificationBus;
 import model.managers.ProductManager;
 import model.models.Item;
 import model.models.Product;
@@ -26,7 +27,6 @@ import model.models.productContainer.*;
 
 import common.BarcodeLabelGenerator;
 
-import controller.notify.ItemNotifier;
 import controller.notify.ProductNotifier;
 
 /**
@@ -318,30 +318,31 @@ public class AddItemBatchController extends
 					count);
 		}
 
-		for (int c = 0; c < count; c++) {
-			Item itemToAdd = new Item(
-					this.itemManager
-							.generateItemBarcode(),
-					this.lastProductAdded,
-					getView().getEntryDate(),
-					this.targetProductContainer);
-			// itemsAdded.add(itemToAdd);
+		NotificationBus bus = NotificationBus
+				.getInstance();
+		bus.begin();
+		try {
+			List<Item> added = this.itemManager
+					.addAll(this.lastProductAdded,
+							this.targetProductContainer,
+							getView().getEntryDate(),
+							count);
 			ArrayList<Item> itemsByProduct = this.itemsAdded
 					.get(productBarcode);
 			if (itemsByProduct == null) {
 				itemsByProduct = new ArrayList<Item>();
-				this.itemsAdded.put(
-						productBarcode,
+				this.itemsAdded.put(productBarcode,
 						itemsByProduct);
 			}
-			itemsByProduct.add(itemToAdd);
-			this.itemManager.add(itemToAdd);
+			itemsByProduct.addAll(added);
+			this.productManager
+					.setChangedOverride();
+			this.productManager
+					.notifyObservers(ProductNotifier
+							.changed(this.lastProductAdded));
+		} finally {
+			bus.end();
 		}
-		this.productManager.setChangedOverride();
-		this.productManager
-				.notifyObservers(new ProductNotifier());
-		this.itemManager
-				.notifyObservers(new ItemNotifier());
 	}
 
 	/**
@@ -17,7 +17,6 @@ import model.models.Product;
 import model.models.barcode.ItemBarcode;
 import model.models.barcode.ProductBarcode;
 import controller.context.Context;
-import controller.notify.ItemNotifier;
 
 /**
  * Controller class for the remove item batch view.
@@ -227,11 +226,9 @@ public class RemoveItemBatchController extends
 			}
 			itemsByProduct.add(theItem);
 
+			// consume notifies the removed row and the product's new count
 			this.itemManager.consume(theItem);
 
-			this.itemManager
-					.notifyObservers(new ItemNotifier());
-
 		} else {
 			getView()
 					.displayErrorMessage(
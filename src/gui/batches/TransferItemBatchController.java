@@ -17,8 +17,6 @@ import model.models.Product;
 import model.models.barcode.ItemBarcode;
 import model.models.barcode.ProductBarcode;
 import model.models.productContainer.StorageUnit;
-import controller.notify.ItemNotifier;
-import controller.notify.ProductNotifier;
 
 /**
  * Controller class for the transfer item batch view.
@@ -240,18 +238,10 @@ public class TransferItemBatchController extends
 			itemsByProduct.add(theItem);
 
 			System.out.println(itemsByProduct);
+			// transferItem notifies the moved row and the product's new count
 			itemManager.transferItem(theItem,
 					this.targetDestination);
 
-			itemManager
-					.notifyObservers(new ItemNotifier());
-			ProductManager.getInstance()
-					.setChangedOverride();
-			ProductManager
-					.getInstance()
-					.notifyObservers(
-							new ProductNotifier());
-
 		} else {
 			getView()
 					.displayErrorMessage(
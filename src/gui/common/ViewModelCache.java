@@ -0,0 +1,260 @@
+package gui.common;
+
+import gui.item.ItemData;
+import gui.product.ProductData;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+
+import model.managers.ItemManager;
+import model.managers.ProductGroupManager;
+import model.managers.ProductManager;
+import model.managers.StorageUnitManager;
+import model.models.Item;
+import model.models.Product;
+import model.models.productContainer.ProductContainer;
+import controller.notify.ChangeSet;
+import controller.notify.ItemNotifier;
+import controller.notify.Notifier;
+import controller.notify.ProductContainerNotifier;
+import controller.notify.ProductNotifier;
+
+/**
+ * ViewModelCache keeps the ItemData and ProductData built for each model
+ * object, so showing the same container again reuses the rows built last
+ * time. Entries are keyed by object identity and dropped when a manager
+ * notification says the object changed. The cache observes the managers ahead
+ * of the controllers, so stale rows are gone before any view is refreshed.
+ *
+ * @author Group1
+ */
+public class ViewModelCache implements Observer {
+
+	private static ViewModelCache cache = null;
+
+	private Map<Item, ItemData> items;
+
+	// per product, the rows built for each container it was shown in
+	private Map<Product, Map<ProductContainer, ProductData>> products;
+
+	// rows built from a count instead of a container, and the count used
+	private Map<Product, ProductData> counted;
+
+	private Map<Product, Integer> counts;
+
+	private int hits;
+
+	private int misses;
+
+	private ViewModelCache() {
+		this.items = new IdentityHashMap<Item, ItemData>();
+		this.products = new IdentityHashMap<Product, Map<ProductContainer, ProductData>>();
+		this.counted = new IdentityHashMap<Product, ProductData>();
+		this.counts = new IdentityHashMap<Product, Integer>();
+		ItemManager.getInstance().addFirstObserver(
+				this);
+		ProductManager.getInstance()
+				.addFirstObserver(this);
+		ProductGroupManager.getInstance()
+				.addFirstObserver(this);
+		StorageUnitManager.getInstance()
+				.addFirstObserver(this);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the ViewModelCache singleton
+	 */
+	public static ViewModelCache getInstance() {
+		if (cache == null) {
+			cache = new ViewModelCache();
+		}
+		return cache;
+	}
+
+	/**
+	 * @pre item is not null
+	 * @post true
+	 * @return the cached row for item, or null
+	 */
+	public ItemData getItemData(Item item) {
+		return count(this.items.get(item));
+	}
+
+	/**
+	 * @pre item and data are not null
+	 * @post getItemData(item) == data
+	 */
+	public void putItemData(Item item,
+			ItemData data) {
+		this.items.put(item, data);
+	}
+
+	/**
+	 * @pre product and container are not null
+	 * @post true
+	 * @return the cached row for product as shown in container, or null
+	 */
+	public ProductData getProductData(
+			Product product,
+			ProductContainer container) {
+		Map<ProductContainer, ProductData> byContainer = this.products
+				.get(product);
+		return count((byContainer == null) ? null
+				: byContainer.get(container));
+	}
+
+	/**
+	 * @pre product, container and data are not null
+	 * @post getProductData(product, container) == data
+	 */
+	public void putProductData(Product product,
+			ProductContainer container,
+			ProductData data) {
+		Map<ProductContainer, ProductData> byContainer = this.products
+				.get(product);
+		if (byContainer == null) {
+			byContainer = new IdentityHashMap<ProductContainer, ProductData>();
+			this.products.put(product,
+					byContainer);
+		}
+		byContainer.put(container, data);
+	}
+
+	/**
+	 * @pre product is not null
+	 * @post true
+	 * @return the cached row for product built with itemCount, or null
+	 */
+	public ProductData getProductData(
+			Product product, int itemCount) {
+		Integer cachedCount = this.counts
+				.get(product);
+		if ((cachedCount == null)
+				|| (cachedCount.intValue() != itemCount)) {
+			return count(null);
+		}
+		return count(this.counted.get(product));
+	}
+
+	/**
+	 * @pre product and data are not null
+	 * @post getProductData(product, itemCount) == data
+	 */
+	public void putProductData(Product product,
+			int itemCount, ProductData data) {
+		this.counted.put(product, data);
+		this.counts.put(product, itemCount);
+	}
+
+	/**
+	 * Called by a manager with each notification before its controllers see
+	 * it.
+	 */
+	@Override
+	public void update(Observable observable,
+			Object notifier) {
+		if (notifier instanceof Notifier) {
+			invalidate((Notifier) notifier);
+		}
+	}
+
+	/**
+	 * Drops every entry the notification says is out of date.
+	 *
+	 * @pre notifier is not null
+	 * @post no entry for a changed object is left
+	 * @param notifier
+	 *            a notification about to be delivered
+	 */
+	public void invalidate(Notifier notifier) {
+		if (notifier instanceof ItemNotifier) {
+			ChangeSet<Item> changes = ((ItemNotifier) notifier)
+					.getChanges();
+			if (changes.isUnknown()) {
+				clear();
+				return;
+			}
+			evictItems(changes.getAdded());
+			evictItems(changes.getRemoved());
+			evictItems(changes.getChanged());
+		} else if (notifier instanceof ProductNotifier) {
+			ChangeSet<Product> changes = ((ProductNotifier) notifier)
+					.getChanges();
+			if (changes.isUnknown()) {
+				this.products.clear();
+				this.counted.clear();
+				this.counts.clear();
+				return;
+			}
+			evictProducts(changes.getAdded());
+			evictProducts(changes.getRemoved());
+			evictProducts(changes.getChanged());
+		} else if (notifier instanceof ProductContainerNotifier) {
+			// container names are copied into the item rows
+			clear();
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post the cache is empty
+	 */
+	public void clear() {
+		this.items.clear();
+		this.products.clear();
+		this.counted.clear();
+		this.counts.clear();
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return how many lookups found a row
+	 */
+	public int getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return how many lookups found nothing
+	 */
+	public int getMisses() {
+		return this.misses;
+	}
+
+	private <T> T count(T found) {
+		if (found == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return found;
+	}
+
+	private void evictItems(Iterable<Item> changed) {
+		for (Item item : changed) {
+			this.items.remove(item);
+			// the product rows show item counts
+			evictProduct(item.getProduct());
+		}
+	}
+
+	private void evictProducts(
+			Iterable<Product> changed) {
+		for (Product product : changed) {
+			evictProduct(product);
+		}
+	}
+
+	private void evictProduct(Product product) {
+		this.products.remove(product);
+		this.counted.remove(product);
+		this.counts.remove(product);
+	}
+}
@@ -126,6 +126,36 @@ public interface IInventoryView extends IView {
 	 */
 	void selectProduct(ProductData product);
 
+	/**
+	 * Inserts one row into the "Products" table, leaving the other rows as
+	 * they are.
+	 * 
+	 * @param index
+	 *            Row the product should end up in
+	 * @param product
+	 *            The product to insert
+	 */
+	void insertProduct(int index, ProductData product);
+
+	/**
+	 * Redisplays the row showing the same product as product (compared by
+	 * barcode) with product's values.
+	 * 
+	 * @param product
+	 *            The new values for the row
+	 * @return true if the product was in the table
+	 */
+	boolean updateProduct(ProductData product);
+
+	/**
+	 * Removes the row showing the same product as product (compared by
+	 * barcode), if there is one.
+	 * 
+	 * @param product
+	 *            The product to remove
+	 */
+	void removeProduct(ProductData product);
+
 	/**
 	 * Sets the items displayed in the "Items" table.
 	 * 
@@ -150,6 +180,35 @@ public interface IInventoryView extends IView {
 	 */
 	void selectItem(ItemData item);
 
+	/**
+	 * Inserts one row into the "Items" table, leaving the other rows as they
+	 * are.
+	 * 
+	 * @param index
+	 *            Row the item should end up in
+	 * @param item
+	 *            The item to insert
+	 */
+	void insertItem(int index, ItemData item);
+
+	/**
+	 * Redisplays the row showing the item with item's barcode with item's
+	 * values.
+	 * 
+	 * @param item
+	 *            The new values for the row
+	 * @return true if the item was in the table
+	 */
+	boolean updateItem(ItemData item);
+
+	/**
+	 * Removes the row showing the item with item's barcode, if there is one.
+	 * 
+	 * @param item
+	 *            The item to remove
+	 */
+	void removeItem(ItemData item);
+
 	/**
 	 * Displays the add storage unit view.
 	 */
@@ -7,11 +7,12 @@ import gui.product.*;
 import java.util.*;
 
 import controller.context.Context;
-import controller.notify.ItemNotifier;
 import controller.notify.Notifier;
 import controller.notify.ProductNotifier;
 
 import model.managers.ItemManager;
+import model.managers.ModelLock;
+import model.managers.NotificationBus;
 import model.managers.ProductGroupManager;
 import model.managers.ProductManager;
 import model.managers.SessionManager;
@@ -350,18 +351,23 @@ public class InventoryController extends
 
 	public void setRootItemData(
 			Product selectedProduct) {
-		Set<Item> items = ItemManager
-				.getInstance().getItemsByProduct(
-						selectedProduct);
-		Set<Item> unconsumedItems = new TreeSet<Item>();
-		for (Item i : items) {
-			if (i.getContainer() != ProductContainer.CONSUMED_ITEMS) {
-				unconsumedItems.add(i);
+		ItemData[] itemData;
+		// the item set is live, so hold the read lock while it is copied
+		ModelLock.lockRead();
+		try {
+			// only live items are indexed by product
+			Set<Item> items = ItemManager
+					.getInstance().getItemsByProduct(
+							selectedProduct);
+			if (items == null) {
+				items = new TreeSet<Item>();
 			}
+			itemData = ItemData
+					.convertToItemData(items);
+		} finally {
+			ModelLock.unlockRead();
 		}
-		getView()
-				.setItems(
-						ItemData.convertToItemData(unconsumedItems));
+		getView().setItems(itemData);
 	}
 
 	/**
@@ -383,23 +389,25 @@ public class InventoryController extends
 		} else {
 
 			// get products
-			Collection<Product> products = ProductManager
-					.getInstance()
-					.getProductsByContainer(
-							productContainer);
-			if (products == null) {
-				getView().setProducts(
-						new ProductData[0]);
-				// System.out.println("Setting no products");
-			} else {
-				ProductData[] productDataArr = ProductData
-						.convertToProductData(
-								products,
+			ProductData[] productDataArr;
+			ModelLock.lockRead();
+			try {
+				Collection<Product> products = ProductManager
+						.getInstance()
+						.getProductsByContainer(
 								productContainer);
-				getView().setProducts(
-						productDataArr);
-				// System.out.println("Setting some products");
+				if (products == null) {
+					productDataArr = new ProductData[0];
+				} else {
+					productDataArr = ProductData
+							.convertToProductData(
+									products,
+									productContainer);
+				}
+			} finally {
+				ModelLock.unlockRead();
 			}
+			getView().setProducts(productDataArr);
 
 			getView().setItems(new ItemData[0]);
 
@@ -440,15 +448,21 @@ public class InventoryController extends
 		if (pc == this.root) {
 			setRootItemData(selectedProduct);
 		} else {
-			Set<Item> items = ItemManager
-					.getInstance()
-					.getItemsByContainerAndProduct(
-							pc,
-							selectedProduct
-									.getBarcode());
-			getView()
-					.setItems(
-							ItemData.convertToItemData(items));
+			ItemData[] itemData;
+			ModelLock.lockRead();
+			try {
+				Set<Item> items = ItemManager
+						.getInstance()
+						.getItemsByContainerAndProduct(
+								pc,
+								selectedProduct
+										.getBarcode());
+				itemData = ItemData
+						.convertToItemData(items);
+			} finally {
+				ModelLock.unlockRead();
+			}
+			getView().setItems(itemData);
 		}
 		Context.getInstance().setSelectedProduct(
 				selectedProduct);
@@ -494,22 +508,9 @@ public class InventoryController extends
 			// return ItemManager.getInstance().itemExists(barcode)
 			// Product product =
 			// ProductManager.getInstance().getProductByBarcode(productBarcode)
-			Set<Item> items = ItemManager
-					.getInstance()
-					.getItemsByProduct(product);
-
-			int count = 0;
-			Iterator<Item> iter = items
-					.iterator();
-			while (iter.hasNext()) {
-				if (iter.next().getContainer() != ProductContainer.CONSUMED_ITEMS) {
-					count++;
-				}
-			}
-
-			// System.out.println(product + " contains " + items);
-			return (items == null)
-					|| (count == 0);
+			return ItemManager.getInstance()
+					.getLiveItemCount(
+							product.getBarcode()) == 0;
 		}
 
 		return ItemManager
@@ -750,41 +751,53 @@ public class InventoryController extends
 		// ProductContainer otherContainerContainingProduct =
 		// targetContainer.getStorageUnit().findProductContainer(product.getBarcode());
 
-		targetContainer.addProduct(product);// check this
-		ProductContainer oldContainer = targetContainer
-				.getStorageUnit()
-				.findProductContainer(
-						product.getBarcode());// null;
-		//
-		// Iterator<ProductContainer> containerIterator =
-		// product.getContainers();
-		// while(containerIterator.hasNext()) {
-		// ProductContainer cur = containerIterator.next();
-		// if(cur.getStorageUnit().equals(targetContainer.getStorageUnit())) {
-		// oldContainer = cur;
-		// break;
-		// }
-		// }
-
-		pm.addToContainer(product,
-				targetContainer);
-
-		if (oldContainer != null) {
-			// moving product within the same storage unit
-			Set<Item> itemsToMove = ItemManager
-					.getInstance()
-					.getItemsByContainerAndProduct(
-							oldContainer,
+		// the lookup, the add and the move are one change to other threads,
+		// and one update of the rows they touch
+		ModelLock.lockWrite();
+		NotificationBus bus = NotificationBus
+				.getInstance();
+		bus.begin();
+		try {
+			// look for the old container before the product is added to the
+			// new one
+			ProductContainer oldContainer = targetContainer
+					.getStorageUnit()
+					.findProductContainer(
 							product.getBarcode());
-
-			im.productMoveItems(itemsToMove,
-					targetContainer, oldContainer);
-
-			pm.deleteFromContainer(product,
-					oldContainer);
-			System.out.println("huh!?");
+			targetContainer.addProduct(product);
+			//
+			// Iterator<ProductContainer> containerIterator =
+			// product.getContainers();
+			// while(containerIterator.hasNext()) {
+			// ProductContainer cur = containerIterator.next();
+			// if(cur.getStorageUnit().equals(targetContainer.getStorageUnit())) {
+			// oldContainer = cur;
+			// break;
+			// }
+			// }
+
+			pm.addToContainer(product,
+					targetContainer);
+
+			if ((oldContainer != null)
+					&& (oldContainer != targetContainer)) {
+				// moving product within the same storage unit
+				Set<Item> itemsToMove = ItemManager
+						.getInstance()
+						.getItemsByContainerAndProduct(
+								oldContainer,
+								product.getBarcode());
+
+				im.productMoveItems(itemsToMove,
+						targetContainer, oldContainer);
+
+				pm.deleteFromContainer(product,
+						oldContainer);
+			}
+		} finally {
+			bus.end();
+			ModelLock.unlockWrite();
 		}
-
 	}
 
 	/**
@@ -808,11 +821,9 @@ public class InventoryController extends
 				.getSelectedItem().getTag();
 		ProductContainer container = (ProductContainer) containerData
 				.getTag();
+		// move notifies the rows that changed
 		ItemManager.getInstance().move(toMove,
 				container);
-		ItemManager.getInstance()
-				.notifyObservers(
-						new ItemNotifier());
 	}
 
 	/**
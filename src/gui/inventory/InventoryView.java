@@ -67,7 +67,6 @@ import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
-import common.util.DateUtils;
 import controller.notify.ProductContainerDataSorter;
 
 @SuppressWarnings("serial")
@@ -1264,21 +1263,8 @@ public class InventoryView extends View implements
 			this._productTableModel
 					.setRowCount(0);
 			for (ProductData pd : products) {
-				ProductFormatter[] row = new ProductFormatter[6];
-				row[0] = new ProductFormatter(0);
-				row[0].setTag(pd);
-				row[1] = new ProductFormatter(1);
-				row[1].setTag(pd);
-				row[2] = new ProductFormatter(2);
-				row[2].setTag(pd);
-				row[3] = new ProductFormatter(3);
-				row[3].setTag(pd);
-				row[4] = new ProductFormatter(4);
-				row[4].setTag(pd);
-				row[5] = new ProductFormatter(5);
-				row[5].setTag(pd);
 				this._productTableModel
-						.addRow(row);
+						.addRow(createProductRow(pd));
 			}
 		} finally {
 			if (disabledEvents) {
@@ -1287,6 +1273,86 @@ public class InventoryView extends View implements
 		}
 	}
 
+	@Override
+	public void insertProduct(int index,
+			ProductData product) {
+		boolean disabledEvents = disableEvents();
+		try {
+			this._productTableModel.insertRow(Math
+					.min(index,
+							this._productTableModel
+									.getRowCount()),
+					createProductRow(product));
+		} finally {
+			if (disabledEvents) {
+				enableEvents();
+			}
+		}
+	}
+
+	@Override
+	public boolean updateProduct(
+			ProductData product) {
+		int row = findProductRow(product);
+		if (row < 0) {
+			return false;
+		}
+		boolean disabledEvents = disableEvents();
+		try {
+			for (int c = 0; c < this._productTableModel
+					.getColumnCount(); c++) {
+				((ProductFormatter) this._productTableModel
+						.getValueAt(row, c))
+						.setTag(product);
+			}
+			this._productTableModel
+					.fireTableRowsUpdated(row, row);
+		} finally {
+			if (disabledEvents) {
+				enableEvents();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void removeProduct(ProductData product) {
+		int row = findProductRow(product);
+		if (row < 0) {
+			return;
+		}
+		boolean disabledEvents = disableEvents();
+		try {
+			this._productTableModel.removeRow(row);
+		} finally {
+			if (disabledEvents) {
+				enableEvents();
+			}
+		}
+	}
+
+	private ProductFormatter[] createProductRow(
+			ProductData pd) {
+		ProductFormatter[] row = new ProductFormatter[6];
+		for (int c = 0; c < row.length; c++) {
+			row[c] = new ProductFormatter(c);
+			row[c].setTag(pd);
+		}
+		return row;
+	}
+
+	private int findProductRow(ProductData product) {
+		for (int i = 0; i < this._productTableModel
+				.getRowCount(); ++i) {
+			ProductFormatter formatter = (ProductFormatter) this._productTableModel
+					.getValueAt(i, 0);
+			if (product.equals(formatter.getTag())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	@Override
 	public ItemData getSelectedItem() {
 		int selectedIndex = this._itemTable
@@ -1330,18 +1396,8 @@ public class InventoryView extends View implements
 		try {
 			this._itemTableModel.setRowCount(0);
 			for (ItemData id : items) {
-				ItemFormatter[] row = new ItemFormatter[5];
-				row[0] = new ItemFormatter(0);
-				row[0].setTag(id);
-				row[1] = new ItemFormatter(1);
-				row[1].setTag(id);
-				row[2] = new ItemFormatter(2);
-				row[2].setTag(id);
-				row[3] = new ItemFormatter(3);
-				row[3].setTag(id);
-				row[4] = new ItemFormatter(4);
-				row[4].setTag(id);
-				this._itemTableModel.addRow(row);
+				this._itemTableModel
+						.addRow(createItemRow(id));
 			}
 		} finally {
 			if (disabledEvents) {
@@ -1350,6 +1406,86 @@ public class InventoryView extends View implements
 		}
 	}
 
+	@Override
+	public void insertItem(int index,
+			ItemData item) {
+		boolean disabledEvents = disableEvents();
+		try {
+			this._itemTableModel.insertRow(Math
+					.min(index, this._itemTableModel
+							.getRowCount()),
+					createItemRow(item));
+		} finally {
+			if (disabledEvents) {
+				enableEvents();
+			}
+		}
+	}
+
+	@Override
+	public boolean updateItem(ItemData item) {
+		int row = findItemRow(item);
+		if (row < 0) {
+			return false;
+		}
+		boolean disabledEvents = disableEvents();
+		try {
+			for (int c = 0; c < this._itemTableModel
+					.getColumnCount(); c++) {
+				((ItemFormatter) this._itemTableModel
+						.getValueAt(row, c))
+						.setTag(item);
+			}
+			this._itemTableModel
+					.fireTableRowsUpdated(row, row);
+		} finally {
+			if (disabledEvents) {
+				enableEvents();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void removeItem(ItemData item) {
+		int row = findItemRow(item);
+		if (row < 0) {
+			return;
+		}
+		boolean disabledEvents = disableEvents();
+		try {
+			this._itemTableModel.removeRow(row);
+		} finally {
+			if (disabledEvents) {
+				enableEvents();
+			}
+		}
+	}
+
+	private ItemFormatter[] createItemRow(
+			ItemData id) {
+		ItemFormatter[] row = new ItemFormatter[5];
+		for (int c = 0; c < row.length; c++) {
+			row[c] = new ItemFormatter(c);
+			row[c].setTag(id);
+		}
+		return row;
+	}
+
+	private int findItemRow(ItemData item) {
+		for (int i = 0; i < this._itemTableModel
+				.getRowCount(); ++i) {
+			ItemFormatter formatter = (ItemFormatter) this._itemTableModel
+					.getValueAt(i, 0);
+			if (item.getBarcode().equals(
+					((ItemData) formatter.getTag())
+							.getBarcode())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	@Override
 	public void displayAddProductGroupView() {
 		ProductContainerData container = getSelectedProductContainer();
@@ -1494,15 +1630,11 @@ public class InventoryView extends View implements
 			if (data != null) {
 				switch (this.column) {
 					case 0:
-						return DateUtils
-								.formatDate(data
-										.getEntryDate());
+						return data
+								.getEntryDateText();
 					case 1:
-						return (data
-								.getExpirationDate() != null ? DateUtils
-								.formatDate(data
-										.getExpirationDate())
-								: "");
+						return data
+								.getExpirationDateText();
 					case 2:
 						return data.getBarcode();
 					case 3:
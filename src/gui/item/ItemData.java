@@ -1,6 +1,7 @@
 package gui.item;
 
 import gui.common.Tagable;
+import gui.common.ViewModelCache;
 
 import java.util.Collection;
 import java.util.Date;
@@ -9,6 +10,7 @@ import java.util.Iterator;
 import model.models.Item;
 import model.models.productContainer.ProductContainer;
 import model.models.productContainer.StorageUnit;
+import common.util.DateUtils;
 
 /**
  * Display data class for items.
@@ -40,6 +42,13 @@ public class ItemData extends Tagable {
 	 */
 	private String _productGroup;
 
+	/**
+	 * Formatted dates, built the first time a table cell asks for them.
+	 */
+	private String _entryDateText;
+
+	private String _expirationDateText;
+
 	/**
 	 * Constructor.
 	 * 
@@ -103,6 +112,21 @@ public class ItemData extends Tagable {
 	 */
 	public void setEntryDate(Date entryDate) {
 		this._entryDate = entryDate;
+		this._entryDateText = null;
+	}
+
+	/**
+	 * Returns the entry date formatted for display.
+	 * 
+	 * @pre True
+	 * @post Returns the formatted entry date.
+	 */
+	public String getEntryDateText() {
+		if (this._entryDateText == null) {
+			this._entryDateText = DateUtils
+					.formatDate(this._entryDate);
+		}
+		return this._entryDateText;
 	}
 
 	/**
@@ -128,6 +152,23 @@ public class ItemData extends Tagable {
 	public void setExpirationDate(
 			Date expirationDate) {
 		this._expirationDate = expirationDate;
+		this._expirationDateText = null;
+	}
+
+	/**
+	 * Returns the expiration date formatted for display, or "" if there is
+	 * none.
+	 * 
+	 * @pre True
+	 * @post Returns the formatted expiration date.
+	 */
+	public String getExpirationDateText() {
+		if (this._expirationDateText == null) {
+			this._expirationDateText = (this._expirationDate != null) ? DateUtils
+					.formatDate(this._expirationDate)
+					: "";
+		}
+		return this._expirationDateText;
 	}
 
 	/**
@@ -229,7 +270,12 @@ public class ItemData extends Tagable {
 	public static ItemData convertToItemData(
 			Item item) {
 		assert item != null : "item is null in convertToItemData in ItemData.java";
-		ItemData ret = new ItemData();
+		ItemData ret = ViewModelCache.getInstance()
+				.getItemData(item);
+		if (ret != null) {
+			return ret;
+		}
+		ret = new ItemData();
 		ret._barcode = item.getItemBarcode()
 				.toString();
 		ret._entryDate = item.getEntryDate();
@@ -254,6 +300,8 @@ public class ItemData extends Tagable {
 					.getStorageUnit().getName();
 		}
 		ret.setTag(item);
+		ViewModelCache.getInstance().putItemData(
+				item, ret);
 		return ret;
 	}
 
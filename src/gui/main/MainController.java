@@ -4,7 +4,7 @@ import gui.common.Controller;
 
 import java.util.Observable;
 
-import model.managers.SerializationManager;
+import model.managers.SessionManager;
 
 /**
  * Controller class for the main view. The main view allows the user to print
@@ -61,8 +61,8 @@ public class MainController extends Controller
 	@Override
 	public void exit() {
 
-		SerializationManager.getInstance()
-				.saveState();
+		SessionManager.getInstance().saveState();
+		SessionManager.getInstance().flush();
 	}
 
 	/**
@@ -74,7 +74,7 @@ public class MainController extends Controller
 	 */
 	@Override
 	public boolean canPrintExpiredReport() {
-		return false;
+		return true;
 	}
 
 	/**
@@ -98,7 +98,7 @@ public class MainController extends Controller
 	 */
 	@Override
 	public boolean canPrintSupplyReport() {
-		return false;
+		return true;
 	}
 
 	/**
@@ -168,7 +168,7 @@ public class MainController extends Controller
 	 */
 	@Override
 	public boolean canPrintRemovedReport() {
-		return false;
+		return true;
 	}
 
 	/**
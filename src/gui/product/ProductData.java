@@ -1,16 +1,16 @@
 package gui.product;
 
 import gui.common.Tagable;
+import gui.common.ViewModelCache;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 
 import model.managers.ItemManager;
 import model.managers.ProductManager;
-import model.models.Item;
 import model.models.Product;
 import model.models.barcode.ProductBarcode;
 import model.models.productContainer.ProductContainer;
@@ -253,7 +253,13 @@ public class ProductData extends Tagable {
 			ProductContainer productContainer) {
 		// ProductContainerData productContainerData) {
 		assert product != null : "product is null in convertToItemData in ItemData.java";
-		ProductData ret = new ProductData();
+		ProductData ret = ViewModelCache
+				.getInstance().getProductData(
+						product, productContainer);
+		if (ret != null) {
+			return ret;
+		}
+		ret = new ProductData();
 		ret._description = product
 				.getDescription();
 		ret._size = product.getSize()
@@ -264,14 +270,10 @@ public class ProductData extends Tagable {
 		// Set<Item> itemByProduct =
 		// ItemManager.getInstance().getItemsByProduct(product);
 
-		Set<Item> items = ItemManager
-				.getInstance()
-				.getItemsByContainerAndProduct(
+		ret._count = Integer.toString(ItemManager
+				.getInstance().getItemCount(
 						productContainer,
-						product.getBarcode());
-
-		ret._count = Integer.toString(items
-				.size());
+						product.getBarcode()));
 		ret._shelfLife = Integer.toString(product
 				.getShelfLife());
 		ret._supply = Integer.toString(product
@@ -279,6 +281,9 @@ public class ProductData extends Tagable {
 		ret._barcode = product.getBarcode()
 				.toString();
 		ret.setTag(product);
+		ViewModelCache.getInstance()
+				.putProductData(product,
+						productContainer, ret);
 		return ret;
 	}
 
@@ -296,7 +301,13 @@ public class ProductData extends Tagable {
 			Product product, int count) {
 		// ProductContainerData productContainerData) {
 		assert product != null : "product is null in convertToItemData in ItemData.java";
-		ProductData ret = new ProductData();
+		ProductData ret = ViewModelCache
+				.getInstance().getProductData(
+						product, count);
+		if (ret != null) {
+			return ret;
+		}
+		ret = new ProductData();
 		ret._description = product
 				.getDescription();
 		ret._size = product.getSize()
@@ -310,6 +321,9 @@ public class ProductData extends Tagable {
 		ret._barcode = product.getBarcode()
 				.toString();
 		ret.setTag(product);
+		ViewModelCache.getInstance()
+				.putProductData(product, count,
+						ret);
 		return ret;
 	}
 
@@ -354,19 +368,22 @@ public class ProductData extends Tagable {
 
 		// ProductData[] ret = new ProductData[products.size()];
 		ArrayList<ProductData> ret = new ArrayList<ProductData>();
+		HashSet<ProductBarcode> added = new HashSet<ProductBarcode>();
 		Iterator<Product> iter = products
 				.iterator();
 		Product curProduct = null;
 		while (iter.hasNext()) {
 			curProduct = iter.next();
-			if (!ret.contains(curProduct)
-					&& (countMap != null)
+			if ((countMap != null)
 					&& (countMap.get(curProduct
 							.getBarcode()) != null)) {
-				ret.add(convertToProductData(
-						curProduct,
-						countMap.get(curProduct
-								.getBarcode())));
+				if (added.add(curProduct
+						.getBarcode())) {
+					ret.add(convertToProductData(
+							curProduct,
+							countMap.get(curProduct
+									.getBarcode())));
+				}
 			}
 			// ret[c++] = convertToProductData(curProduct,
 			// countMap.get(curProduct.getBarcode()));
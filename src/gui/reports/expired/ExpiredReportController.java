@@ -1,10 +1,16 @@
 package gui.reports.expired;
 
 import gui.common.Controller;
+import gui.common.FileFormat;
 import gui.common.IView;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.Observable;
 
+import model.reports.ExpiredReport;
+import common.report.ReportBuilder;
+
 /**
  * Controller class for the expired items report view.
  */
@@ -53,6 +59,8 @@ public class ExpiredReportController extends
 	 */
 	@Override
 	protected void enableComponents() {
+		getView().enableFormat(true);
+		getView().enableOK(true);
 	}
 
 	/**
@@ -64,6 +72,7 @@ public class ExpiredReportController extends
 	 */
 	@Override
 	protected void loadValues() {
+		getView().setFormat(FileFormat.PDF);
 	}
 
 	//
@@ -84,6 +93,17 @@ public class ExpiredReportController extends
 	 */
 	@Override
 	public void display() {
+		try {
+			ReportBuilder builder = ReportBuilder
+					.create(getView().getFormat(),
+							"ExpiredReport");
+			new ExpiredReport(new Date())
+					.write(builder);
+			builder.close();
+			builder.display();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	/**
@@ -100,8 +120,7 @@ public class ExpiredReportController extends
 	@Override
 	public void update(Observable observable,
 			Object obj) {
-		// TODO Auto-generated method stub
-
+		// the report is worked out when it is displayed
 	}
 
 }
@@ -1,10 +1,17 @@
 package gui.reports.removed;
 
 import gui.common.Controller;
+import gui.common.FileFormat;
 import gui.common.IView;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.Observable;
 
+import model.reports.RemovedReport;
+import common.report.ReportBuilder;
+import common.util.DateUtils;
+
 /**
  * Controller class for the removed items report view.
  */
@@ -53,6 +60,14 @@ public class RemovedReportController extends
 	 */
 	@Override
 	protected void enableComponents() {
+		boolean hasLastRun = RemovedReport
+				.getLastRun() != null;
+		getView().enableFormat(true);
+		getView().enableSinceLast(hasLastRun);
+		getView().enableSinceDate(true);
+		getView().enableSinceDateValue(
+				getView().getSinceDate());
+		getView().enableOK(getSince() != null);
 	}
 
 	/**
@@ -64,10 +79,17 @@ public class RemovedReportController extends
 	 */
 	@Override
 	protected void loadValues() {
+		Date lastRun = RemovedReport.getLastRun();
+		getView().setFormat(FileFormat.PDF);
+		getView().setSinceLastValue(lastRun);
+		getView().setSinceLast(lastRun != null);
+		getView().setSinceDate(lastRun == null);
+		getView().setSinceDateValue(
+				DateUtils.currentDate());
 	}
 
 	//
-	// IExpiredReportController overrides
+	// IRemovedReportController overrides
 	//
 
 	/**
@@ -76,6 +98,7 @@ public class RemovedReportController extends
 	 */
 	@Override
 	public void valuesChanged() {
+		enableComponents();
 	}
 
 	/**
@@ -84,6 +107,23 @@ public class RemovedReportController extends
 	 */
 	@Override
 	public void display() {
+		Date since = getSince();
+		if (since == null) {
+			return;
+		}
+		RemovedReport report = new RemovedReport(
+				since);
+		try {
+			ReportBuilder builder = ReportBuilder
+					.create(getView().getFormat(),
+							"RemovedReport");
+			report.write(builder);
+			builder.close();
+			report.recordRun();
+			builder.display();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	/**
@@ -100,8 +140,20 @@ public class RemovedReportController extends
 	@Override
 	public void update(Observable observable,
 			Object obj) {
-		// TODO Auto-generated method stub
+		// the report is worked out when it is displayed
+	}
 
+	/**
+	 * @return the start of the report's range, or null if none is chosen
+	 */
+	private Date getSince() {
+		if (getView().getSinceLast()) {
+			return RemovedReport.getLastRun();
+		}
+		if (getView().getSinceDate()) {
+			return getView().getSinceDateValue();
+		}
+		return null;
 	}
 
 }
@@ -1,22 +1,30 @@
 package gui.reports.supply;
 
 import gui.common.Controller;
+import gui.common.FileFormat;
 import gui.common.IView;
 
+import java.io.IOException;
 import java.util.Observable;
 
+import model.reports.SupplyReport;
+import common.report.ReportBuilder;
+
 /**
  * Controller class for the N-month supply report view.
  */
 public class SupplyReportController extends
 		Controller implements
 		ISupplyReportController {
-	/*---	STUDENT-INCLUDE-BEGIN
 
-	 /**
+	// the longest supply the report can be asked for
+	private static final int MAX_MONTHS = 100;
+
+	/**
 	 * Constructor.
 	 * 
-	 * @param view Reference to the N-month supply report view
+	 * @param view
+	 *            Reference to the N-month supply report view
 	 */
 	public SupplyReportController(IView view) {
 		super(view);
@@ -53,6 +61,9 @@ public class SupplyReportController extends
 	 */
 	@Override
 	protected void enableComponents() {
+		getView().enableFormat(true);
+		getView().enableMonths(true);
+		getView().enableOK(getMonths() > 0);
 	}
 
 	/**
@@ -64,10 +75,12 @@ public class SupplyReportController extends
 	 */
 	@Override
 	protected void loadValues() {
+		getView().setFormat(FileFormat.PDF);
+		getView().setMonths("3");
 	}
 
 	//
-	// IExpiredReportController overrides
+	// ISupplyReportController overrides
 	//
 
 	/**
@@ -76,6 +89,7 @@ public class SupplyReportController extends
 	 */
 	@Override
 	public void valuesChanged() {
+		enableComponents();
 	}
 
 	/**
@@ -84,6 +98,20 @@ public class SupplyReportController extends
 	 */
 	@Override
 	public void display() {
+		int months = getMonths();
+		if (months <= 0) {
+			return;
+		}
+		try {
+			ReportBuilder builder = ReportBuilder
+					.create(getView().getFormat(),
+							"SupplyReport");
+			new SupplyReport(months).write(builder);
+			builder.close();
+			builder.display();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	/**
@@ -100,8 +128,23 @@ public class SupplyReportController extends
 	@Override
 	public void update(Observable observable,
 			Object obj) {
-		// TODO Auto-generated method stub
+		// the report is worked out when it is displayed
+	}
 
+	/**
+	 * @return the number of months entered, or 0 if it isn't a whole number
+	 *         from 1 to MAX_MONTHS
+	 */
+	private int getMonths() {
+		int months;
+		try {
+			months = Integer.parseInt(getView()
+					.getMonths().trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+		return ((months < 1) || (months > MAX_MONTHS)) ? 0
+				: months;
 	}
 
 }
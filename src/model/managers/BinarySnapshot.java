@@ -0,0 +1,703 @@
+package model.managers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+
+import model.models.Item;
+import model.models.Product;
+import model.models.barcode.ItemBarcode;
+import model.models.barcode.ProductBarcode;
+import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
+import model.models.productContainer.StorageUnit;
+import model.models.unit.Unit;
+import model.models.unit.UnitType;
+
+/**
+ * BinarySnapshot reads and writes the whole inventory as one versioned binary
+ * file. Every container, product and item is written once and refers to the
+ * others by its position in the file; the manager indexes are rebuilt on load.
+ *
+ * Layout (version 2), all numbers big-endian:
+ *
+ * <pre>
+ * header     int magic, short version, long historyOffset,
+ *            long nextItemBarcode
+ * containers int count, then per container:
+ *            byte kind (0 storage unit, 1 product group), boolean attached,
+ *            [int parentId], UTF name, [float supplyAmount, byte supplyUnit]
+ * products   int count, then per product:
+ *            boolean attached, UTF barcode, UTF description, float sizeAmount,
+ *            byte sizeUnit, int shelfLife, int threeMonthSupply,
+ *            long creationDate, int containerCount, int containerId...
+ * items      int count, then per item:
+ *            UTF barcode, int productId, int containerId, long entryDate
+ * history    (at historyOffset) int count, then per consumed item:
+ *            UTF barcode, int productId, int priorContainerId,
+ *            long entryDate, long exitTime
+ * </pre>
+ *
+ * Version 1 files have no nextItemBarcode; they are still read, and the
+ * barcode counter is then worked out from the items as they are loaded.
+ *
+ * Containers and products that are only reachable through consumed items
+ * (they were deleted later) are written as not attached, so the history can
+ * still point at them without putting them back in the managers. Every
+ * container is a single object, even when read from the older per-manager
+ * files, so containers are numbered by identity; products are numbered with
+ * their own equals(), as ProductManager keys them.
+ *
+ * While the history of a lazily read snapshot hasn't been loaded, saving
+ * copies its records into the new file as they are, only renumbering the
+ * container and product ids, and keeps that copy so the history can still be
+ * loaded after the file has been replaced.
+ *
+ * @author Group1
+ */
+public class BinarySnapshot {
+
+	public static final int MAGIC = 0x48495453; // "HITS"
+
+	public static final short VERSION = 2;
+
+	private static final int HISTORY_OFFSET_POSITION = 6;
+
+	private static final int V1_HEADER_SIZE = 14;
+
+	private static final int HEADER_SIZE = 22;
+
+	private static final byte STORAGE_UNIT = 0;
+
+	private static final byte PRODUCT_GROUP = 1;
+
+	private File file;
+
+	private long historyOffset;
+
+	// -1 if the file predates the saved barcode counter
+	private long nextItemBarcode;
+
+	// kept after reading the live state so the history can be read later
+	private ProductContainer[] containers;
+
+	private Product[] products;
+
+	// the history section carried into the last file written, or null if the
+	// history is still in the file that was read
+	private byte[] history;
+
+	/**
+	 * @pre file is not null
+	 * @post true
+	 * @param file
+	 *            the snapshot file to read
+	 */
+	public BinarySnapshot(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Encodes the current state of every manager. The result no longer depends
+	 * on the managers, so it can be written out on another thread.
+	 *
+	 * @pre the consumed item history is loaded
+	 * @post true
+	 * @return the complete snapshot file contents
+	 * @throws IOException
+	 */
+	public static byte[] encode() throws IOException {
+		return encode(null);
+	}
+
+	/**
+	 * Encodes the current state of every manager, like encode(). If unread is
+	 * not null, the consumed items it hasn't loaded yet are carried over
+	 * without loading them, and unread then reads them from the new copy.
+	 *
+	 * @pre unread is the snapshot the history is still to be read from, or
+	 *      null if the history is loaded
+	 * @post true
+	 * @param unread
+	 * @return the complete snapshot file contents
+	 * @throws IOException
+	 */
+	public static byte[] encode(BinarySnapshot unread)
+			throws IOException {
+		ItemManager itemManager = ItemManager
+				.getInstance();
+		assert (unread != null)
+				|| itemManager.isHistoryLoaded();
+
+		HashMap<ProductContainer, Integer> containerIds = new HashMap<ProductContainer, Integer>();
+		List<ProductContainer> containerList = new ArrayList<ProductContainer>();
+		for (StorageUnit su : StorageUnitManager
+				.getInstance().getStorageUnits()
+				.values()) {
+			addContainerTree(su, containerIds,
+					containerList);
+		}
+		int attachedContainers = containerList
+				.size();
+
+		HashMap<Product, Integer> productIds = new HashMap<Product, Integer>();
+		List<Product> productList = new ArrayList<Product>();
+		for (Product product : ProductManager
+				.getInstance().getProducts()
+				.values()) {
+			productIds.put(product,
+					productList.size());
+			productList.add(product);
+		}
+		int attachedProducts = productList.size();
+
+		List<Item> liveItems = new ArrayList<Item>();
+		for (ProductContainer pc : containerList) {
+			SortedSet<Item> items = itemManager
+					.getItemByContainer(pc);
+			if (items != null) {
+				liveItems.addAll(items);
+			}
+		}
+		List<Item> consumedItems = itemManager
+				.getConsumedItemList();
+
+		// anything deleted since still has to be written for the history
+		for (int c = 0; c < productList.size(); c++) {
+			Iterator<ProductContainer> iter = productList
+					.get(c).getContainers();
+			while (iter.hasNext()) {
+				addDetachedContainer(iter.next(),
+						containerIds, containerList);
+			}
+		}
+		for (Item item : consumedItems) {
+			addDetachedContainer(
+					item.getContainerPriorToConsume(),
+					containerIds, containerList);
+			addDetachedProduct(item.getProduct(),
+					productIds, productList,
+					containerIds, containerList);
+		}
+		ByteBuffer carried = null;
+		int carriedCount = 0;
+		if (unread != null) {
+			carried = unread.historySection();
+			int start = carried.position();
+			carriedCount = carried.getInt();
+			for (int c = 0; c < carriedCount; c++) {
+				skipUTF(carried);
+				addDetachedProduct(
+						unread.products[carried
+								.getInt()],
+						productIds, productList,
+						containerIds, containerList);
+				addDetachedContainer(
+						unread.containers[carried
+								.getInt()],
+						containerIds, containerList);
+				carried.position(carried.position() + 16);
+			}
+			carried.position(start + 4);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+				1 << 16);
+		DataOutputStream out = new DataOutputStream(
+				bytes);
+		int historyOffset;
+		int carriedStart;
+		int carriedEnd;
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeLong(0);
+			out.writeLong(itemManager
+					.getBarcodeAllocator().getNext());
+
+			out.writeInt(containerList.size());
+			for (int c = 0; c < containerList.size(); c++) {
+				writeContainer(out,
+						containerList.get(c),
+						c < attachedContainers,
+						containerIds);
+			}
+
+			out.writeInt(productList.size());
+			for (int c = 0; c < productList.size(); c++) {
+				writeProduct(out,
+						productList.get(c),
+						c < attachedProducts,
+						containerIds);
+			}
+
+			out.writeInt(liveItems.size());
+			for (Item item : liveItems) {
+				out.writeUTF(item.getItemBarcode()
+						.toString());
+				out.writeInt(productIds.get(item
+						.getProduct()));
+				out.writeInt(containerIds.get(item
+						.getContainer()));
+				out.writeLong(item.getEntryDate()
+						.getTime());
+			}
+
+			historyOffset = out.size();
+			out.writeInt(carriedCount
+					+ consumedItems.size());
+			carriedStart = out.size();
+			for (int c = 0; c < carriedCount; c++) {
+				copyUTF(carried, out);
+				out.writeInt(productIds
+						.get(unread.products[carried
+								.getInt()]));
+				out.writeInt(containerIds
+						.get(unread.containers[carried
+								.getInt()]));
+				out.writeLong(carried.getLong());
+				out.writeLong(carried.getLong());
+			}
+			carriedEnd = out.size();
+			for (Item item : consumedItems) {
+				out.writeUTF(item.getItemBarcode()
+						.toString());
+				out.writeInt(productIds.get(item
+						.getProduct()));
+				out.writeInt(containerIds.get(item
+						.getContainerPriorToConsume()));
+				out.writeLong(item.getEntryDate()
+						.getTime());
+				out.writeLong(item.getExitMillis());
+			}
+		} finally {
+			out.close();
+		}
+
+		byte[] snapshot = bytes.toByteArray();
+		ByteBuffer.wrap(snapshot).putLong(
+				HISTORY_OFFSET_POSITION,
+				historyOffset);
+
+		if (unread != null) {
+			// the items consumed since loading stay in the ItemManager
+			byte[] history = new byte[4 + carriedEnd
+					- carriedStart];
+			ByteBuffer.wrap(history).putInt(
+					carriedCount);
+			System.arraycopy(snapshot, carriedStart,
+					history, 4, carriedEnd
+							- carriedStart);
+			unread.history = history;
+			unread.containers = containerList
+					.toArray(new ProductContainer[containerList
+							.size()]);
+			unread.products = productList
+					.toArray(new Product[productList
+							.size()]);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Clears the managers and fills them with the containers, products and
+	 * live items in the snapshot. The consumed items are only read if
+	 * withHistory is true; otherwise readHistory() can read them later.
+	 *
+	 * @pre the file exists
+	 * @post the managers hold the snapshot's live state
+	 * @param withHistory
+	 * @throws IOException
+	 *             if the file is unreadable or not a version this reader knows
+	 */
+	public void readLive(boolean withHistory)
+			throws IOException {
+		ByteBuffer in = read();
+		try {
+			ItemManager itemManager = ItemManager
+					.getInstance();
+			itemManager.clear();
+			ProductManager.getInstance().clear();
+			ProductGroupManager.getInstance()
+					.clear();
+			StorageUnitManager.getInstance()
+					.clear();
+
+			this.containers = new ProductContainer[in
+					.getInt()];
+			for (int c = 0; c < this.containers.length; c++) {
+				this.containers[c] = readContainer(in);
+			}
+
+			this.products = new Product[in
+					.getInt()];
+			for (int c = 0; c < this.products.length; c++) {
+				this.products[c] = readProduct(in);
+			}
+
+			int itemCount = in.getInt();
+			for (int c = 0; c < itemCount; c++) {
+				ItemBarcode barcode = new ItemBarcode(
+						readUTF(in));
+				Product product = this.products[in
+						.getInt()];
+				ProductContainer container = this.containers[in
+						.getInt()];
+				Item item = new Item(barcode,
+						product, new Date(
+								in.getLong()),
+						container);
+				itemManager.indexItem(item);
+				container.addItem(item);
+			}
+
+			if (this.nextItemBarcode >= 0) {
+				itemManager
+						.reserveItemBarcodes(this.nextItemBarcode);
+			}
+			if (withHistory) {
+				readHistory(in);
+			} else {
+				itemManager.setHistoryLoaded(false);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException(this.file
+					+ " is truncated");
+		}
+	}
+
+	/**
+	 * Reads the consumed items skipped by readLive(false) into the
+	 * ItemManager.
+	 *
+	 * @pre readLive has been called on this snapshot
+	 * @post the consumed items are known to the ItemManager
+	 * @throws IOException
+	 */
+	public void readHistory() throws IOException {
+		assert this.containers != null;
+		ByteBuffer in = historySection();
+		try {
+			readHistory(in);
+		} catch (BufferUnderflowException e) {
+			throw new IOException(this.file
+					+ " is truncated");
+		}
+	}
+
+	private void readHistory(ByteBuffer in)
+			throws IOException {
+		List<Item> consumed = new ArrayList<Item>();
+		int count = in.getInt();
+		for (int c = 0; c < count; c++) {
+			ItemBarcode barcode = new ItemBarcode(
+					readUTF(in));
+			Product product = this.products[in
+					.getInt()];
+			ProductContainer priorContainer = this.containers[in
+					.getInt()];
+			Item item = new Item(barcode, product,
+					new Date(in.getLong()),
+					priorContainer);
+			item.consume(new Date(in.getLong()));
+			consumed.add(item);
+		}
+		ItemManager.getInstance().mergeHistory(
+				consumed);
+	}
+
+	/**
+	 * @return a buffer positioned at the count of the consumed items not yet
+	 *         loaded
+	 */
+	private ByteBuffer historySection() throws IOException {
+		if (this.history != null) {
+			return ByteBuffer.wrap(this.history);
+		}
+		ByteBuffer in = read();
+		in.position((int) this.historyOffset);
+		return in;
+	}
+
+	/**
+	 * Reads the whole file into a buffer and checks its header. The buffer is
+	 * left positioned at the first section. The file is closed before this
+	 * returns; a mapping of it would stay alive until garbage collected, and
+	 * on Windows the snapshot writer can't replace a file that is mapped.
+	 */
+	private ByteBuffer read() throws IOException {
+		FileInputStream fileIn = new FileInputStream(
+				this.file);
+		ByteBuffer buffer;
+		try {
+			FileChannel channel = fileIn
+					.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(this.file
+						+ " is too large");
+			}
+			buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()
+					&& (channel.read(buffer) >= 0)) {
+				// keep reading until the buffer is full or the file ends
+			}
+			buffer.flip();
+		} finally {
+			fileIn.close();
+		}
+		if ((buffer.remaining() < V1_HEADER_SIZE)
+				|| (buffer.getInt() != MAGIC)) {
+			throw new IOException(this.file
+					+ " is not a snapshot file");
+		}
+		short version = buffer.getShort();
+		if ((version < 1) || (version > VERSION)) {
+			throw new IOException(
+					"Unsupported snapshot version "
+							+ version);
+		}
+		this.historyOffset = buffer.getLong();
+		this.nextItemBarcode = -1;
+		if (version >= 2) {
+			if (buffer.limit() < HEADER_SIZE) {
+				throw new IOException(this.file
+						+ " is truncated");
+			}
+			this.nextItemBarcode = buffer.getLong();
+		}
+		return buffer;
+	}
+
+	/**
+	 * Reads a string written by DataOutputStream.writeUTF. Barcodes and most
+	 * names are plain ASCII and are copied straight out of the buffer.
+	 */
+	private static String readUTF(ByteBuffer in)
+			throws IOException {
+		int length = in.getShort() & 0xffff;
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		for (int c = 0; c < length; c++) {
+			if (bytes[c] < 0) {
+				byte[] encoded = new byte[length + 2];
+				encoded[0] = (byte) (length >>> 8);
+				encoded[1] = (byte) length;
+				System.arraycopy(bytes, 0, encoded,
+						2, length);
+				return new DataInputStream(
+						new ByteArrayInputStream(
+								encoded)).readUTF();
+			}
+		}
+		return new String(bytes, "ISO-8859-1");
+	}
+
+	private static void skipUTF(ByteBuffer in) {
+		int length = in.getShort() & 0xffff;
+		in.position(in.position() + length);
+	}
+
+	private static void copyUTF(ByteBuffer in,
+			DataOutputStream out)
+			throws IOException {
+		int length = in.getShort() & 0xffff;
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		out.writeShort(length);
+		out.write(bytes);
+	}
+
+	private ProductContainer readContainer(
+			ByteBuffer in) throws IOException {
+		byte kind = in.get();
+		boolean attached = (in.get() != 0);
+		if (kind == STORAGE_UNIT) {
+			StorageUnit su = new StorageUnit(
+					readUTF(in));
+			if (attached) {
+				StorageUnitManager.getInstance()
+						.getStorageUnits()
+						.put(su.getName(), su);
+			}
+			return su;
+		}
+		ProductContainer parent = this.containers[in
+				.getInt()];
+		String name = readUTF(in);
+		Unit supply = new Unit(in.getFloat(),
+				UnitType.values()[in.get()]);
+		ProductGroup pg = new ProductGroup(name,
+				parent, supply);
+		if (attached) {
+			ProductGroupManager.getInstance()
+					.getProductGroups().add(pg);
+			parent.addProductGroup(pg);
+		}
+		return pg;
+	}
+
+	private Product readProduct(ByteBuffer in)
+			throws IOException {
+		boolean attached = (in.get() != 0);
+		ProductBarcode barcode = new ProductBarcode(
+				readUTF(in));
+		String description = readUTF(in);
+		Unit size = new Unit(in.getFloat(),
+				UnitType.values()[in.get()]);
+		int shelfLife = in.getInt();
+		int threeMonthSupply = in.getInt();
+		Date creationDate = new Date(
+				in.getLong());
+		int containerCount = in.getInt();
+		ProductContainer[] productContainers = new ProductContainer[containerCount];
+		for (int c = 0; c < containerCount; c++) {
+			productContainers[c] = this.containers[in
+					.getInt()];
+		}
+		// a detached product may have no containers left
+		Product product = new Product(barcode,
+				description, size, shelfLife,
+				threeMonthSupply, null);
+		product.setCreationDate(creationDate);
+		for (ProductContainer pc : productContainers) {
+			product.addToContainer(pc);
+		}
+		if (attached) {
+			for (ProductContainer pc : productContainers) {
+				pc.addProduct(product);
+			}
+			ProductManager.getInstance()
+					.indexProduct(product);
+		}
+		return product;
+	}
+
+	private static void addContainerTree(
+			ProductContainer container,
+			HashMap<ProductContainer, Integer> containerIds,
+			List<ProductContainer> containerList) {
+		containerIds.put(container,
+				containerList.size());
+		containerList.add(container);
+		for (ProductGroup pg : container
+				.getProductGroups()) {
+			addContainerTree(pg, containerIds,
+					containerList);
+		}
+	}
+
+	private static void addDetachedContainer(
+			ProductContainer container,
+			HashMap<ProductContainer, Integer> containerIds,
+			List<ProductContainer> containerList) {
+		if ((container == null)
+				|| containerIds
+						.containsKey(container)) {
+			return;
+		}
+		// parents first so the reader can resolve them
+		if (container instanceof ProductGroup) {
+			addDetachedContainer(
+					((ProductGroup) container)
+							.getParent(),
+					containerIds, containerList);
+		}
+		containerIds.put(container,
+				containerList.size());
+		containerList.add(container);
+	}
+
+	private static void addDetachedProduct(
+			Product product,
+			HashMap<Product, Integer> productIds,
+			List<Product> productList,
+			HashMap<ProductContainer, Integer> containerIds,
+			List<ProductContainer> containerList) {
+		if (productIds.containsKey(product)) {
+			return;
+		}
+		productIds.put(product, productList.size());
+		productList.add(product);
+		Iterator<ProductContainer> iter = product
+				.getContainers();
+		while (iter.hasNext()) {
+			addDetachedContainer(iter.next(),
+					containerIds, containerList);
+		}
+	}
+
+	private static void writeContainer(
+			DataOutputStream out,
+			ProductContainer container,
+			boolean attached,
+			HashMap<ProductContainer, Integer> containerIds)
+			throws IOException {
+		if (container instanceof ProductGroup) {
+			ProductGroup pg = (ProductGroup) container;
+			out.writeByte(PRODUCT_GROUP);
+			out.writeBoolean(attached);
+			out.writeInt(containerIds.get(pg
+					.getParent()));
+			out.writeUTF(pg.getName());
+			out.writeFloat(pg
+					.GetThreeMonthSupply()
+					.getAmount());
+			out.writeByte(pg
+					.GetThreeMonthSupply()
+					.getUnit().ordinal());
+		} else {
+			out.writeByte(STORAGE_UNIT);
+			out.writeBoolean(attached);
+			out.writeUTF(container.getName());
+		}
+	}
+
+	private static void writeProduct(
+			DataOutputStream out,
+			Product product,
+			boolean attached,
+			HashMap<ProductContainer, Integer> containerIds)
+			throws IOException {
+		out.writeBoolean(attached);
+		out.writeUTF(product.getBarcode()
+				.toString());
+		out.writeUTF(product.getDescription());
+		out.writeFloat(product.getSize()
+				.getAmount());
+		out.writeByte(product.getSize()
+				.getUnit().ordinal());
+		out.writeInt(product.getShelfLife());
+		out.writeInt(product
+				.getThreeMonthSupply());
+		out.writeLong(product.getCreationDate()
+				.getTime());
+		List<Integer> ids = new ArrayList<Integer>();
+		Iterator<ProductContainer> iter = product
+				.getContainers();
+		while (iter.hasNext()) {
+			Integer id = containerIds.get(iter
+					.next());
+			if (id != null) {
+				ids.add(id);
+			}
+		}
+		out.writeInt(ids.size());
+		for (Integer id : ids) {
+			out.writeInt(id);
+		}
+	}
+}
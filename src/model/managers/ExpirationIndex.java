@@ -0,0 +1,175 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import common.util.DateUtils;
+import model.models.Item;
+
+/**
+ * ExpirationIndex files the live items that can expire under the calendar
+ * day they expire on. A query walks only the days in its range, so asking
+ * what has expired, or what will expire soon, costs the matching items plus
+ * one lookup, whatever the size of the inventory. The ItemManager keeps it up
+ * to date as items are added, consumed and edited.
+ * 
+ * @author Group1
+ */
+public class ExpirationIndex {
+
+	private static final Comparator<Item> BY_EXPIRATION = new Comparator<Item>() {
+		@Override
+		public int compare(Item a, Item b) {
+			if (a.getExpirationDay() != b
+					.getExpirationDay()) {
+				return (a.getExpirationDay() < b
+						.getExpirationDay()) ? -1 : 1;
+			}
+			return a
+					.getItemBarcode().compareTo(
+							b.getItemBarcode());
+		}
+	};
+
+	// day number in the local time zone -> items expiring that day
+	private TreeMap<Integer, ArrayList<Item>> days;
+
+	private int size;
+
+	/**
+	 * @pre true
+	 * @post size() == 0
+	 */
+	ExpirationIndex() {
+		this.days = new TreeMap<Integer, ArrayList<Item>>();
+		this.size = 0;
+	}
+
+	/**
+	 * @pre item is not in the index
+	 * @post item is in the index if it has an expiration date
+	 * @param item
+	 */
+	void add(Item item) {
+		int day = item.getExpirationDay();
+		if (day == Item.NO_EXPIRATION) {
+			return;
+		}
+		ArrayList<Item> items = this.days.get(day);
+		if (items == null) {
+			items = new ArrayList<Item>(2);
+			this.days.put(day, items);
+		}
+		items.add(item);
+		this.size++;
+	}
+
+	/**
+	 * Takes item out of the index. Must be called before the item's
+	 * expiration date changes.
+	 * 
+	 * @pre true
+	 * @post item is not in the index
+	 * @param item
+	 */
+	void remove(Item item) {
+		int day = item.getExpirationDay();
+		if (day == Item.NO_EXPIRATION) {
+			return;
+		}
+		ArrayList<Item> items = this.days.get(day);
+		if (items == null) {
+			return;
+		}
+		for (int i = 0; i < items.size(); i++) {
+			if (items.get(i) == item) {
+				items.remove(i);
+				this.size--;
+				break;
+			}
+		}
+		if (items.isEmpty()) {
+			this.days.remove(day);
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post size() == 0
+	 */
+	void clear() {
+		this.days.clear();
+		this.size = 0;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of items in the index
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Finds the items that expire in [from, to).
+	 * 
+	 * @pre from and to are not null
+	 * @post true
+	 * @param from
+	 *            earliest expiration date included
+	 * @param to
+	 *            expiration dates before this are included
+	 * @return the items, ordered by expiration date
+	 */
+	public List<Item> getExpiringBetween(Date from,
+			Date to) {
+		int first = firstDayFrom(from.getTime());
+		int end = firstDayFrom(to.getTime());
+		if (first >= end) {
+			return new ArrayList<Item>();
+		}
+		return collect(this.days.subMap(first, true,
+				end, false));
+	}
+
+	/**
+	 * Finds the items whose expiration date is before date.
+	 * 
+	 * @pre date is not null
+	 * @post true
+	 * @param date
+	 * @return the items expired as of date, ordered by expiration date
+	 */
+	public List<Item> getExpiredBy(Date date) {
+		return collect(this.days.headMap(
+				firstDayFrom(date.getTime()), false));
+	}
+
+	private static List<Item> collect(
+			NavigableMap<Integer, ArrayList<Item>> range) {
+		List<Item> found = new ArrayList<Item>();
+		for (Map.Entry<Integer, ArrayList<Item>> entry : range
+				.entrySet()) {
+			found.addAll(entry.getValue());
+		}
+		Collections.sort(found, BY_EXPIRATION);
+		return found;
+	}
+
+	/**
+	 * Items expire at the start of their day, so the first day whose items
+	 * expire at or after time.
+	 */
+	private static int firstDayFrom(long time) {
+		int day = DateUtils.toEpochDay(time);
+		return (DateUtils.startOfDay(day) < time) ? day + 1
+				: day;
+	}
+}
@@ -0,0 +1,114 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.models.barcode.ItemBarcode;
+
+/**
+ * ItemBarcodeAllocator hands out item barcodes from a counter that only moves
+ * forward. Generated barcodes are UPC-A codes of the form 4 + ten digit
+ * counter value + check digit. Every item barcode in that form that the
+ * ItemManager learns about moves the counter past it, so a new barcode can
+ * never match one already in use and nothing has to be checked or retried.
+ *
+ * @author Group1
+ */
+public class ItemBarcodeAllocator {
+
+	/** number of counter values that fit between the prefix and check digit */
+	public static final long CAPACITY = 10000000000L;
+
+	// the prefix digit followed by ten zeros
+	private static final long PREFIX = 4 * CAPACITY;
+
+	private long next;
+
+	/**
+	 * @pre true
+	 * @post getNext() == 0
+	 */
+	public ItemBarcodeAllocator() {
+		this.next = 0;
+	}
+
+	/**
+	 * Reserves count consecutive barcodes.
+	 *
+	 * @pre count >= 0
+	 * @post getNext() has moved forward by count
+	 * @param count
+	 *            how many barcodes to hand out
+	 * @return the barcodes, in counter order
+	 * @throws IllegalStateException
+	 *             if the counter would run past CAPACITY
+	 */
+	public List<ItemBarcode> allocate(int count) {
+		assert count >= 0;
+		if ((this.next + count) > CAPACITY) {
+			throw new IllegalStateException(
+					"Item barcodes exhausted");
+		}
+		long first = this.next;
+		this.next += count;
+
+		List<ItemBarcode> barcodes = new ArrayList<ItemBarcode>(
+				count);
+		for (long value = first; value < this.next; value++) {
+			long body = PREFIX + value;
+			barcodes.add(new ItemBarcode((body * 10)
+					+ ItemBarcode.checkDigit(body)));
+		}
+		return barcodes;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the counter value the next allocated barcode will get
+	 */
+	public long getNext() {
+		return this.next;
+	}
+
+	/**
+	 * Moves the counter past barcode if barcode is one this allocator could
+	 * have generated. Anything else can never collide and is ignored.
+	 *
+	 * @pre true
+	 * @post barcode will not be allocated
+	 * @param barcode
+	 */
+	void reserve(ItemBarcode barcode) {
+		if ((barcode == null)
+				|| !barcode.isPacked()
+				|| (barcode.length() != ItemBarcode.UPC_LENGTH)) {
+			return;
+		}
+		long body = barcode.getDigits() / 10;
+		if ((body - (body % CAPACITY)) != PREFIX) {
+			return;
+		}
+		advanceTo((body % CAPACITY) + 1);
+	}
+
+	/**
+	 * @pre next >= 0
+	 * @post getNext() >= next
+	 * @param next
+	 *            the lowest counter value still free
+	 */
+	void advanceTo(long next) {
+		if (next > this.next) {
+			this.next = next;
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post getNext() == 0
+	 */
+	void reset() {
+		this.next = 0;
+	}
+}
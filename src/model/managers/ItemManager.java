@@ -3,18 +3,20 @@ package model.managers;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Observable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
 
 import model.models.Item;
 import model.models.Product;
@@ -22,6 +24,7 @@ import model.models.barcode.ItemBarcode;
 import model.models.barcode.ProductBarcode;
 import model.models.productContainer.ProductContainer;
 import model.models.productContainer.StorageUnit;
+import controller.notify.ChangeSet;
 import controller.notify.ItemNotifier;
 import controller.notify.ProductNotifier;
 
@@ -37,26 +40,45 @@ import controller.notify.ProductNotifier;
  * @author Joel Denning
  * @author Group1
  */
-public class ItemManager extends Observable
+public class ItemManager extends ObservableManager
 		implements Saveable {
 
-	private static ItemManager manager = null;
+	private static volatile ItemManager manager = null;
 
-	// private //package protected for testing
-	private HashMap<ItemBarcode, Item> itemBarcodeMap;
-	// private //package protected for testing
-	private HashMap<ProductBarcode, SortedSet<Item>> productBarcodeMap;
-	// private //package protected for testing
-	private HashMap<ProductContainer, SortedSet<Item>> productContainerMap;
+	// every item by id and barcode, and the live items by product and
+	// container
+	private ItemStore store;
 
-	private HashMap<ProductContainer, HashMap<ProductBarcode, SortedSet<Item>>> map;
+	// consumed items are kept out of the maps above. Both archives are in
+	// exit time order and only grow at the end, except when older history is
+	// merged in.
+	private ArrayList<Item> consumedByExitTime;
+	private HashMap<ProductBarcode, ArrayList<Item>> consumedByProduct;
 
-	private ItemManager() {
-		setItemBarcodeMap(new HashMap<ItemBarcode, Item>());
-		setProductBarcodeMap(new HashMap<ProductBarcode, SortedSet<Item>>());
-		setProductContainerMap(new HashMap<ProductContainer, SortedSet<Item>>());
+	// false while the consumed items are still sitting in the history file
+	private boolean historyLoaded;
+
+	// consumed item lists an ItemSnapshot still reads. They are copied
+	// before their next change instead of being changed in place.
+	private Set<Collection<Item>> shared;
+
+	// live items by the day they expire
+	private ExpirationIndex expirations;
 
-		this.map = new HashMap<ProductContainer, HashMap<ProductBarcode, SortedSet<Item>>>();
+	private ItemBarcodeAllocator barcodeAllocator;
+	// true once the allocator is known to be past every consumed barcode too
+	private boolean historyBarcodesReserved;
+
+	private ItemManager() {
+		this.store = new ItemStore();
+		this.consumedByExitTime = new ArrayList<Item>();
+		this.consumedByProduct = new HashMap<ProductBarcode, ArrayList<Item>>();
+		this.historyLoaded = true;
+		this.shared = Collections
+				.newSetFromMap(new IdentityHashMap<Collection<Item>, Boolean>());
+		this.expirations = new ExpirationIndex();
+		this.barcodeAllocator = new ItemBarcodeAllocator();
+		this.historyBarcodesReserved = false;
 	}
 
 	/**
@@ -69,7 +91,11 @@ public class ItemManager extends Observable
 	 */
 	public static ItemManager getInstance() {
 		if (manager == null) {
-			manager = new ItemManager();
+			synchronized (ItemManager.class) {
+				if (manager == null) {
+					manager = new ItemManager();
+				}
+			}
 		}
 		return manager;
 	}
@@ -89,120 +115,133 @@ public class ItemManager extends Observable
 	 * @return
 	 */
 	public void add(Item newItem) {
-		assert Item.isValid(
-				newItem.getItemBarcode(),
-				newItem.getEntryDate()) : "Invalid Item attempted to get added";
-
-		System.out.print("Add Item...");
-
-		// If the StorageUnit contains a product group in the product that's
-		// where the item needs put.
-		ProductContainer destination = newItem
-				.getContainer()
-				.getStorageUnit()
-				.findProductContainer(
-						newItem.getProduct()
-								.getBarcode());
-		if ((destination != null)
-				&& !destination.equals(newItem
-						.getContainer())) {
-			System.out
-					.print("Product found in target storage unit, \n\tsetting destination to "
-							+ destination
-							+ "...\n");
-			newItem.setProductContainer(destination);
-		} else {
-			System.out
-					.print("No product found in "
-							+ newItem
-									.getContainer()
-									.getStorageUnit());
-		}
+		ModelLock.lockWrite();
+		try {
+			assert Item.isValid(
+					newItem.getItemBarcode(),
+					newItem.getEntryDate()) : "Invalid Item attempted to get added";
+
+			System.out.print("Add Item...");
+
+			// If the StorageUnit contains a product group in the product that's
+			// where the item needs put.
+			ProductContainer destination = newItem
+					.getContainer()
+					.getStorageUnit()
+					.findProductContainer(
+							newItem.getProduct()
+									.getBarcode());
+			if ((destination != null)
+					&& !destination.equals(newItem
+							.getContainer())) {
+				System.out
+						.print("Product found in target storage unit, \n\tsetting destination to "
+								+ destination
+								+ "...\n");
+				newItem.setProductContainer(destination);
+			} else {
+				System.out
+						.print("No product found in "
+								+ newItem
+										.getContainer()
+										.getStorageUnit());
+			}
 
-		// BIGMAP
-		HashMap<ProductBarcode, SortedSet<Item>> productMap = this.map
-				.get(newItem.getContainer());
-
-		if (productMap == null) {
-			// System.out.println("New map made!");
-			productMap = new HashMap<ProductBarcode, SortedSet<Item>>();
-			// System.out.println(map.get(newItem.getContainer()) + " vs " +
-			// productMap.toString());
-			this.map.put(newItem.getContainer(),
-					productMap);
-			// System.out.println(map.get(newItem.getContainer()) + " vs " +
-			// productMap.toString());
-		}
-		SortedSet<Item> theItems = productMap
-				.get(newItem.getProduct()
-						.getBarcode());
-		if (theItems == null) {
-			// System.out.println("New treeSet Made!");
-			theItems = new TreeSet<Item>();
-			productMap.put(newItem.getProduct()
-					.getBarcode(), theItems);
+			this.store.register(newItem);
+			this.store.index(newItem);
+			this.expirations.add(newItem);
+			this.barcodeAllocator.reserve(newItem
+					.getItemBarcode());
+
+			// Add item to list in the container and product to it's list
+			if (!newItem.getContainer()
+					.containsProduct(
+							newItem.getProduct()
+									.getBarcode())) {
+				// System.out.println();
+				newItem.getContainer().addProduct(
+						newItem.getProduct());
+			}
+			newItem.getContainer().addItem(newItem);
+			SessionManager.getInstance().addItem(
+					newItem);
+			setChanged();
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		theItems.add(newItem);
-		//
-		// System.out.println("bigmap: " + map.keySet().size());
-		// System.out.println("theItems: " + theItems.size());
-
-		// Add item to item barcode map
-		getItemBarcodeMap()
-				.put(newItem.getItemBarcode(),
-						newItem);
-
-		// Add item to product barcode map
-		if (getProductBarcodeMap()
-				.containsKey(
-						newItem.getProduct()
-								.getBarcode())) {
-			SortedSet<Item> itemList = getProductBarcodeMap()
-					.get(newItem.getProduct()
-							.getBarcode());
+	}
 
-			if (itemList == null) {
-				itemList = new TreeSet<Item>();
+	/**
+	 * Adds count new items of product, all entered on entryDate, in one model
+	 * update. The destination is resolved once the same way add() does it,
+	 * every index is looked up once, and observers are notified once for the
+	 * whole batch.
+	 * 
+	 * @pre product and container are not null and product is known to the
+	 *      ProductManager
+	 * @pre entryDate is a valid item entry date
+	 * @pre count >= 0
+	 * @post count new items of product are in the destination container
+	 * @param product
+	 *            the product of the new items
+	 * @param container
+	 *            the container the items were put in
+	 * @param entryDate
+	 *            the entry date of every new item
+	 * @param count
+	 *            how many items to add
+	 * @return the new items, in barcode order
+	 */
+	public List<Item> addAll(Product product,
+			ProductContainer container,
+			Date entryDate, int count) {
+		ModelLock.lockWrite();
+		try {
+			assert product != null;
+			assert container != null;
+			assert count >= 0;
+
+			ProductBarcode productBarcode = product
+					.getBarcode();
+			ProductContainer destination = container
+					.getStorageUnit()
+					.findProductContainer(productBarcode);
+			if (destination == null) {
+				destination = container;
 			}
-			itemList.add(newItem);
-
-			// productBarcodeMap.put(newItem.getProduct().getBarcode(),
-			// itemList); //not necessary?
 
-		} else {
-			SortedSet<Item> itemList = new TreeSet<Item>();
-			itemList.add(newItem);
-			getProductBarcodeMap().put(
-					newItem.getProduct()
-							.getBarcode(),
-					itemList);
-		}
+			List<ItemBarcode> barcodes = generateItemBarcodes(count);
+			List<Item> added = new ArrayList<Item>(
+					count);
+			for (ItemBarcode barcode : barcodes) {
+				assert Item.isValid(barcode, entryDate) : "Invalid Item attempted to get added";
+				added.add(new Item(barcode, product,
+						entryDate, destination));
+			}
+			if (added.isEmpty()) {
+				return added;
+			}
 
-		// Add item to product container map
-		if (getProductContainerMap().containsKey(
-				newItem.getContainer())) {
-			SortedSet<Item> itemList = getProductContainerMap()
-					.get(newItem.getContainer());
-			itemList.add(newItem);
-		} else {
-			SortedSet<Item> itemList = new TreeSet<Item>();
-			itemList.add(newItem);
-			getProductContainerMap().put(
-					newItem.getContainer(),
-					itemList);
-		}
+			// the new barcodes come in order, so the items are sorted
+			for (Item item : added) {
+				this.store.register(item);
+				this.expirations.add(item);
+			}
+			this.store.indexAll(added);
 
-		// Add item to list in the container and product to it's list
-		if (!newItem.getContainer()
-				.containsProduct(
-						newItem.getProduct()
-								.getBarcode())) {
-			// System.out.println();
-			newItem.getContainer().addProduct(
-					newItem.getProduct());
+			if (!destination
+					.containsProduct(productBarcode)) {
+				destination.addProduct(product);
+			}
+			destination.addItems(added);
+			SessionManager.getInstance().addItems(
+					added);
+			setChanged();
+			notifyObservers(ItemNotifier.added(added));
+			return added;
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		newItem.getContainer().addItem(newItem);
-		setChanged();
 	}
 
 	/**
@@ -220,107 +259,377 @@ public class ItemManager extends Observable
 	 */
 	// public void consume(ItemBarcode barcode) {
 	public void consume(Item item) {
-		assert item != null;
-		assert ItemManager
-				.getInstance()
-				.itemExists(item.getItemBarcode()) : "Item barcode doesn't exist.";
-		// Item item = getItemBarcodeMap().get(barcode);
-
-		// BIGMAP
-		HashMap<ProductBarcode, SortedSet<Item>> productMap = this.map
-				.get(item.getContainer());
-		if (productMap == null) {
-			assert false : "This shouldn't be empty... "
-					+ "how are we consuming an item that doesn't exist?";
-			// productMap = new HashMap<ProductBarcode, SortedSet<Item>>();
+		consume(item, new Date());
+	}
+
+	/**
+	 * Consumes the item with the given exit time. Used directly when replaying
+	 * a consume that was recorded earlier.
+	 * 
+	 * @pre item is not null and exists in items
+	 * @pre exitTime is not null
+	 * @post item is consumed with exitTime as its exit time.
+	 * @param item
+	 * @param exitTime
+	 */
+	void consume(Item item, Date exitTime) {
+		ModelLock.lockWrite();
+		try {
+			assert item != null;
+			assert ItemManager
+					.getInstance()
+					.itemExists(item.getItemBarcode()) : "Item barcode doesn't exist.";
+			ProductBarcode productBarcode = item
+					.getProduct().getBarcode();
+
+			// The item leaves the live indexes before its exit time is set, since
+			// the exit time changes where it sorts.
+			this.store.unindex(item);
+			this.expirations.remove(item);
+
+			// Remove the item from the list contained in the container itself
+			item.getContainer().removeItem(item);
+			// Consume the item, this sets it's exit time and set product container
+			// to CONSUMED_ITEMS
+			item.consume(exitTime);
+
+			archive(item);
+
+			SessionManager.getInstance().consumeItem(
+					item);
+			NotificationBus bus = NotificationBus
+					.getInstance();
+			bus.begin();
+			try {
+				setChanged();
+				notifyObservers(ItemNotifier
+						.removed(item));
+
+				ProductManager.getInstance()
+						.setChangedOverride();
+				ProductManager.getInstance()
+						.notifyObservers(
+								ProductNotifier
+										.changed(item
+												.getProduct()));
+			} finally {
+				bus.end();
+			}
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		SortedSet<Item> theItems = productMap
-				.get(item.getProduct()
-						.getBarcode());
-		if (theItems == null) {
-			assert false : "This shouldn't be empty... "
-					+ "how are we consuming an item that doesn't exist?";
-			// theItems = new TreeSet<Item>();
+	}
+
+	/**
+	 * Gets every consumed item, loading the item history first if it hasn't
+	 * been yet.
+	 * 
+	 * @pre true
+	 * @post true
+	 * @return unmodifiable list of consumed items, ordered by exit time.
+	 */
+	public List<Item> getConsumedItems() {
+		ensureHistoryLoaded();
+		ModelLock.lockRead();
+		try {
+			return Collections
+					.unmodifiableList(this.consumedByExitTime);
+		} finally {
+			ModelLock.unlockRead();
 		}
-		theItems.remove(item);
-
-		HashMap<ProductBarcode, SortedSet<Item>> consumedMap = this.map
-				.get(ProductContainer.CONSUMED_ITEMS);
-		if (consumedMap == null) {
-			consumedMap = new HashMap<ProductBarcode, SortedSet<Item>>();
-			this.map.put(
-					ProductContainer.CONSUMED_ITEMS,
-					consumedMap);
+	}
+
+	/**
+	 * Gets the consumed items of one product, loading the item history first
+	 * if it hasn't been yet.
+	 * 
+	 * @pre product is not null
+	 * @post true
+	 * @return unmodifiable list of consumed items of the product, ordered by
+	 *         exit time.
+	 */
+	public List<Item> getConsumedItemsByProduct(
+			Product product) {
+		ensureHistoryLoaded();
+		ModelLock.lockRead();
+		try {
+			ArrayList<Item> items = this.consumedByProduct
+					.get(product.getBarcode());
+			if (items == null) {
+				return Collections.emptyList();
+			}
+			return Collections.unmodifiableList(items);
+		} finally {
+			ModelLock.unlockRead();
 		}
+	}
 
-		SortedSet<Item> bmConsumedItems = consumedMap
-				.get(item.getProduct()
-						.getBarcode());
-		if (bmConsumedItems == null) {
-			bmConsumedItems = new TreeSet<Item>();
-			consumedMap.put(item.getProduct()
-					.getBarcode(),
-					bmConsumedItems);
+	/**
+	 * Gets the items consumed in a time range, loading the item history first
+	 * if it hasn't been yet.
+	 * 
+	 * @pre from and to are not null
+	 * @post true
+	 * @param from
+	 *            earliest exit time included
+	 * @param to
+	 *            exit times before this are included
+	 * @return unmodifiable list of the consumed items, ordered by exit time.
+	 */
+	public List<Item> getConsumedItemsBetween(
+			Date from, Date to) {
+		ensureHistoryLoaded();
+		ModelLock.lockRead();
+		try {
+			int start = exitTimeIndex(
+					this.consumedByExitTime,
+					from.getTime());
+			int end = Math.max(start, exitTimeIndex(
+					this.consumedByExitTime,
+					to.getTime()));
+			return Collections
+					.unmodifiableList(this.consumedByExitTime
+							.subList(start, end));
+		} finally {
+			ModelLock.unlockRead();
 		}
-		bmConsumedItems.add(item);
-		//
-
-		// Grab the container the item current sits in
-		SortedSet<Item> containerItems = getProductContainerMap()
-				.get(item.getContainer());
-		assert containerItems != null : "containerItems == null";
-
-		// Remove the item from that container
-		containerItems.remove(item);
-
-		// Remove the item from the list contained in the container itself
-		item.getContainer().removeItem(item);
-		// Consume the item, this sets it's exit time and set product container
-		// to CONSUMED_ITEMS
-		item.consume();
-
-		// Grab the list of consumedItems
-		SortedSet<Item> consumedItems = getProductContainerMap()
-				.get(ProductContainer.CONSUMED_ITEMS);
-		if (consumedItems == null) {
-			consumedItems = new TreeSet<Item>();
-			getProductContainerMap()
-					.put(ProductContainer.CONSUMED_ITEMS,
-							consumedItems);
+	}
+
+	/**
+	 * Counts the items of each product consumed in a time range. Only the
+	 * items consumed in the range are looked at.
+	 * 
+	 * @pre from and to are not null
+	 * @post true
+	 * @param from
+	 *            earliest exit time included
+	 * @param to
+	 *            exit times before this are included
+	 * @return the number of items consumed in the range for each product that
+	 *         had any, in order of each product's first removal
+	 */
+	public Map<Product, Integer> getConsumedCountsBetween(
+			Date from, Date to) {
+		ensureHistoryLoaded();
+		ModelLock.lockRead();
+		try {
+			Map<Product, Integer> counts = new LinkedHashMap<Product, Integer>();
+			int start = exitTimeIndex(
+					this.consumedByExitTime,
+					from.getTime());
+			int end = exitTimeIndex(
+					this.consumedByExitTime,
+					to.getTime());
+			for (int i = start; i < end; i++) {
+				Product product = this.consumedByExitTime
+						.get(i).getProduct();
+				Integer count = counts.get(product);
+				counts.put(product,
+						(count == null) ? 1
+								: count + 1);
+			}
+			return counts;
+		} finally {
+			ModelLock.unlockRead();
 		}
+	}
 
-		consumedItems.add(item);
+	private void archive(Item item) {
+		if (this.shared
+				.remove(this.consumedByExitTime)) {
+			this.consumedByExitTime = new ArrayList<Item>(
+					this.consumedByExitTime);
+		}
+		insertByExitTime(this.consumedByExitTime,
+				item);
+		ProductBarcode productBarcode = item
+				.getProduct().getBarcode();
+		ArrayList<Item> byProduct = this.consumedByProduct
+				.get(productBarcode);
+		if (byProduct == null) {
+			byProduct = new ArrayList<Item>();
+			this.consumedByProduct.put(
+					productBarcode, byProduct);
+		} else if (this.shared.remove(byProduct)) {
+			byProduct = new ArrayList<Item>(
+					byProduct);
+			this.consumedByProduct.put(
+					productBarcode, byProduct);
+		}
+		insertByExitTime(byProduct, item);
+	}
 
-		// Now lets remove and add back to the other map to keep the sorting
-		// right
-		// (it sorts by entryDate and exitTime, consume sets exit time).
-		SortedSet<Item> itemByProduct = getProductBarcodeMap()
-				.get(item.getProduct()
-						.getBarcode());
-		itemByProduct.remove(item);
-		itemByProduct.add(item);
+	private static void insertByExitTime(
+			ArrayList<Item> items, Item item) {
+		long exitTime = item.getExitMillis();
+		if (items.isEmpty()
+				|| (items.get(items.size() - 1)
+						.getExitMillis() <= exitTime)) {
+			items.add(item);
+		} else {
+			// after any item consumed at the same moment
+			items.add(exitTimeIndex(items,
+					exitTime + 1), item);
+		}
+	}
 
-		assert consumedItems != null;
-		setChanged();
-		notifyObservers(new ItemNotifier());
+	/**
+	 * Binary search for the first item consumed at or after time.
+	 */
+	static int exitTimeIndex(
+			List<Item> items, long time) {
+		int low = 0;
+		int high = items.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (items.get(mid).getExitMillis() < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
 
-		ProductManager.getInstance()
-				.setChangedOverride();
-		ProductManager.getInstance()
-				.notifyObservers(
-						new ProductNotifier());
+	/**
+	 * Takes a snapshot of the item indexes and of the ProductManager's
+	 * product-container links that later changes won't show through, for a
+	 * report to read on another thread. Only the index maps are copied; their
+	 * sets and lists are shared with the snapshot until the managers next
+	 * change one, which they then copy first.
+	 * 
+	 * @pre true
+	 * @post isHistoryLoaded()
+	 * @return the snapshot
+	 */
+	public ItemSnapshot snapshot() {
+		ensureHistoryLoaded();
+		ModelLock.lockWrite();
+		try {
+			// lists no longer in the archive won't change again
+			this.shared.clear();
+			this.shared.addAll(this.consumedByProduct
+					.values());
+			this.shared.add(this.consumedByExitTime);
+			this.store.share();
+			return new ItemSnapshot(
+					this.store.copyByProduct(),
+					this.store.copyByContainer(),
+					this.consumedByExitTime,
+					new HashMap<ProductBarcode, ArrayList<Item>>(
+							this.consumedByProduct),
+					ProductManager.getInstance()
+							.getAllProducts(),
+					ProductManager.getInstance()
+							.shareLinks());
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
-	 * Test method only. Used to test consumed items.
+	 * Loads the consumed item history if startup skipped it. This takes the
+	 * write lock, so it must not be called by a thread holding only the read
+	 * lock; the getters that load the history do so before they lock.
 	 * 
+	 * @pre the calling thread does not hold only the read lock
+	 * @post isHistoryLoaded()
+	 */
+	public void ensureHistoryLoaded() {
+		ModelLock.lockWrite();
+		try {
+			if (!this.historyLoaded) {
+				this.historyLoaded = true;
+				SessionManager.getInstance()
+						.loadItemHistory();
+			}
+		} finally {
+			ModelLock.unlockWrite();
+		}
+	}
+
+	/**
 	 * @pre true
 	 * @post true
-	 * @return SortedSet of consumed items, ordered by expiration date.
+	 * @return true if the consumed items are in memory
+	 */
+	public boolean isHistoryLoaded() {
+		return this.historyLoaded;
+	}
+
+	void setHistoryLoaded(boolean historyLoaded) {
+		this.historyLoaded = historyLoaded;
+	}
+
+	/**
+	 * Adds consumed items read from the item history to every index. Items
+	 * already known (consumed again this session) are left alone.
+	 * 
+	 * @pre every item in consumedItems has been consumed
+	 * @post the consumed items are indexed
+	 * @param consumedItems
 	 */
-	public SortedSet<Item> getConsumedItems() {
-		return getProductContainerMap().get(
-				ProductContainer.CONSUMED_ITEMS);
+	void mergeHistory(Collection<Item> consumedItems) {
+		for (Item item : consumedItems) {
+			assert item.getContainer() == ProductContainer.CONSUMED_ITEMS;
+			if (this.store.getItem(item
+					.getItemBarcode()) == null) {
+				indexItem(item);
+			}
+		}
+	}
+
+	/**
+	 * Puts an item into the live indexes under its container, or into the
+	 * consumed archive if it has been consumed. Nothing is notified or
+	 * recorded; used when rebuilding the manager from saved state.
+	 * 
+	 * @pre item is not null and not yet indexed
+	 * @post item is indexed
+	 * @param item
+	 */
+	void indexItem(Item item) {
+		this.store.register(item);
+		this.barcodeAllocator.reserve(item
+				.getItemBarcode());
+		if (item.getContainer() == ProductContainer.CONSUMED_ITEMS) {
+			archive(item);
+			return;
+		}
+		this.store.index(item);
+		this.expirations.add(item);
+	}
+
+	/**
+	 * Moves the live items into the containers of the StorageUnitManager's
+	 * tree and rebuilds the indexes keyed on them.
+	 * 
+	 * @pre containers is not null
+	 * @post every live item's container is in the tree
+	 */
+	void adoptContainers(LegacyContainers containers) {
+		ArrayList<Item> live = new ArrayList<Item>();
+		for (Item item : this.store.getItems()) {
+			if (item.getContainer() != ProductContainer.CONSUMED_ITEMS) {
+				live.add(item);
+			}
+		}
+		this.store.clearIndexes();
+		this.expirations.clear();
+		for (Item item : live) {
+			ProductContainer container = containers
+					.resolve(item.getContainer());
+			item.setProductContainer(container);
+			containers.adopt(item.getProduct());
+			this.store.index(item);
+			this.expirations.add(item);
+			container.addItem(item);
+		}
+	}
+
+	ArrayList<Item> getConsumedItemList() {
+		return new ArrayList<Item>(
+				this.consumedByExitTime);
 	}
 
 	/**
@@ -330,59 +639,40 @@ public class ItemManager extends Observable
 	 */
 	public SortedSet<Item> getItemByContainer(
 			ProductContainer productContainer) {
-		return getProductContainerMap().get(
-				productContainer);
+		ModelLock.lockRead();
+		try {
+			return this.store
+					.getByContainer(productContainer);
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	public void editItem(Item item,
 			Date newEntryDate) {
+		ModelLock.lockWrite();
+		try {
 
-		// we need to remove the item from each, edit the item, then put it
-		// back. This will keep it sorted... or we can sort at the end.
-
-		this.itemBarcodeMap.get(
-				item.getItemBarcode())
-				.setEntryDate(newEntryDate);
-
-		editItemInSet(item,
-				this.productBarcodeMap.get(item
-						.getProduct()
-						.getBarcode()),
-				newEntryDate);
-
-		editItemInSet(item,
-				this.productContainerMap.get(item
-						.getContainer()),
-				newEntryDate);
-
-		editItemInSet(
-				item,
-				getItemsByContainerAndProduct(
-						item.getContainer(), item
-								.getProduct()
-								.getBarcode()),
-				newEntryDate);
-
-		setChanged();
-		notifyObservers(new ItemNotifier());
-	}
+			if (item.getContainer() == ProductContainer.CONSUMED_ITEMS) {
+				// the consumed archive is ordered by exit time, nothing moves
+				item.setEntryDate(newEntryDate);
+			} else {
+				// we need to remove the item from each index, edit the item, then
+				// put it back. This will keep it sorted.
+				this.store.unindex(item);
+				this.expirations.remove(item);
+				item.setEntryDate(newEntryDate);
+				this.store.index(item);
+				this.expirations.add(item);
+			}
 
-	private void editItemInSet(Item item,
-			Set<Item> set, Date newEntryDate) {
-		// Item itemByReference = null;
-		// Iterator<Item> iter = set.iterator();
-		// while(iter.hasNext()) {
-		// Item cur = iter.next();
-		// //set.remove(cur);
-		// if(cur.equals(item)) {
-		// itemByReference = cur;
-		// //cur.setEntryDate(newEntryDate);
-		// }
-		// //set.add(cur);
-		// }
-		set.remove(item);
-		item.setEntryDate(newEntryDate);
-		set.add(item);
+			SessionManager.getInstance().editItem(
+					item);
+			setChanged();
+			notifyObservers(ItemNotifier.changed(item));
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -397,72 +687,87 @@ public class ItemManager extends Observable
 	 */
 	public void transferItem(Item toMove,
 			StorageUnit targetStorageUnit) {
-		assert StorageUnit
-				.isValid(targetStorageUnit
-						.getName()) : "Invalid storageunit name";
-		assert Item.isValid(
-				toMove.getItemBarcode(),
-				toMove.getEntryDate());
-		assert ItemManager.getInstance()
-				.itemExists(
-						toMove.getItemBarcode());
-
-		StorageUnit originalStorageUnit = toMove
-				.getContainer().getStorageUnit();
-
-		if (originalStorageUnit
-				.equals(targetStorageUnit)) {
-			// trying to transfer an item to it's own container
-			return;
-		} else {
-			// see if toMove's product is contained within target storage unit
-			ProductContainer targetProductContainer = targetStorageUnit
-					.findProductContainer(toMove
-							.getProduct()
-							.getBarcode());
-
-			// if it's not, then set targetProductContainer to targetStorageUnit
-			// and add the product to it.
-			if (targetProductContainer == null) {
-				// add toMove's product to storageUnit
-				targetStorageUnit
-						.addProduct(toMove
-								.getProduct());
-				toMove.getProduct()
-						.addToContainer(
-								targetStorageUnit);
-				// ProductManager.getInstance().add(toMove.getProduct());
-				ProductManager
-						.getInstance()
-						.addToContainer(
-								toMove.getProduct(),
-								targetStorageUnit);
-				targetProductContainer = targetStorageUnit;
-			}
-
-			// //delete Product from old location if necessary
-			// Set<Item> numberOfItems =
-			// this.getItemsByContainerAndProduct(toMove.getContainer(),
-			// toMove.getProduct().getBarcode());
-			// if(numberOfItems.size() == 1) {
-			// //delete the product
-			// ProductManager.getInstance().deleteFromContainer(toMove.getProduct(),
-			// toMove.getContainer());
-			// toMove.getContainer().removeProduct(toMove.getProduct());
-			// toMove.getProduct().removeFromContainer(toMove.getContainer());
-			// }
+		ModelLock.lockWrite();
+		try {
+			assert StorageUnit
+					.isValid(targetStorageUnit
+							.getName()) : "Invalid storageunit name";
+			assert Item.isValid(
+					toMove.getItemBarcode(),
+					toMove.getEntryDate());
+			assert ItemManager.getInstance()
+					.itemExists(
+							toMove.getItemBarcode());
+
+			StorageUnit originalStorageUnit = toMove
+					.getContainer().getStorageUnit();
+
+			if (originalStorageUnit
+					.equals(targetStorageUnit)) {
+				// trying to transfer an item to it's own container
+				return;
+			} else {
+				// see if toMove's product is contained within target storage unit
+				ProductContainer targetProductContainer = targetStorageUnit
+						.findProductContainer(toMove
+								.getProduct()
+								.getBarcode());
 
-			moveItem(toMove,
-					targetProductContainer);
+				// if it's not, then set targetProductContainer to targetStorageUnit
+				// and add the product to it.
+				if (targetProductContainer == null) {
+					// add toMove's product to storageUnit
+					targetStorageUnit
+							.addProduct(toMove
+									.getProduct());
+					toMove.getProduct()
+							.addToContainer(
+									targetStorageUnit);
+					// ProductManager.getInstance().add(toMove.getProduct());
+					ProductManager
+							.getInstance()
+							.addToContainer(
+									toMove.getProduct(),
+									targetStorageUnit);
+					targetProductContainer = targetStorageUnit;
+				}
 
-			ProductManager.getInstance()
-					.setChangedOverride();
-			ProductManager
-					.getInstance()
-					.notifyObservers(
-							new ProductNotifier());
-			setChanged();
-			this.notifyObservers(new ItemNotifier());
+				// //delete Product from old location if necessary
+				// Set<Item> numberOfItems =
+				// this.getItemsByContainerAndProduct(toMove.getContainer(),
+				// toMove.getProduct().getBarcode());
+				// if(numberOfItems.size() == 1) {
+				// //delete the product
+				// ProductManager.getInstance().deleteFromContainer(toMove.getProduct(),
+				// toMove.getContainer());
+				// toMove.getContainer().removeProduct(toMove.getProduct());
+				// toMove.getProduct().removeFromContainer(toMove.getContainer());
+				// }
+
+				moveItem(toMove,
+						targetProductContainer);
+
+				NotificationBus bus = NotificationBus
+						.getInstance();
+				bus.begin();
+				try {
+					ProductManager.getInstance()
+							.setChangedOverride();
+					ProductManager
+							.getInstance()
+							.notifyObservers(
+									ProductNotifier
+											.changed(toMove
+													.getProduct()));
+					setChanged();
+					this.notifyObservers(ItemNotifier
+							.changed(toMove));
+				} finally {
+					bus.end();
+				}
+			}
+		} finally {
+			ModelLock.unlockWrite();
 		}
 	}
 
@@ -484,252 +789,281 @@ public class ItemManager extends Observable
 	public void move(
 			Item toMove,
 			ProductContainer targetProductContainer) {
-		assert ItemManager.getInstance()
-				.itemExists(
-						toMove.getItemBarcode()) : "Item doesn't exist";
-		assert Item.isValid(
-				toMove.getItemBarcode(),
-				toMove.getEntryDate());
-		assert ProductContainer
-				.isValid(targetProductContainer
-						.getName());
-
-		StorageUnit targetStorageUnit = targetProductContainer
-				.getStorageUnit();
-		StorageUnit originalStorageUnit = toMove
-				.getContainer().getStorageUnit();
-
-		// Complete list of items to move
-		ArrayList<Item> moveTheseOnes = new ArrayList<Item>();
-
-		if (targetStorageUnit
-				.equals(originalStorageUnit)) {
-			// case 3
-
-			Set<Item> subItems = getItemsByContainerAndProduct(
-					toMove.getContainer(), toMove
-							.getProduct()
-							.getBarcode());
-			if (subItems != null) {
-				moveTheseOnes.addAll(subItems);
-			}
-
-			toMove.getContainer().removeProduct(
-					toMove.getProduct());
-			toMove.getProduct()
-					.removeFromContainer(
-							toMove.getContainer());
-			ProductManager
-					.getInstance()
-					.deleteFromContainer(
-							toMove.getProduct(),
-							toMove.getContainer());
-
-			targetProductContainer
-					.addProduct(toMove
-							.getProduct());
-			toMove.getProduct().addToContainer(
-					targetProductContainer);
-			ProductManager
-					.getInstance()
-					.addToContainer(
-							toMove.getProduct(),
-							targetProductContainer);
+		ModelLock.lockWrite();
+		// the product and item rows that change go out together
+		NotificationBus bus = NotificationBus
+				.getInstance();
+		bus.begin();
+		try {
+			assert ItemManager.getInstance()
+					.itemExists(
+							toMove.getItemBarcode()) : "Item doesn't exist";
+			assert Item.isValid(
+					toMove.getItemBarcode(),
+					toMove.getEntryDate());
+			assert ProductContainer
+					.isValid(targetProductContainer
+							.getName());
+
+			StorageUnit targetStorageUnit = targetProductContainer
+					.getStorageUnit();
+			StorageUnit originalStorageUnit = toMove
+					.getContainer().getStorageUnit();
+
+			// Complete list of items to move
+			ArrayList<Item> moveTheseOnes = new ArrayList<Item>();
+
+			if (targetStorageUnit
+					.equals(originalStorageUnit)) {
+				// case 3
 
-		} else {
-			moveTheseOnes.add(toMove);
-			ProductContainer targetOldContainer = targetStorageUnit
-					.findProductContainer(toMove
-							.getProduct()
-							.getBarcode());
-			if (targetOldContainer == null) {
-				// Target Container doesn't have the product in any of its
-				// sub-containers
-				targetProductContainer
-						.addProduct(toMove
-								.getProduct());
-				toMove.getProduct()
-						.addToContainer(
-								targetProductContainer);
-				ProductManager
-						.getInstance()
-						.addToContainer(
-								toMove.getProduct(),
-								targetProductContainer);
-			} else if (!targetProductContainer
-					.equals(targetOldContainer)) {
-				// Move the selected item only
 				Set<Item> subItems = getItemsByContainerAndProduct(
-						targetOldContainer,
-						toMove.getProduct()
+						toMove.getContainer(), toMove
+								.getProduct()
 								.getBarcode());
 				if (subItems != null) {
-					moveTheseOnes
-							.addAll(subItems);
+					moveTheseOnes.addAll(subItems);
 				}
 
+				toMove.getContainer().removeProduct(
+						toMove.getProduct());
+				toMove.getProduct()
+						.removeFromContainer(
+								toMove.getContainer());
 				ProductManager
 						.getInstance()
 						.deleteFromContainer(
 								toMove.getProduct(),
-								targetOldContainer);
-				toMove.getProduct()
-						.removeFromContainer(
-								targetOldContainer);
-				targetOldContainer
-						.removeProduct(toMove
-								.getProduct());
+								toMove.getContainer());
 
 				targetProductContainer
 						.addProduct(toMove
 								.getProduct());
-				toMove.getProduct()
-						.addToContainer(
-								targetProductContainer);
+				toMove.getProduct().addToContainer(
+						targetProductContainer);
 				ProductManager
 						.getInstance()
 						.addToContainer(
 								toMove.getProduct(),
 								targetProductContainer);
+
+			} else {
+				moveTheseOnes.add(toMove);
+				ProductContainer targetOldContainer = targetStorageUnit
+						.findProductContainer(toMove
+								.getProduct()
+								.getBarcode());
+				if (targetOldContainer == null) {
+					// Target Container doesn't have the product in any of its
+					// sub-containers
+					targetProductContainer
+							.addProduct(toMove
+									.getProduct());
+					toMove.getProduct()
+							.addToContainer(
+									targetProductContainer);
+					ProductManager
+							.getInstance()
+							.addToContainer(
+									toMove.getProduct(),
+									targetProductContainer);
+				} else if (!targetProductContainer
+						.equals(targetOldContainer)) {
+					// Move the selected item only
+					Set<Item> subItems = getItemsByContainerAndProduct(
+							targetOldContainer,
+							toMove.getProduct()
+									.getBarcode());
+					if (subItems != null) {
+						moveTheseOnes
+								.addAll(subItems);
+					}
+
+					ProductManager
+							.getInstance()
+							.deleteFromContainer(
+									toMove.getProduct(),
+									targetOldContainer);
+					toMove.getProduct()
+							.removeFromContainer(
+									targetOldContainer);
+					targetOldContainer
+							.removeProduct(toMove
+									.getProduct());
+
+					targetProductContainer
+							.addProduct(toMove
+									.getProduct());
+					toMove.getProduct()
+							.addToContainer(
+									targetProductContainer);
+					ProductManager
+							.getInstance()
+							.addToContainer(
+									toMove.getProduct(),
+									targetProductContainer);
+				}
+				//
+				// if (targetOldContainer != null) {
+				// // case
+				// // Grab list of items from targetOldContainer
+				// if (targetOldContainer != null) {
+				// Set<Item> subItems = this.getItemsByContainerAndProduct(
+				// targetOldContainer, toMove.getProduct()
+				// .getBarcode());
+				// //if (subItems != null) //changed this to prevent using a
+				// checkstyle point ;D
+				// moveTheseOnes.addAll(subItems == null ? new ArrayList() :
+				// subItems);
+				// }
+				//
+				// // Delete product from targetOldContainer
+				// ProductManager.getInstance().deleteFromContainer(
+				// toMove.getProduct(), targetOldContainer);
+				//
+				// // Remove the link from product -> container list
+				// toMove.getProduct().removeFromContainer(targetOldContainer);
+				// // Remove the product from TargetOldContainer list
+				// targetOldContainer.removeProduct(toMove.getProduct());
+				//
+				// // Add the product to the new container
+				// ProductManager.getInstance().addToContainer(
+				// toMove.getProduct(), targetProductContainer);
+				//
+				// }
+				//
 			}
+
+			moveItems(moveTheseOnes,
+					targetProductContainer);
+
+			ProductManager.getInstance()
+					.setChangedOverride();
+			ProductManager.getInstance()
+					.notifyObservers(
+							ProductNotifier
+									.changed(toMove
+											.getProduct()));
+			// each row leaves the table of its old container and joins the
+			// table of the target
+			ChangeSet<Item> moved = new ChangeSet<Item>();
+			for (Item item : moveTheseOnes) {
+				moved.change(item);
+			}
+			setChanged();
+			notifyObservers(new ItemNotifier(moved));
+
+			//
 			//
-			// if (targetOldContainer != null) {
-			// // case
-			// // Grab list of items from targetOldContainer
-			// if (targetOldContainer != null) {
-			// Set<Item> subItems = this.getItemsByContainerAndProduct(
-			// targetOldContainer, toMove.getProduct()
-			// .getBarcode());
-			// //if (subItems != null) //changed this to prevent using a
-			// checkstyle point ;D
-			// moveTheseOnes.addAll(subItems == null ? new ArrayList() :
-			// subItems);
-			// }
 			//
-			// // Delete product from targetOldContainer
-			// ProductManager.getInstance().deleteFromContainer(
-			// toMove.getProduct(), targetOldContainer);
 			//
-			// // Remove the link from product -> container list
-			// toMove.getProduct().removeFromContainer(targetOldContainer);
-			// // Remove the product from TargetOldContainer list
-			// targetOldContainer.removeProduct(toMove.getProduct());
 			//
-			// // Add the product to the new container
-			// ProductManager.getInstance().addToContainer(
-			// toMove.getProduct(), targetProductContainer);
 			//
+			// System.out.print("a->");
+			// if(targetStorageUnit.containsProduct(toMove.getProduct().getBarcode()))
+			// {
+			// System.out.print("b->");
+			// ProductContainer oldContainer =
+			// targetStorageUnit.findProductContainer(toMove.getProduct().getBarcode());
+			// ProductManager.getInstance().addToContainer(toMove.getProduct(),
+			// targetProductContainer);
+			// if(!oldContainer.equals(targetProductContainer)) {
+			// System.out.print("c->");
+			//
+			// Set<Item> itemsToMove =
+			// this.getItemsByContainerAndProduct(oldContainer,
+			// toMove.getProduct().getBarcode());
+			// if(!itemsToMove.contains(toMove))
+			// itemsToMove.add(toMove);
+			//
+			// Item[] itemArray = itemsToMove.toArray(new Item[0]);
+			// for(Item i : itemArray) {
+			// this.moveItem(i, targetProductContainer);
 			// }
+			// // Iterator<Item> iter = itemsToMove.iterator();
+			// // while(iter.hasNext()) {
+			// // Item curItem = iter.next();
+			// // this.moveItem(curItem, targetProductContainer);
+			// // }
+			// ProductManager.getInstance().deleteFromContainer(toMove.getProduct(),
+			// oldContainer);
 			//
+			// } else {
+			// System.out.print("cc->");
+			//
+			// this.moveItem(toMove, targetProductContainer); //what if toMove is in
+			// a different
+			// }
+			// } else {
+			// System.out.print("bb->");
+			// ProductManager.getInstance().addToContainer(toMove.getProduct(),
+			// targetProductContainer);
+			// this.moveItem(toMove, targetProductContainer);
+			// }
+			// // // look for the product within the storage unit
+			// // if
+			// (targetStorageUnit.containsProduct(toMove.getProduct().getBarcode()))
+			// {
+			// // // delete the product from the old container
+			// // ProductManager.getInstance().deleteFromContainer(
+			// // toMove.getProduct(), toMove.getContainer());
+			// //
+			// // // move all of the items to the new destination
+			// //// SortedSet<Item> itemsToMove = getProductBarcodeMap().get(
+			// //// toMove.getProduct().getBarcode());
+			// // SortedSet<Item> itemsToMove =
+			// this.getItemsByContainerAndProduct(pc, productBarcode)
+			// // Iterator<Item> iter = itemsToMove.iterator();
+			// // while (iter.hasNext()) {
+			// // Item currentItem = iter.next();
+			// // // if(currentItem.getProduct())
+			// // moveItem(currentItem, targetProductContainer);
+			// // }
+			// // } else {
+			// // // add the product to the new product container
+			// // targetProductContainer.addProduct(toMove.getProduct());
+			// // moveItem(toMove, targetProductContainer);
+			// // }
+			// System.out.println("Moved item[s] to " + targetProductContainer);
+			// ProductManager.getInstance().setChangedOverride();
+			// ProductManager.getInstance().notifyObservers(new ProductNotifier());
+			// this.setChanged();
+		} finally {
+			bus.end();
+			ModelLock.unlockWrite();
 		}
-
-		for (Item i : moveTheseOnes) {
-			moveItem(i, targetProductContainer);
-		}
-
-		ProductManager.getInstance()
-				.setChangedOverride();
-		ProductManager.getInstance()
-				.notifyObservers(
-						new ProductNotifier());
-		setChanged();
-
-		//
-		//
-		//
-		//
-		//
-		//
-		// System.out.print("a->");
-		// if(targetStorageUnit.containsProduct(toMove.getProduct().getBarcode()))
-		// {
-		// System.out.print("b->");
-		// ProductContainer oldContainer =
-		// targetStorageUnit.findProductContainer(toMove.getProduct().getBarcode());
-		// ProductManager.getInstance().addToContainer(toMove.getProduct(),
-		// targetProductContainer);
-		// if(!oldContainer.equals(targetProductContainer)) {
-		// System.out.print("c->");
-		//
-		// Set<Item> itemsToMove =
-		// this.getItemsByContainerAndProduct(oldContainer,
-		// toMove.getProduct().getBarcode());
-		// if(!itemsToMove.contains(toMove))
-		// itemsToMove.add(toMove);
-		//
-		// Item[] itemArray = itemsToMove.toArray(new Item[0]);
-		// for(Item i : itemArray) {
-		// this.moveItem(i, targetProductContainer);
-		// }
-		// // Iterator<Item> iter = itemsToMove.iterator();
-		// // while(iter.hasNext()) {
-		// // Item curItem = iter.next();
-		// // this.moveItem(curItem, targetProductContainer);
-		// // }
-		// ProductManager.getInstance().deleteFromContainer(toMove.getProduct(),
-		// oldContainer);
-		//
-		// } else {
-		// System.out.print("cc->");
-		//
-		// this.moveItem(toMove, targetProductContainer); //what if toMove is in
-		// a different
-		// }
-		// } else {
-		// System.out.print("bb->");
-		// ProductManager.getInstance().addToContainer(toMove.getProduct(),
-		// targetProductContainer);
-		// this.moveItem(toMove, targetProductContainer);
-		// }
-		// // // look for the product within the storage unit
-		// // if
-		// (targetStorageUnit.containsProduct(toMove.getProduct().getBarcode()))
-		// {
-		// // // delete the product from the old container
-		// // ProductManager.getInstance().deleteFromContainer(
-		// // toMove.getProduct(), toMove.getContainer());
-		// //
-		// // // move all of the items to the new destination
-		// //// SortedSet<Item> itemsToMove = getProductBarcodeMap().get(
-		// //// toMove.getProduct().getBarcode());
-		// // SortedSet<Item> itemsToMove =
-		// this.getItemsByContainerAndProduct(pc, productBarcode)
-		// // Iterator<Item> iter = itemsToMove.iterator();
-		// // while (iter.hasNext()) {
-		// // Item currentItem = iter.next();
-		// // // if(currentItem.getProduct())
-		// // moveItem(currentItem, targetProductContainer);
-		// // }
-		// // } else {
-		// // // add the product to the new product container
-		// // targetProductContainer.addProduct(toMove.getProduct());
-		// // moveItem(toMove, targetProductContainer);
-		// // }
-		// System.out.println("Moved item[s] to " + targetProductContainer);
-		// ProductManager.getInstance().setChangedOverride();
-		// ProductManager.getInstance().notifyObservers(new ProductNotifier());
-		// this.setChanged();
 	}
 
 	public void productMoveItems(
 			Set<Item> itemsToMove,
 			ProductContainer targetContainer,
 			ProductContainer oldContainer) {
+		if ((itemsToMove == null)
+				|| itemsToMove.isEmpty()) {
+			return;
+		}
+		ModelLock.lockWrite();
+		try {
+
+			Item toMove = itemsToMove.iterator()
+					.next();
+			Set<Item> itemsToMove2 = getItemsByContainerAndProduct(
+					oldContainer, toMove.getProduct()
+							.getBarcode());
 
-		Item toMove = itemsToMove.iterator()
-				.next();
-		Set<Item> itemsToMove2 = getItemsByContainerAndProduct(
-				oldContainer, toMove.getProduct()
-						.getBarcode());
+			List<Item> itemList = new ArrayList<Item>(
+					itemsToMove2);
+			moveItems(itemList, targetContainer);
+			ChangeSet<Item> moved = new ChangeSet<Item>();
+			for (Item i : itemList) {
+				moved.change(i);
+			}
 
-		Item[] itemArray = itemsToMove2
-				.toArray(new Item[0]);
-		for (Item i : itemArray) {
-			moveItem(i, targetContainer);
+			setChanged();
+			this.notifyObservers(new ItemNotifier(moved));
+		} finally {
+			ModelLock.unlockWrite();
 		}
-
-		setChanged();
-		this.notifyObservers(new ItemNotifier());
 	}
 
 	/**
@@ -744,75 +1078,70 @@ public class ItemManager extends Observable
 	// could be private once testing is over
 	public void moveItem(Item toMove,
 			ProductContainer destination) {
-		assert Item.isValid(
-				toMove.getItemBarcode(),
-				toMove.getEntryDate());
-		assert ItemManager.getInstance()
-				.itemExists(
-						toMove.getItemBarcode());
-		assert ProductContainer
-				.isValid(destination.getName());
-
-		// BIGMAP
-		// System.out.println("looking up " + toMove.getContainer().getName() +
-		// " - " + map.keySet());
-		HashMap<ProductBarcode, SortedSet<Item>> productMap = this.map
-				.get(toMove.getContainer());
-		if (productMap == null) {
-			assert false : "This shouldn't be empty... container->";
-			// productMap = new HashMap<ProductBarcode, SortedSet<Item>>();
-		}
-		SortedSet<Item> theItems = productMap
-				.get(toMove.getProduct()
-						.getBarcode());
-		if (theItems == null) {
-			assert false : "This shouldn't be empty... container->product->";
-			// theItems = new TreeSet<Item>();
-		}
-		theItems.remove(toMove);
-
-		HashMap<ProductBarcode, SortedSet<Item>> newProductMap = this.map
-				.get(destination);
-		if (newProductMap == null) {
-			newProductMap = new HashMap<ProductBarcode, SortedSet<Item>>();
-			this.map.put(destination,
-					newProductMap);
+		ModelLock.lockWrite();
+		try {
+			assert Item.isValid(
+					toMove.getItemBarcode(),
+					toMove.getEntryDate());
+			assert ItemManager.getInstance()
+					.itemExists(
+							toMove.getItemBarcode());
+			assert ProductContainer
+					.isValid(destination.getName());
+
+			moveItems(Collections
+					.singletonList(toMove), destination);
+		} finally {
+			ModelLock.unlockWrite();
 		}
+	}
 
-		SortedSet<Item> newItemSet = newProductMap
-				.get(toMove.getProduct()
-						.getBarcode());
-		if (newItemSet == null) {
-			newItemSet = new TreeSet<Item>();
-			newProductMap.put(toMove.getProduct()
-					.getBarcode(), newItemSet);
+	/**
+	 * Moves items of one product to destination, taking them out of the
+	 * container indexes of each container they came from and putting them
+	 * into destination's in one batch each.
+	 */
+	private void moveItems(List<Item> items,
+			ProductContainer destination) {
+		if (items.isEmpty()) {
+			return;
 		}
-		newItemSet.add(toMove);
-
-		// Remove item from product container map
-		SortedSet<Item> itemList = getProductContainerMap()
-				.get(toMove.getContainer());
-		itemList.remove(toMove);
-
-		// remove item from product container list
-		toMove.getContainer().removeItem(toMove);
-
-		// get the destination list from product container map
-		SortedSet<Item> destinationList = getProductContainerMap()
-				.get(destination);
-		if (destinationList == null) {
-			destinationList = new TreeSet<Item>();
+		ProductBarcode productBarcode = items
+				.get(0).getProduct().getBarcode();
+		Map<ProductContainer, List<Item>> bySource = new LinkedHashMap<ProductContainer, List<Item>>();
+		for (Item item : items) {
+			assert item.getProduct().getBarcode()
+					.equals(productBarcode);
+			List<Item> fromSource = bySource
+					.get(item.getContainer());
+			if (fromSource == null) {
+				fromSource = new ArrayList<Item>();
+				bySource.put(item.getContainer(),
+						fromSource);
+			}
+			fromSource.add(item);
 		}
-		// add item to destination list / product container map
-		destinationList.add(toMove);
-		getProductContainerMap().put(destination,
-				destinationList);
-
-		// add item to list of products in product container
-		destination.addItem(toMove);
-
-		// set the product container of the item to the destination container
-		toMove.setProductContainer(destination);
+		List<Item> moved = new ArrayList<Item>(
+				items.size());
+		for (Map.Entry<ProductContainer, List<Item>> entry : bySource
+				.entrySet()) {
+			ProductContainer source = entry
+					.getKey();
+			this.store.unindexFromContainer(
+					entry.getValue(), source,
+					productBarcode);
+			for (Item item : entry.getValue()) {
+				source.removeItem(item);
+				destination.addItem(item);
+				item.setProductContainer(destination);
+				SessionManager.getInstance()
+						.moveItem(item, destination);
+				moved.add(item);
+			}
+		}
+		Collections.sort(moved);
+		this.store.indexInContainer(moved,
+				destination, productBarcode);
 	}
 
 	// /**
@@ -851,8 +1180,7 @@ public class ItemManager extends Observable
 			Date entryDate) {
 		if ((barcode != null)
 				&& (entryDate != null)) {
-			if (!getItemBarcodeMap().containsKey(
-					barcode)) {
+			if (this.store.getItem(barcode) == null) {
 				if (entryDate.after(new Date(
 						2000 - 1900, 1, 1, 0, 0))
 						&& entryDate
@@ -879,19 +1207,23 @@ public class ItemManager extends Observable
 	public boolean canDeleteProduct(
 			ProductContainer pc,
 			ProductBarcode productBarcode) {
-		assert ProductBarcode
-				.isValid(productBarcode
-						.toString());
-		// return getProductBarcodeMap().get(productBarcode) == null
-		// || getProductBarcodeMap().get(productBarcode).size() == 0;
-		Set<Item> items = getItemsByContainerAndProduct(
-				pc, productBarcode);
-		if ((items == null)
-				|| (items.size() == 0)) {
-			return true;
-		}
+		ModelLock.lockRead();
+		try {
+			assert ProductBarcode
+					.isValid(productBarcode);
+			// return getProductBarcodeMap().get(productBarcode) == null
+			// || getProductBarcodeMap().get(productBarcode).size() == 0;
+			Set<Item> items = getItemsByContainerAndProduct(
+					pc, productBarcode);
+			if ((items == null)
+					|| (items.size() == 0)) {
+				return true;
+			}
 
-		return false;
+			return false;
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	/**
@@ -901,40 +1233,56 @@ public class ItemManager extends Observable
 	 * @return item barcode
 	 */
 	public ItemBarcode generateItemBarcode() {
-		int itemBarcodeValue = getItemBarcodeMap()
-				.keySet().size();
-		StringBuilder sb = new StringBuilder();
-		sb.append("4");
-		for (int c = 0; c < (12 - 2 - Integer
-				.toString(itemBarcodeValue)
-				.length()); c++) {
-			sb.append("0");
-		}
-		sb.append(itemBarcodeValue);
-		int oddValues = 0;
-		int evenValues = 0;
-		for (int c = 0; c < sb.length(); c++) {
-			if ((c % 2) == 0) {
-				oddValues += Integer
-						.parseInt(Character.toString(sb
-								.charAt(c)));
-			} else {
-				evenValues += Integer
-						.parseInt(Character.toString(sb
-								.charAt(c)));
+		return generateItemBarcodes(1).get(0);
+	}
+
+	/**
+	 * Reserves count new item barcodes at once. None of them can match a
+	 * barcode already in use, so callers do not have to check them.
+	 * 
+	 * @pre count >= 0
+	 * @post the barcodes will not be handed out again
+	 * @param count
+	 *            how many barcodes are needed
+	 * @return count unused item barcodes
+	 */
+	public List<ItemBarcode> generateItemBarcodes(
+			int count) {
+		ModelLock.lockWrite();
+		try {
+			if (!this.historyLoaded
+					&& !this.historyBarcodesReserved) {
+				// consumed barcodes count too, so they have to be known
+				ensureHistoryLoaded();
 			}
+			return this.barcodeAllocator
+					.allocate(count);
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		int checkSum = oddValues * 3;
-		checkSum += evenValues;
-		checkSum = checkSum % 10;
-		checkSum = 10 - checkSum;
-		// possibly wrong
-		if (checkSum == 10) {
-			checkSum = 0;
-		}
-		// end
-		sb.append(checkSum);
-		return new ItemBarcode(sb.toString());
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the allocator new item barcodes come from
+	 */
+	public ItemBarcodeAllocator getBarcodeAllocator() {
+		return this.barcodeAllocator;
+	}
+
+	/**
+	 * Moves the barcode counter to a value saved with the inventory. The saved
+	 * value covers consumed items as well, so new barcodes can be handed out
+	 * without loading the history.
+	 * 
+	 * @pre next >= 0
+	 * @post barcodes below next will not be handed out
+	 * @param next
+	 */
+	void reserveItemBarcodes(long next) {
+		this.barcodeAllocator.advanceTo(next);
+		this.historyBarcodesReserved = true;
 	}
 
 	/**
@@ -949,14 +1297,15 @@ public class ItemManager extends Observable
 	 *         with barcode exists.
 	 */
 	public boolean itemExists(ItemBarcode barcode) {
-		// assert ItemBarcode.isValid(barcode);
-		if (getItemBarcodeMap().containsKey(
-				barcode)
-				&& (getItemBarcodeMap().get(
-						barcode).getContainer() != ProductContainer.CONSUMED_ITEMS)) {
-			return true;
+		ModelLock.lockRead();
+		try {
+			// assert ItemBarcode.isValid(barcode);
+			Item item = this.store.getItem(barcode);
+			return (item != null)
+					&& (item.getContainer() != ProductContainer.CONSUMED_ITEMS);
+		} finally {
+			ModelLock.unlockRead();
 		}
-		return false;
 	}
 
 	/**
@@ -993,41 +1342,6 @@ public class ItemManager extends Observable
 		}
 	}
 
-	/**
-	 * Writes the data object to the object output stream
-	 * 
-	 * @param objectOut
-	 *            objectOut object that you write your object data to.
-	 * @pre object out is not null
-	 * @post true
-	 */
-	@Override
-	public void writeObjects(
-			ObjectOutputStream objectOut) {
-		assert objectOut != null;
-		try {
-			DataObject data = new DataObject(
-					getItemBarcodeMap(),
-					getProductBarcodeMap(),
-					getProductContainerMap(),
-					this.map);
-
-			File mapFile = new File(
-					"savedMap.txt");
-			if (!mapFile.exists()) {
-				mapFile.createNewFile();
-			}
-			PrintWriter fout = new PrintWriter(
-					mapFile);
-			fout.write(this.map.toString());
-			fout.close();
-
-			objectOut.writeObject(data);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
 	/**
 	 * Reads the object from the ObjectInputStream and initializes it properly.
 	 * 
@@ -1042,15 +1356,13 @@ public class ItemManager extends Observable
 		try {
 			DataObject data = (DataObject) objectIn
 					.readObject();
-			setItemBarcodeMap(data.itemBarcodeMap);
-			setProductBarcodeMap(data.productBarcodeMap);
-			setProductContainerMap(data.productContainerMap);
-			// HashMapWriter hmw = new HashMapWriter(data.keyList,
-			// data.valueList);
-
-			// hmw.loadMap(this.map);
-			// System.out.println("bigmap: " + data.bigMap);
-			this.map = data.bigMap;
+			// older files keep consumed items in the live maps, so the
+			// indexes are rebuilt from the items themselves
+			clear();
+			for (Item item : data.itemBarcodeMap
+					.values()) {
+				indexItem(item);
+			}
 
 			File mapFile = new File(
 					"loadedMap.txt");
@@ -1059,9 +1371,9 @@ public class ItemManager extends Observable
 			}
 			PrintWriter fout = new PrintWriter(
 					mapFile);
-			fout.write(this.map.toString());
+			fout.write(data.itemBarcodeMap
+					.toString());
 			fout.close();
-			// System.out.println("bigmap: " + this.map);
 
 		} catch (Exception e) { // ClassNotFoundException | IOException
 			// e.printStackTrace();
@@ -1089,164 +1401,188 @@ public class ItemManager extends Observable
 	 * @return
 	 */
 	public String printTest() {
-		Set<ItemBarcode> itemBarcodes = getItemBarcodeMap()
-				.keySet();
-		Iterator<ItemBarcode> iter = itemBarcodes
-				.iterator();
 		StringBuilder output = new StringBuilder();
-		while (iter.hasNext()) {
-			output.append(iter.next());
+		for (Item item : this.store.getItems()) {
+			output.append(item.getItemBarcode());
 			output.append(", ");
 		}
 		return output.toString();
 	}
 
-	/**
-	 * Test method
-	 */
-	public HashMap<ProductContainer, SortedSet<Item>> getContainerMap() {
-		return getProductContainerMap();
-	}
-
 	/**
 	 * test method
 	 * 
 	 * @return
 	 */
 	public int getNumberItems() {
-		return getItemBarcodeMap().keySet()
-				.size();
+		ModelLock.lockRead();
+		try {
+			return this.store.size();
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	/**
 	 * test method
 	 */
 	public void clear() {
-		getItemBarcodeMap().clear();
-		getProductContainerMap().clear();
-		getProductBarcodeMap().clear();
-		this.map.clear();
-	}
-
-	public Set<Item> getItemsByProduct(
-			Product product) {
-		SortedSet<Item> items = this.productBarcodeMap
-				.get(product.getBarcode());
-		return items;
-	}
-
-	public HashMap<ProductContainer, SortedSet<Item>> getProductContainerMap() {
-		return this.productContainerMap;
-	}
-
-	public void setProductContainerMap(
-			HashMap<ProductContainer, SortedSet<Item>> productContainerMap) {
-		this.productContainerMap = productContainerMap;
-	}
-
-	public HashMap<ItemBarcode, Item> getItemBarcodeMap() {
-		return this.itemBarcodeMap;
+		ModelLock.lockWrite();
+		try {
+			this.store.clear();
+			// snapshots may still be reading the old history
+			this.consumedByExitTime = new ArrayList<Item>();
+			this.consumedByProduct.clear();
+			this.shared.clear();
+			this.expirations.clear();
+			this.historyLoaded = true;
+			this.barcodeAllocator.reset();
+			this.historyBarcodesReserved = false;
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
-	public void setItemBarcodeMap(
-			HashMap<ItemBarcode, Item> itemBarcodeMap) {
-		this.itemBarcodeMap = itemBarcodeMap;
+	/**
+	 * Finds the live items that have expired by date.
+	 * 
+	 * @pre date is not null
+	 * @post true
+	 * @param date
+	 * @return the items whose expiration date is before date, ordered by
+	 *         expiration date
+	 */
+	public List<Item> getExpiredItems(Date date) {
+		ModelLock.lockRead();
+		try {
+			return this.expirations.getExpiredBy(date);
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
-	public HashMap<ProductBarcode, SortedSet<Item>> getProductBarcodeMap() {
-		return this.productBarcodeMap;
+	/**
+	 * Finds the live items that expire in [from, to), such as the items about
+	 * to expire.
+	 * 
+	 * @pre from and to are not null
+	 * @post true
+	 * @param from
+	 *            earliest expiration date included
+	 * @param to
+	 *            expiration dates before this are included
+	 * @return the items, ordered by expiration date
+	 */
+	public List<Item> getItemsExpiringBetween(
+			Date from, Date to) {
+		ModelLock.lockRead();
+		try {
+			return this.expirations
+					.getExpiringBetween(from, to);
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
-	public void setProductBarcodeMap(
-			HashMap<ProductBarcode, SortedSet<Item>> productBarcodeMap) {
-		this.productBarcodeMap = productBarcodeMap;
+	public Set<Item> getItemsByProduct(
+			Product product) {
+		ModelLock.lockRead();
+		try {
+			return this.store.getByProduct(product
+					.getBarcode());
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	public Set<Item> getItemsByContainerAndProduct(
 			ProductContainer pc,
 			ProductBarcode productBarcode) {
-		HashMap<ProductBarcode, SortedSet<Item>> pMap = this.map
-				.get(pc);
-		if ((pMap == null)
-				|| (pMap.get(productBarcode) == null)) {
-			return new HashSet<Item>();
+		ModelLock.lockRead();
+		try {
+			Set<Item> items = this.store
+					.getByContainerAndProduct(pc,
+							productBarcode);
+			if (items == null) {
+				return new HashSet<Item>();
+			}
+			return items;
+		} finally {
+			ModelLock.unlockRead();
 		}
-		return pMap.get(productBarcode);
 	}
 
 	public Item getItemByBarcode(
 			ItemBarcode itemBarcode) {
-		return this.itemBarcodeMap
-				.get(itemBarcode);
+		ModelLock.lockRead();
+		try {
+			return this.store.getItem(itemBarcode);
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	public HashMap<ProductBarcode, Integer> getProductCountMap() {
-		HashMap<ProductBarcode, Integer> countMap = new HashMap<ProductBarcode, Integer>();
-		Iterator<ProductBarcode> iter = this.productBarcodeMap
-				.keySet().iterator();
-		while (iter.hasNext()) {
-			// Product curProduct =
-			// ProductManager.getInstance().getProductByBarcode(iter.next());
-			ProductBarcode curBarcode = iter
-					.next();
-			Set<Item> curItemSet = this.productBarcodeMap
-					.get(curBarcode);
-			int count = 0;
-			if (curItemSet != null) {
-				for (Item i : curItemSet) {
-					if (i.getContainer() != ProductContainer.CONSUMED_ITEMS) {
-						count++;
-					}
-				}
-				countMap.put(curBarcode, count);
-			} else {
-				countMap.put(curBarcode, 0);
+		ModelLock.lockRead();
+		try {
+			HashMap<ProductBarcode, Integer> countMap = new HashMap<ProductBarcode, Integer>();
+			for (ProductBarcode curBarcode : this.store
+					.getIndexedProducts()) {
+				countMap.put(curBarcode,
+						getLiveItemCount(curBarcode));
 			}
+			return countMap;
+		} finally {
+			ModelLock.unlockRead();
 		}
-		return countMap;
 	}
 
-	public void setChangedOverride() {
-		setChanged();
+	/**
+	 * Counts the items of a product that have not been consumed. The item sets
+	 * know their own sizes, so this doesn't look at any items.
+	 * 
+	 * @pre productBarcode is not null
+	 * @post true
+	 * @param productBarcode
+	 * @return number of live items of the product
+	 */
+	public int getLiveItemCount(
+			ProductBarcode productBarcode) {
+		ModelLock.lockRead();
+		try {
+			SortedSet<Item> items = this.store
+					.getByProduct(productBarcode);
+			return items == null ? 0 : items.size();
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
-	public void updateContainerChange(
-			ProductContainer newContainer,
-			String oldName) {
-		// productContainerMap
-		// map
-		System.out.println("updating stuff");
-		Set<ProductContainer> pcKeySet = this.productContainerMap
-				.keySet();
-		Iterator<ProductContainer> iter = pcKeySet
-				.iterator();
-		while (iter.hasNext()) {
-			ProductContainer cur = iter.next();
-			if ((cur != null)
-					&& cur.getName().equals(
-							oldName)) {
-				SortedSet<Item> items = this.productContainerMap
-						.remove(cur);
-				this.productContainerMap.put(
-						newContainer, items);
-			}
+	/**
+	 * Counts the items of a product sitting directly in a container.
+	 * 
+	 * @pre productBarcode is not null
+	 * @post true
+	 * @param container
+	 *            the container
+	 * @param productBarcode
+	 * @return number of items of the product in the container
+	 */
+	public int getItemCount(
+			ProductContainer container,
+			ProductBarcode productBarcode) {
+		ModelLock.lockRead();
+		try {
+			SortedSet<Item> items = this.store
+					.getByContainerAndProduct(
+							container, productBarcode);
+			return items == null ? 0 : items.size();
+		} finally {
+			ModelLock.unlockRead();
 		}
+	}
 
-		this.map.keySet();
-		Iterator<ProductContainer> iter2 = pcKeySet
-				.iterator();
-		while (iter2.hasNext()) {
-			ProductContainer cur = iter2.next();
-			if ((cur != null)
-					&& cur.getName().equals(
-							oldName)) {
-				// SortedSet<Item> items = productContainerMap.remove(cur);
-				HashMap<ProductBarcode, SortedSet<Item>> curMap = this.map
-						.remove(cur);
-				this.map.put(newContainer, curMap);
-			}
-		}
+	public void setChangedOverride() {
 		setChanged();
-		this.notifyObservers(new ItemNotifier());
 	}
 }
@@ -0,0 +1,475 @@
+package model.managers;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+import model.models.Item;
+
+/**
+ * One bucket of an ItemStore index: the ids of some items, kept in an int
+ * array in the items' natural order. Outside the model it is a read-only
+ * SortedSet of the items; the ItemStore changes it through the package
+ * methods.
+ *
+ * The ids sit in the middle of the array, so taking items off either end,
+ * such as the oldest item when it is consumed, moves nothing, and an insert or
+ * removal anywhere else moves the shorter side only.
+ *
+ * @author Group1
+ */
+class ItemSet extends AbstractSet<Item> implements
+		SortedSet<Item> {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private final ItemStore store;
+
+	private int[] ids;
+
+	private int head;
+
+	private int size;
+
+	private int modCount;
+
+	/**
+	 * @pre store is not null
+	 * @post isEmpty()
+	 */
+	ItemSet(ItemStore store) {
+		this.store = store;
+		this.ids = new int[INITIAL_CAPACITY];
+		this.head = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * @pre other is not null
+	 * @post this set holds the same items as other
+	 */
+	ItemSet(ItemSet other) {
+		this.store = other.store;
+		this.ids = Arrays.copyOfRange(other.ids,
+				other.head, other.head
+						+ Math.max(other.size,
+								INITIAL_CAPACITY));
+		this.head = 0;
+		this.size = other.size;
+	}
+
+	/**
+	 * @pre item has id in the store and doesn't change where it sorts while
+	 *      it is in the set
+	 * @post contains(item)
+	 * @return false if item was already in the set
+	 */
+	boolean insert(Item item, int id) {
+		int index;
+		if ((this.size == 0)
+				|| (get(this.size - 1).compareTo(
+						item) < 0)) {
+			index = this.size;
+		} else {
+			index = lowerBound(item);
+			if ((index < this.size)
+					&& (get(index).compareTo(item) == 0)) {
+				return false;
+			}
+		}
+		insertAt(index, id);
+		return true;
+	}
+
+	/**
+	 * Adds a batch of items. A batch that sorts after everything in the set,
+	 * such as new items entered now, is appended; any other batch is merged
+	 * in one pass.
+	 *
+	 * @pre items are in natural order, none is in the set yet, and ids holds
+	 *      their ids in the same order
+	 * @post every item is in the set
+	 */
+	void insertAll(List<Item> items, int[] ids) {
+		if (items.isEmpty()) {
+			return;
+		}
+		this.modCount++;
+		int total = this.size + items.size();
+		if ((this.size == 0)
+				|| (get(this.size - 1).compareTo(
+						items.get(0)) < 0)) {
+			ensureTail(items.size());
+			System.arraycopy(ids, 0, this.ids,
+					this.head + this.size, ids.length);
+			this.size = total;
+			return;
+		}
+
+		int[] merged = new int[capacityFor(total)];
+		int mine = 0;
+		int theirs = 0;
+		for (int c = 0; c < total; c++) {
+			if ((theirs == ids.length)
+					|| ((mine < this.size) && (get(mine)
+							.compareTo(items.get(theirs)) < 0))) {
+				merged[c] = this.ids[this.head + mine++];
+			} else {
+				merged[c] = ids[theirs++];
+			}
+		}
+		this.ids = merged;
+		this.head = 0;
+		this.size = total;
+	}
+
+	/**
+	 * @pre item sorts where it did when it was inserted
+	 * @post !contains(item)
+	 * @return false if item wasn't in the set
+	 */
+	boolean delete(Item item) {
+		int index = lowerBound(item);
+		if ((index == this.size)
+				|| (get(index).compareTo(item) != 0)) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Removes a batch of items in one pass over the set.
+	 *
+	 * @pre every item sorts where it did when it was inserted
+	 * @post none of the items is in the set
+	 */
+	void deleteAll(Collection<Item> items) {
+		boolean[] doomed = new boolean[this.size];
+		int count = 0;
+		for (Item item : items) {
+			int index = lowerBound(item);
+			if ((index < this.size)
+					&& !doomed[index]
+					&& (get(index).compareTo(item) == 0)) {
+				doomed[index] = true;
+				count++;
+			}
+		}
+		if (count == 0) {
+			return;
+		}
+		this.modCount++;
+		int kept = 0;
+		for (int c = 0; c < this.size; c++) {
+			if (!doomed[c]) {
+				this.ids[this.head + kept++] = this.ids[this.head
+						+ c];
+			}
+		}
+		this.size = kept;
+		trim();
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean contains(Object obj) {
+		if (!(obj instanceof Item)) {
+			return false;
+		}
+		Item item = (Item) obj;
+		int index = lowerBound(item);
+		return (index < this.size)
+				&& (get(index).compareTo(item) == 0);
+	}
+
+	@Override
+	public Iterator<Item> iterator() {
+		return new Cursor(0, this.size);
+	}
+
+	@Override
+	public Comparator<? super Item> comparator() {
+		return null;
+	}
+
+	@Override
+	public Item first() {
+		if (this.size == 0) {
+			throw new NoSuchElementException();
+		}
+		return get(0);
+	}
+
+	@Override
+	public Item last() {
+		if (this.size == 0) {
+			throw new NoSuchElementException();
+		}
+		return get(this.size - 1);
+	}
+
+	@Override
+	public SortedSet<Item> headSet(Item toElement) {
+		return new Range(null, toElement);
+	}
+
+	@Override
+	public SortedSet<Item> tailSet(
+			Item fromElement) {
+		return new Range(fromElement, null);
+	}
+
+	@Override
+	public SortedSet<Item> subSet(
+			Item fromElement, Item toElement) {
+		return new Range(fromElement, toElement);
+	}
+
+	private Item get(int index) {
+		return this.store.getItem(this.ids[this.head
+				+ index]);
+	}
+
+	/**
+	 * Binary search for the first position whose item doesn't sort before
+	 * item.
+	 */
+	private int lowerBound(Item item) {
+		int low = 0;
+		int high = this.size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (get(mid).compareTo(item) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void insertAt(int index, int id) {
+		this.modCount++;
+		if ((index < (this.size / 2))
+				&& (this.head > 0)) {
+			System.arraycopy(this.ids, this.head,
+					this.ids, this.head - 1, index);
+			this.head--;
+		} else {
+			ensureTail(1);
+			System.arraycopy(this.ids, this.head
+					+ index, this.ids, this.head
+					+ index + 1, this.size - index);
+		}
+		this.ids[this.head + index] = id;
+		this.size++;
+	}
+
+	private void removeAt(int index) {
+		this.modCount++;
+		if (index < (this.size / 2)) {
+			System.arraycopy(this.ids, this.head,
+					this.ids, this.head + 1, index);
+			this.head++;
+		} else {
+			System.arraycopy(this.ids, this.head
+					+ index + 1, this.ids, this.head
+					+ index, this.size - index - 1);
+		}
+		this.size--;
+		trim();
+	}
+
+	/**
+	 * Makes room for count more ids after the last one, moving the ids to the
+	 * front of the array or into a bigger one.
+	 */
+	private void ensureTail(int count) {
+		if ((this.head + this.size + count) <= this.ids.length) {
+			return;
+		}
+		int needed = this.size + count;
+		int[] target = (needed <= (this.ids.length / 2 + 1)) ? this.ids
+				: new int[capacityFor(needed)];
+		System.arraycopy(this.ids, this.head,
+				target, 0, this.size);
+		this.ids = target;
+		this.head = 0;
+	}
+
+	// gives back most of the array once the set has shrunk to a quarter of it
+	private void trim() {
+		if (this.size == 0) {
+			this.head = 0;
+		}
+		if ((this.ids.length > INITIAL_CAPACITY)
+				&& (this.size < (this.ids.length / 4))) {
+			this.ids = Arrays.copyOfRange(this.ids,
+					this.head, this.head
+							+ capacityFor(this.size));
+			this.head = 0;
+		}
+	}
+
+	private static int capacityFor(int size) {
+		return Math.max(INITIAL_CAPACITY, size
+				+ (size >> 1));
+	}
+
+	private class Cursor implements
+			Iterator<Item> {
+
+		private int next;
+
+		private final int end;
+
+		private final int expectedModCount;
+
+		Cursor(int from, int to) {
+			this.next = from;
+			this.end = to;
+			this.expectedModCount = ItemSet.this.modCount;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next < this.end;
+		}
+
+		@Override
+		public Item next() {
+			if (this.expectedModCount != ItemSet.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (this.next >= this.end) {
+				throw new NoSuchElementException();
+			}
+			return get(this.next++);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * The part of the set from lo (inclusive) to hi (exclusive); a null bound
+	 * is open. It follows changes to the set like the views of a TreeSet.
+	 */
+	private class Range extends AbstractSet<Item>
+			implements SortedSet<Item> {
+
+		private final Item lo;
+
+		private final Item hi;
+
+		Range(Item lo, Item hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		private int start() {
+			return (this.lo == null) ? 0
+					: lowerBound(this.lo);
+		}
+
+		private int end() {
+			return Math.max(start(),
+					(this.hi == null) ? ItemSet.this.size
+							: lowerBound(this.hi));
+		}
+
+		private boolean inRange(Item item) {
+			return ((this.lo == null) || (this.lo
+					.compareTo(item) <= 0))
+					&& ((this.hi == null) || (item
+							.compareTo(this.hi) < 0));
+		}
+
+		@Override
+		public int size() {
+			return end() - start();
+		}
+
+		@Override
+		public boolean contains(Object obj) {
+			return (obj instanceof Item)
+					&& inRange((Item) obj)
+					&& ItemSet.this.contains(obj);
+		}
+
+		@Override
+		public Iterator<Item> iterator() {
+			return new Cursor(start(), end());
+		}
+
+		@Override
+		public Comparator<? super Item> comparator() {
+			return null;
+		}
+
+		@Override
+		public Item first() {
+			int start = start();
+			if (start == end()) {
+				throw new NoSuchElementException();
+			}
+			return get(start);
+		}
+
+		@Override
+		public Item last() {
+			int end = end();
+			if (start() == end) {
+				throw new NoSuchElementException();
+			}
+			return get(end - 1);
+		}
+
+		@Override
+		public SortedSet<Item> headSet(
+				Item toElement) {
+			return new Range(this.lo, min(this.hi,
+					toElement));
+		}
+
+		@Override
+		public SortedSet<Item> tailSet(
+				Item fromElement) {
+			return new Range(max(this.lo,
+					fromElement), this.hi);
+		}
+
+		@Override
+		public SortedSet<Item> subSet(
+				Item fromElement, Item toElement) {
+			return new Range(max(this.lo,
+					fromElement), min(this.hi,
+					toElement));
+		}
+
+		private Item min(Item bound, Item other) {
+			return ((bound == null) || (other
+					.compareTo(bound) < 0)) ? other
+					: bound;
+		}
+
+		private Item max(Item bound, Item other) {
+			return ((bound == null) || (other
+					.compareTo(bound) > 0)) ? other
+					: bound;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import model.models.Item;
+import model.models.Product;
+import model.models.barcode.ProductBarcode;
+import model.models.productContainer.ProductContainer;
+
+/**
+ * A frozen copy of the ItemManager indexes and the ProductManager's
+ * product-container links, taken with ItemManager.snapshot(). A report can
+ * read it on any thread, without the ModelLock, while the model keeps
+ * changing.
+ * 
+ * The snapshot fixes which items each index holds, the list of products and
+ * which containers each product is in. The Item and Product objects are the
+ * live ones, so an edit to an item's own fields, such as its entry date,
+ * still shows through. The containers' own contents, such as their product
+ * groups, are not part of the snapshot.
+ * 
+ * @author Group1
+ */
+public class ItemSnapshot {
+
+	private final Map<ProductBarcode, SortedSet<Item>> byProduct;
+
+	private final Map<ProductContainer, SortedSet<Item>> byContainer;
+
+	private final List<Item> consumed;
+
+	private final Map<ProductBarcode, ArrayList<Item>> consumedByProduct;
+
+	private final List<Product> products;
+
+	private final ProductLinks links;
+
+	private final Date taken;
+
+	ItemSnapshot(
+			Map<ProductBarcode, SortedSet<Item>> byProduct,
+			Map<ProductContainer, SortedSet<Item>> byContainer,
+			List<Item> consumed,
+			Map<ProductBarcode, ArrayList<Item>> consumedByProduct,
+			List<Product> products,
+			ProductLinks links) {
+		this.byProduct = byProduct;
+		this.byContainer = byContainer;
+		this.consumed = consumed;
+		this.consumedByProduct = consumedByProduct;
+		this.products = products;
+		this.links = links;
+		this.taken = new Date();
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return when the snapshot was taken
+	 */
+	public Date getTaken() {
+		return new Date(this.taken.getTime());
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return every product the ProductManager knew about
+	 */
+	public List<Product> getProducts() {
+		return Collections
+				.unmodifiableList(this.products);
+	}
+
+	/**
+	 * @pre container is not null
+	 * @post true
+	 * @return the products in container, sorted by description
+	 */
+	public SortedSet<Product> getProductsByContainer(
+			ProductContainer container) {
+		SortedSet<Product> products = this.links
+				.getProducts(container);
+		if (products == null) {
+			return Collections
+					.unmodifiableSortedSet(new TreeSet<Product>());
+		}
+		return Collections
+				.unmodifiableSortedSet(products);
+	}
+
+	/**
+	 * @pre product is not null
+	 * @post true
+	 * @return the containers product is in
+	 */
+	public Set<ProductContainer> getContainers(
+			Product product) {
+		Set<ProductContainer> containers = this.links
+				.getContainers(product.getBarcode());
+		if (containers == null) {
+			return Collections.emptySet();
+		}
+		return Collections
+				.unmodifiableSet(containers);
+	}
+
+	/**
+	 * @pre product is not null
+	 * @post true
+	 * @return the live items of product
+	 */
+	public SortedSet<Item> getItemsByProduct(
+			Product product) {
+		return frozen(this.byProduct.get(product
+				.getBarcode()));
+	}
+
+	/**
+	 * @pre container is not null
+	 * @post true
+	 * @return the live items directly in container
+	 */
+	public SortedSet<Item> getItemsByContainer(
+			ProductContainer container) {
+		return frozen(this.byContainer
+				.get(container));
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of live items
+	 */
+	public int getItemCount() {
+		int count = 0;
+		for (SortedSet<Item> items : this.byProduct
+				.values()) {
+			count += items.size();
+		}
+		return count;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return every consumed item, ordered by exit time
+	 */
+	public List<Item> getConsumedItems() {
+		return Collections
+				.unmodifiableList(this.consumed);
+	}
+
+	/**
+	 * @pre product is not null
+	 * @post true
+	 * @return the consumed items of product, ordered by exit time
+	 */
+	public List<Item> getConsumedItemsByProduct(
+			Product product) {
+		ArrayList<Item> items = this.consumedByProduct
+				.get(product.getBarcode());
+		if (items == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(items);
+	}
+
+	/**
+	 * @pre from and to are not null
+	 * @post true
+	 * @param from
+	 *            earliest exit time included
+	 * @param to
+	 *            exit times before this are included
+	 * @return the items consumed in the range, ordered by exit time
+	 */
+	public List<Item> getConsumedItemsBetween(
+			Date from, Date to) {
+		int start = ItemManager.exitTimeIndex(
+				this.consumed, from.getTime());
+		int end = Math.max(start, ItemManager
+				.exitTimeIndex(this.consumed,
+						to.getTime()));
+		return Collections
+				.unmodifiableList(this.consumed
+						.subList(start, end));
+	}
+
+	private static SortedSet<Item> frozen(
+			SortedSet<Item> items) {
+		if (items == null) {
+			return Collections
+					.unmodifiableSortedSet(new TreeSet<Item>());
+		}
+		return Collections
+				.unmodifiableSortedSet(items);
+	}
+}
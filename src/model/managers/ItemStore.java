@@ -0,0 +1,500 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+import model.models.Item;
+import model.models.barcode.ItemBarcode;
+import model.models.barcode.ProductBarcode;
+import model.models.productContainer.ProductContainer;
+
+import common.util.IntMap;
+
+/**
+ * The item tables behind the ItemManager. Every item it is given, live or
+ * consumed, gets a dense int id, its slot in one array of items. Products are
+ * numbered the same way, and containers are known by their ids. The live
+ * items are indexed by product, by container and by both, each index holding
+ * ItemSets of item ids, and items are found by barcode through an
+ * open-addressed table of ids. Apart from the item array there is no object
+ * per item in any of these tables.
+ *
+ * The store only keeps the tables; the ItemManager decides what goes in them
+ * and takes the ModelLock. Item sets handed to a snapshot are copied before
+ * their next change instead of being changed in place.
+ *
+ * @author Group1
+ */
+class ItemStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// replaced, never changed below an id in use, when it grows; snapshot
+	// readers on other threads go through it
+	private volatile Item[] items;
+
+	private int itemCount;
+
+	// id + 1 of the item with each barcode, 0 where the slot is free
+	private int[] barcodeTable;
+
+	private HashMap<ProductBarcode, Integer> productIds;
+
+	private ProductBarcode[] productBarcodes;
+
+	// by product id; null until the product's first item is indexed
+	private ItemSet[] byProduct;
+
+	private IntMap<ItemSet> byContainer;
+
+	private IntMap<IntMap<ItemSet>> byContainerAndProduct;
+
+	private IntMap<ProductContainer> containers;
+
+	private Set<ItemSet> shared;
+
+	/**
+	 * @pre true
+	 * @post the store is empty
+	 */
+	ItemStore() {
+		this.shared = Collections
+				.newSetFromMap(new IdentityHashMap<ItemSet, Boolean>());
+		clear();
+	}
+
+	/**
+	 * @pre true
+	 * @post the store is empty
+	 */
+	void clear() {
+		this.items = new Item[INITIAL_CAPACITY];
+		this.itemCount = 0;
+		this.barcodeTable = new int[INITIAL_CAPACITY * 2];
+		this.productIds = new HashMap<ProductBarcode, Integer>();
+		this.productBarcodes = new ProductBarcode[INITIAL_CAPACITY];
+		clearIndexes();
+	}
+
+	/**
+	 * Drops the live indexes but keeps every item and its id.
+	 *
+	 * @pre true
+	 * @post no item is indexed
+	 */
+	void clearIndexes() {
+		this.byProduct = new ItemSet[this.productBarcodes.length];
+		this.byContainer = new IntMap<ItemSet>();
+		this.byContainerAndProduct = new IntMap<IntMap<ItemSet>>();
+		this.containers = new IntMap<ProductContainer>();
+		this.shared.clear();
+	}
+
+	/**
+	 * Gives item an id unless an item with its barcode already has one.
+	 *
+	 * @pre item is not null
+	 * @post getItem(item.getItemBarcode()) is not null
+	 * @return the id of the item with item's barcode
+	 */
+	int register(Item item) {
+		int id = find(item.getItemBarcode());
+		if (id >= 0) {
+			return id;
+		}
+		id = this.itemCount;
+		if (id == this.items.length) {
+			this.items = Arrays.copyOf(this.items,
+					id + (id >> 1));
+		}
+		this.items[id] = item;
+		this.itemCount++;
+		if ((this.itemCount * 4) > (this.barcodeTable.length * 3)) {
+			rehash(this.barcodeTable.length * 2);
+		} else {
+			place(this.barcodeTable, id);
+		}
+		return id;
+	}
+
+	/**
+	 * @pre 0 <= id < size()
+	 * @post true
+	 * @return the item with id
+	 */
+	Item getItem(int id) {
+		return this.items[id];
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the item with barcode, live or consumed, or null
+	 */
+	Item getItem(ItemBarcode barcode) {
+		int id = find(barcode);
+		return (id < 0) ? null : this.items[id];
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of items with an id
+	 */
+	int size() {
+		return this.itemCount;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return every item with an id, in id order
+	 */
+	List<Item> getItems() {
+		return Arrays.asList(
+				Arrays.copyOf(this.items, this.itemCount));
+	}
+
+	/**
+	 * Puts a live item into the indexes under its product and container.
+	 *
+	 * @pre item is live and registered
+	 * @post item is indexed
+	 */
+	void index(Item item) {
+		int id = find(item.getItemBarcode());
+		assert id >= 0 : "Item isn't registered";
+		int product = productId(item.getProduct()
+				.getBarcode());
+		int container = containerId(item
+				.getContainer());
+		writableByProduct(product).insert(item, id);
+		writable(this.byContainer, container)
+				.insert(item, id);
+		writable(pairs(container), product).insert(
+				item, id);
+	}
+
+	/**
+	 * Indexes a batch of new items of one product in one container.
+	 *
+	 * @pre items are live and registered, in natural order, of one product
+	 *      and in one container
+	 * @post every item is indexed
+	 */
+	void indexAll(List<Item> items) {
+		if (items.isEmpty()) {
+			return;
+		}
+		int[] ids = new int[items.size()];
+		for (int c = 0; c < ids.length; c++) {
+			ids[c] = find(items.get(c)
+					.getItemBarcode());
+			assert ids[c] >= 0 : "Item isn't registered";
+		}
+		Item first = items.get(0);
+		int product = productId(first.getProduct()
+				.getBarcode());
+		int container = containerId(first
+				.getContainer());
+		writableByProduct(product).insertAll(items,
+				ids);
+		writable(this.byContainer, container)
+				.insertAll(items, ids);
+		writable(pairs(container), product)
+				.insertAll(items, ids);
+	}
+
+	/**
+	 * Takes a live item out of the indexes.
+	 *
+	 * @pre item is indexed under its current product and container and sorts
+	 *      where it did when it was indexed
+	 * @post item isn't indexed
+	 */
+	void unindex(Item item) {
+		int product = productId(item.getProduct()
+				.getBarcode());
+		int container = item.getContainer().getId();
+		writableByProduct(product).delete(item);
+		writable(this.byContainer, container)
+				.delete(item);
+		writable(pairs(container), product).delete(
+				item);
+	}
+
+	/**
+	 * Takes a batch of live items of one product out of the indexes of one
+	 * container. They stay indexed under their product.
+	 *
+	 * @pre the items are of one product and indexed under container
+	 * @post none of the items is indexed under container
+	 */
+	void unindexFromContainer(
+			Collection<Item> items,
+			ProductContainer container,
+			ProductBarcode productBarcode) {
+		int id = container.getId();
+		writable(this.byContainer, id).deleteAll(
+				items);
+		writable(pairs(id),
+				productId(productBarcode))
+				.deleteAll(items);
+	}
+
+	/**
+	 * Indexes a batch of live items of one product under their new container.
+	 * They are already indexed under their product.
+	 *
+	 * @pre the items are of one product, in natural order, and their container
+	 *      is container
+	 * @post the items are indexed under container
+	 */
+	void indexInContainer(List<Item> items,
+			ProductContainer container,
+			ProductBarcode productBarcode) {
+		int[] ids = new int[items.size()];
+		for (int c = 0; c < ids.length; c++) {
+			ids[c] = find(items.get(c)
+					.getItemBarcode());
+		}
+		int id = containerId(container);
+		writable(this.byContainer, id).insertAll(
+				items, ids);
+		writable(pairs(id),
+				productId(productBarcode))
+				.insertAll(items, ids);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the live items of the product, or null if none were ever
+	 *         indexed
+	 */
+	SortedSet<Item> getByProduct(
+			ProductBarcode productBarcode) {
+		Integer product = this.productIds
+				.get(productBarcode);
+		return (product == null) ? null
+				: this.byProduct[product];
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the live items directly in container, or null if none were ever
+	 *         indexed
+	 */
+	SortedSet<Item> getByContainer(
+			ProductContainer container) {
+		return (container == null) ? null
+				: this.byContainer.get(container
+						.getId());
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the live items of the product directly in container, or null if
+	 *         none were ever indexed
+	 */
+	SortedSet<Item> getByContainerAndProduct(
+			ProductContainer container,
+			ProductBarcode productBarcode) {
+		if (container == null) {
+			return null;
+		}
+		IntMap<ItemSet> byProduct = this.byContainerAndProduct
+				.get(container.getId());
+		Integer product = this.productIds
+				.get(productBarcode);
+		return ((byProduct == null) || (product == null)) ? null
+				: byProduct.get(product);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the barcode of every product that has had live items indexed
+	 */
+	List<ProductBarcode> getIndexedProducts() {
+		List<ProductBarcode> indexed = new ArrayList<ProductBarcode>();
+		for (int c = 0; c < this.productIds.size(); c++) {
+			if (this.byProduct[c] != null) {
+				indexed.add(this.productBarcodes[c]);
+			}
+		}
+		return indexed;
+	}
+
+	/**
+	 * Marks every item set as shared with a snapshot. Only the sets in the
+	 * indexes now are marked; older ones won't change again.
+	 *
+	 * @pre true
+	 * @post every item set is copied before its next change
+	 */
+	void share() {
+		this.shared.clear();
+		for (ItemSet set : this.byProduct) {
+			if (set != null) {
+				this.shared.add(set);
+			}
+		}
+		this.shared.addAll(this.byContainer.values());
+		for (IntMap<ItemSet> byProduct : this.byContainerAndProduct
+				.values()) {
+			this.shared.addAll(byProduct.values());
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return a new map from product barcode to the live items of the product
+	 */
+	Map<ProductBarcode, SortedSet<Item>> copyByProduct() {
+		Map<ProductBarcode, SortedSet<Item>> copy = new HashMap<ProductBarcode, SortedSet<Item>>();
+		for (int c = 0; c < this.productIds.size(); c++) {
+			if (this.byProduct[c] != null) {
+				copy.put(this.productBarcodes[c],
+						this.byProduct[c]);
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return a new map from container to the live items directly in it
+	 */
+	Map<ProductContainer, SortedSet<Item>> copyByContainer() {
+		Map<ProductContainer, SortedSet<Item>> copy = new HashMap<ProductContainer, SortedSet<Item>>();
+		for (int id : this.byContainer.keys()) {
+			copy.put(this.containers.get(id),
+					this.byContainer.get(id));
+		}
+		return copy;
+	}
+
+	private int productId(
+			ProductBarcode productBarcode) {
+		Integer id = this.productIds
+				.get(productBarcode);
+		if (id != null) {
+			return id;
+		}
+		int product = this.productIds.size();
+		if (product == this.productBarcodes.length) {
+			this.productBarcodes = Arrays.copyOf(
+					this.productBarcodes, product * 2);
+			this.byProduct = Arrays.copyOf(
+					this.byProduct, product * 2);
+		}
+		this.productBarcodes[product] = productBarcode;
+		this.productIds.put(productBarcode,
+				product);
+		return product;
+	}
+
+	private int containerId(
+			ProductContainer container) {
+		int id = container.getId();
+		if (!this.containers.containsKey(id)) {
+			this.containers.put(id, container);
+		}
+		return id;
+	}
+
+	private IntMap<ItemSet> pairs(int container) {
+		IntMap<ItemSet> byProduct = this.byContainerAndProduct
+				.get(container);
+		if (byProduct == null) {
+			byProduct = new IntMap<ItemSet>();
+			this.byContainerAndProduct.put(
+					container, byProduct);
+		}
+		return byProduct;
+	}
+
+	private ItemSet writableByProduct(int product) {
+		ItemSet set = this.byProduct[product];
+		if (set == null) {
+			set = new ItemSet(this);
+			this.byProduct[product] = set;
+		} else if (this.shared.remove(set)) {
+			set = new ItemSet(set);
+			this.byProduct[product] = set;
+		}
+		return set;
+	}
+
+	/**
+	 * Returns the set stored under key ready to be changed, creating it if
+	 * there is none and copying it first if a snapshot shares it.
+	 */
+	private ItemSet writable(IntMap<ItemSet> index,
+			int key) {
+		ItemSet set = index.get(key);
+		if (set == null) {
+			set = new ItemSet(this);
+			index.put(key, set);
+		} else if (this.shared.remove(set)) {
+			set = new ItemSet(set);
+			index.put(key, set);
+		}
+		return set;
+	}
+
+	private int find(ItemBarcode barcode) {
+		if (barcode == null) {
+			return -1;
+		}
+		int mask = this.barcodeTable.length - 1;
+		int slot = spread(barcode.hashCode())
+				& mask;
+		while (this.barcodeTable[slot] != 0) {
+			int id = this.barcodeTable[slot] - 1;
+			if (barcode.equals(this.items[id]
+					.getItemBarcode())) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void place(int[] table, int id) {
+		int mask = table.length - 1;
+		int slot = spread(this.items[id]
+				.getItemBarcode().hashCode())
+				& mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = id + 1;
+	}
+
+	private void rehash(int capacity) {
+		int[] table = new int[capacity];
+		for (int id = 0; id < this.itemCount; id++) {
+			place(table, id);
+		}
+		this.barcodeTable = table;
+	}
+
+	private static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,787 @@
+package model.managers;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import model.models.Item;
+import model.models.Product;
+import model.models.barcode.ItemBarcode;
+import model.models.barcode.ProductBarcode;
+import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
+import model.models.productContainer.StorageUnit;
+import model.models.unit.Unit;
+import model.models.unit.UnitType;
+
+/**
+ * JournalManager appends every model operation to an append-only journal
+ * (data/journal.log) instead of re-serializing every manager on each change.
+ * Every CHECKPOINT_INTERVAL records, and on saveState(), the full snapshot is
+ * written through the SerializationManager and the journal is truncated.
+ * loadState() loads the last snapshot and replays the journal on top of it.
+ *
+ * Each record is a length prefixed block so a record torn by a crash is
+ * detected and dropped on replay.
+ *
+ * @invariant Singleton
+ * @author Group1
+ */
+public class JournalManager extends
+		SessionManager {
+
+	/**
+	 * Number of records appended before a full snapshot is taken.
+	 */
+	public static final int CHECKPOINT_INTERVAL = 500;
+
+	private static final String JOURNAL_FILE = "journal.log";
+
+	private static final byte ADD_STORAGE_UNIT = 1;
+	private static final byte EDIT_STORAGE_UNIT = 2;
+	private static final byte DELETE_STORAGE_UNIT = 3;
+	private static final byte ADD_ITEM = 4;
+	private static final byte CONSUME_ITEM = 5;
+	private static final byte EDIT_ITEM = 6;
+	private static final byte MOVE_ITEM = 7;
+	private static final byte ADD_PRODUCT = 8;
+	private static final byte EDIT_PRODUCT = 9;
+	private static final byte DELETE_PRODUCT = 10;
+	private static final byte LINK_PRODUCT = 11;
+	private static final byte UNLINK_PRODUCT = 12;
+	private static final byte ADD_PRODUCT_GROUP = 13;
+	private static final byte EDIT_PRODUCT_GROUP = 14;
+	private static final byte DELETE_PRODUCT_GROUP = 15;
+
+	private static JournalManager manager;
+
+	private SerializationManager snapshots;
+
+	private DataOutputStream journalOut;
+
+	// the record currently being built, reused between records
+	private ByteArrayOutputStream recordBuffer;
+	private DataOutputStream recordOut;
+
+	private int recordsSinceCheckpoint;
+
+	// set while replaying so the replayed operations aren't journaled again
+	private boolean replaying;
+
+	private JournalManager() {
+		this.snapshots = SerializationManager
+				.getInstance();
+		this.recordsSinceCheckpoint = 0;
+		this.replaying = false;
+		this.recordBuffer = new ByteArrayOutputStream(
+				64);
+		this.recordOut = new DataOutputStream(
+				this.recordBuffer);
+	}
+
+	/**
+	 * @pre true
+	 * @post valid JournalManager Singleton instance returned
+	 * @return JournalManager Singleton instance of JournalManager
+	 */
+	public static JournalManager getInstance() {
+		if (manager == null) {
+			manager = new JournalManager();
+		}
+		return manager;
+	}
+
+	/**
+	 * Writes a full snapshot and truncates the journal.
+	 *
+	 * @pre true
+	 * @post all manager state is in the data files and the journal is empty
+	 */
+	@Override
+	public void saveState() {
+		checkpoint();
+	}
+
+	@Override
+	public void loadItemHistory() {
+		this.snapshots.loadItemHistory();
+	}
+
+	/**
+	 * Loads the last snapshot, replays the journal over it and then
+	 * checkpoints so the journal isn't replayed twice.
+	 *
+	 * @pre true
+	 * @post managers hold the state as of the last flushed record
+	 */
+	@Override
+	public void loadState() {
+		closeJournal();
+		this.snapshots.loadState();
+		replay();
+		checkpoint();
+	}
+
+	@Override
+	public void saveState(List<Saveable> managers) {
+		saveState();
+	}
+
+	@Override
+	public void loadState(List<Saveable> managers) {
+		loadState();
+	}
+
+	@Override
+	public void addStorageUnit(
+			StorageUnit storageUnit) {
+		DataOutputStream out = startRecord(ADD_STORAGE_UNIT);
+		if (out != null) {
+			try {
+				out.writeUTF(storageUnit.getName());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void editStorageUnit(String oldName,
+			StorageUnit storageUnit) {
+		DataOutputStream out = startRecord(EDIT_STORAGE_UNIT);
+		if (out != null) {
+			try {
+				out.writeUTF(oldName);
+				out.writeUTF(storageUnit.getName());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void deleteStorageUnit(
+			StorageUnit storageUnit) {
+		DataOutputStream out = startRecord(DELETE_STORAGE_UNIT);
+		if (out != null) {
+			try {
+				out.writeUTF(storageUnit.getName());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void addItem(Item item) {
+		DataOutputStream out = startRecord(ADD_ITEM);
+		if (out != null) {
+			try {
+				out.writeUTF(item.getItemBarcode()
+						.toString());
+				out.writeUTF(item.getProduct()
+						.getBarcode().toString());
+				out.writeLong(item.getEntryDate()
+						.getTime());
+				writeContainer(out,
+						item.getContainer());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void consumeItem(Item item) {
+		DataOutputStream out = startRecord(CONSUME_ITEM);
+		if (out != null) {
+			try {
+				out.writeUTF(item.getItemBarcode()
+						.toString());
+				out.writeLong(item.getExitMillis());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void editItem(Item item) {
+		DataOutputStream out = startRecord(EDIT_ITEM);
+		if (out != null) {
+			try {
+				out.writeUTF(item.getItemBarcode()
+						.toString());
+				out.writeLong(item.getEntryDate()
+						.getTime());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void moveItem(Item item,
+			ProductContainer destination) {
+		DataOutputStream out = startRecord(MOVE_ITEM);
+		if (out != null) {
+			try {
+				out.writeUTF(item.getItemBarcode()
+						.toString());
+				writeContainer(out, destination);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void addProductToContainer(
+			Product product,
+			ProductContainer container) {
+		writeProductLink(LINK_PRODUCT, product,
+				container);
+	}
+
+	@Override
+	public void removeProductFromContainer(
+			Product product,
+			ProductContainer container) {
+		writeProductLink(UNLINK_PRODUCT, product,
+				container);
+	}
+
+	@Override
+	public void addProduct(Product product) {
+		DataOutputStream out = startRecord(ADD_PRODUCT);
+		if (out != null) {
+			try {
+				writeProduct(out, product);
+				List<ProductContainer> containers = new LinkedList<ProductContainer>();
+				Iterator<ProductContainer> iter = product
+						.getContainers();
+				while (iter.hasNext()) {
+					containers.add(iter.next());
+				}
+				out.writeInt(containers.size());
+				for (ProductContainer pc : containers) {
+					writeContainer(out, pc);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void editProduct(Product newProduct) {
+		DataOutputStream out = startRecord(EDIT_PRODUCT);
+		if (out != null) {
+			try {
+				writeProduct(out, newProduct);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void deleteProduct(
+			ProductBarcode productBarcode) {
+		DataOutputStream out = startRecord(DELETE_PRODUCT);
+		if (out != null) {
+			try {
+				out.writeUTF(productBarcode
+						.toString());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void addProductGroup(
+			ProductGroup productGroup) {
+		DataOutputStream out = startRecord(ADD_PRODUCT_GROUP);
+		if (out != null) {
+			try {
+				writeContainer(out,
+						productGroup.getParent());
+				out.writeUTF(productGroup.getName());
+				writeUnit(out, productGroup
+						.GetThreeMonthSupply());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void editProductGroup(
+			ProductGroup productGroup,
+			String oldName) {
+		DataOutputStream out = startRecord(EDIT_PRODUCT_GROUP);
+		if (out != null) {
+			try {
+				writeContainer(out,
+						productGroup.getParent());
+				out.writeUTF(oldName);
+				out.writeUTF(productGroup.getName());
+				writeUnit(out, productGroup
+						.GetThreeMonthSupply());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void deleteProductGroup(
+			ProductGroup productGroup) {
+		DataOutputStream out = startRecord(DELETE_PRODUCT_GROUP);
+		if (out != null) {
+			try {
+				writeContainer(out, productGroup);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	@Override
+	public void deleteDataFiles() {
+		closeJournal();
+		getJournalFile().delete();
+		this.snapshots.deleteDataFiles();
+	}
+
+	/**
+	 * Saves a full snapshot and empties the journal.
+	 *
+	 * @pre true
+	 * @post journal is empty, snapshot is current
+	 */
+	private void checkpoint() {
+		closeJournal();
+		this.snapshots.saveState();
+		// the journal is all we have until the snapshot is on disk
+		this.snapshots.flush();
+		getJournalFile().delete();
+		this.recordsSinceCheckpoint = 0;
+	}
+
+	private File getJournalFile() {
+		return new File("data"
+				+ System.getProperty("file.separator")
+				+ JOURNAL_FILE);
+	}
+
+	private void openJournal() throws IOException {
+		if (this.journalOut == null) {
+			File journalFile = getJournalFile();
+			if (!journalFile.getParentFile()
+					.exists()) {
+				journalFile.getParentFile()
+						.mkdirs();
+			}
+			this.journalOut = new DataOutputStream(
+					new FileOutputStream(
+							journalFile, true));
+		}
+	}
+
+	private void closeJournal() {
+		if (this.journalOut != null) {
+			try {
+				this.journalOut.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			this.journalOut = null;
+		}
+	}
+
+	/**
+	 * Starts a new record. Returns null while replaying, in which case nothing
+	 * should be written.
+	 */
+	private DataOutputStream startRecord(
+			byte type) {
+		if (this.replaying) {
+			return null;
+		}
+		this.recordBuffer.reset();
+		try {
+			this.recordOut.writeByte(type);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return this.recordOut;
+	}
+
+	/**
+	 * Appends the record to the journal as [length][payload] and flushes it,
+	 * checkpointing when enough records have built up.
+	 */
+	private void endRecord(DataOutputStream record) {
+		try {
+			record.flush();
+			openJournal();
+			this.journalOut.writeInt(this.recordBuffer
+					.size());
+			this.recordBuffer
+					.writeTo(this.journalOut);
+			this.journalOut.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		this.recordsSinceCheckpoint++;
+		if (this.recordsSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+			checkpoint();
+		}
+	}
+
+	private void writeProductLink(byte type,
+			Product product,
+			ProductContainer container) {
+		DataOutputStream out = startRecord(type);
+		if (out != null) {
+			try {
+				out.writeUTF(product.getBarcode()
+						.toString());
+				writeContainer(out, container);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			endRecord(out);
+		}
+	}
+
+	private void writeProduct(
+			DataOutputStream out, Product product)
+			throws IOException {
+		out.writeUTF(product.getBarcode()
+				.toString());
+		out.writeUTF(product.getDescription());
+		writeUnit(out, product.getSize());
+		out.writeInt(product.getShelfLife());
+		out.writeInt(product
+				.getThreeMonthSupply());
+	}
+
+	private void writeUnit(DataOutputStream out,
+			Unit unit) throws IOException {
+		out.writeFloat(unit.getAmount());
+		out.writeByte(unit.getUnit().ordinal());
+	}
+
+	private Unit readUnit(DataInputStream in)
+			throws IOException {
+		float amount = in.readFloat();
+		UnitType type = UnitType.values()[in
+				.readByte()];
+		return new Unit(amount, type);
+	}
+
+	/**
+	 * Containers are written as the list of names from their storage unit
+	 * down, so they can be looked up again after a restart.
+	 */
+	private void writeContainer(
+			DataOutputStream out,
+			ProductContainer container)
+			throws IOException {
+		LinkedList<String> path = new LinkedList<String>();
+		ProductContainer cur = container;
+		while (cur instanceof ProductGroup) {
+			path.addFirst(cur.getName());
+			cur = ((ProductGroup) cur).getParent();
+		}
+		path.addFirst(cur.getName());
+		out.writeByte(path.size());
+		for (String name : path) {
+			out.writeUTF(name);
+		}
+	}
+
+	private ProductContainer readContainer(
+			DataInputStream in) throws IOException {
+		int depth = in.readByte();
+		ProductContainer cur = StorageUnitManager
+				.getInstance().getStorageUnits()
+				.get(in.readUTF());
+		for (int c = 1; c < depth; c++) {
+			String name = in.readUTF();
+			cur = findChild(cur, name);
+		}
+		return cur;
+	}
+
+	private ProductGroup findChild(
+			ProductContainer parent, String name) {
+		if (parent == null) {
+			return null;
+		}
+		for (ProductGroup pg : parent
+				.getProductGroups()) {
+			if (pg.getName().equals(name)) {
+				return pg;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Replays every complete record in the journal against the managers.
+	 */
+	private void replay() {
+		File journalFile = getJournalFile();
+		if (!journalFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		// bytes left after the records read so far
+		long remaining = journalFile.length();
+		this.replaying = true;
+		try {
+			in = new DataInputStream(
+					new BufferedInputStream(
+							new FileInputStream(
+									journalFile)));
+			while (true) {
+				int length;
+				byte[] payload;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					// end of the journal, or a length torn by a crash
+					break;
+				}
+				remaining -= 4;
+				if ((length < 0) || (length > remaining)) {
+					// a torn or garbled length; nothing after it can be trusted
+					break;
+				}
+				payload = new byte[length];
+				try {
+					in.readFully(payload);
+				} catch (EOFException e) {
+					// a record torn by a crash
+					break;
+				}
+				remaining -= length;
+				try {
+					applyRecord(new DataInputStream(
+							new ByteArrayInputStream(
+									payload)));
+				} catch (RuntimeException e) {
+					// a record the current state can't take is skipped; the
+					// records after it still replay
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			this.replaying = false;
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private void applyRecord(DataInputStream in)
+			throws IOException {
+		ItemManager items = ItemManager
+				.getInstance();
+		ProductManager products = ProductManager
+				.getInstance();
+		StorageUnitManager storageUnits = StorageUnitManager
+				.getInstance();
+		ProductGroupManager productGroups = ProductGroupManager
+				.getInstance();
+
+		byte type = in.readByte();
+		switch (type) {
+			case ADD_STORAGE_UNIT:
+				storageUnits.add(new StorageUnit(in
+						.readUTF()));
+				break;
+			case EDIT_STORAGE_UNIT:
+				storageUnits.edit(in.readUTF(),
+						in.readUTF());
+				break;
+			case DELETE_STORAGE_UNIT:
+				storageUnits.delete(in.readUTF());
+				break;
+			case ADD_ITEM: {
+				ItemBarcode barcode = new ItemBarcode(
+						in.readUTF());
+				Product product = products
+						.getProductByBarcode(new ProductBarcode(
+								in.readUTF()));
+				Date entryDate = new Date(in
+						.readLong());
+				ProductContainer container = readContainer(in);
+				items.add(new Item(barcode, product,
+						entryDate, container));
+				break;
+			}
+			case CONSUME_ITEM: {
+				Item item = items
+						.getItemByBarcode(new ItemBarcode(
+								in.readUTF()));
+				items.consume(item,
+						new Date(in.readLong()));
+				break;
+			}
+			case EDIT_ITEM: {
+				Item item = items
+						.getItemByBarcode(new ItemBarcode(
+								in.readUTF()));
+				items.editItem(item,
+						new Date(in.readLong()));
+				break;
+			}
+			case MOVE_ITEM: {
+				Item item = items
+						.getItemByBarcode(new ItemBarcode(
+								in.readUTF()));
+				items.moveItem(item,
+						readContainer(in));
+				break;
+			}
+			case ADD_PRODUCT: {
+				ProductBarcode barcode = new ProductBarcode(
+						in.readUTF());
+				String description = in.readUTF();
+				Unit size = readUnit(in);
+				int shelfLife = in.readInt();
+				int supply = in.readInt();
+				int containerCount = in.readInt();
+				Product product = null;
+				for (int c = 0; c < containerCount; c++) {
+					ProductContainer pc = readContainer(in);
+					if (product == null) {
+						product = new Product(barcode,
+								description, size,
+								shelfLife, supply, pc);
+					} else {
+						product.addToContainer(pc);
+					}
+				}
+				products.add(product);
+				break;
+			}
+			case EDIT_PRODUCT: {
+				Product product = products
+						.getProductByBarcode(new ProductBarcode(
+								in.readUTF()));
+				String description = in.readUTF();
+				Unit size = readUnit(in);
+				int shelfLife = in.readInt();
+				int supply = in.readInt();
+				ProductContainer sortedIn = null;
+				Iterator<ProductContainer> iter = product
+						.getContainers();
+				while (iter.hasNext()
+						&& (sortedIn == null)) {
+					ProductContainer pc = iter.next();
+					if (products
+							.getProductsByContainer(pc) != null) {
+						sortedIn = pc;
+					}
+				}
+				if (sortedIn != null) {
+					products.edit(product, sortedIn,
+							description, size,
+							shelfLife, supply);
+				} else {
+					product.edit(description, size,
+							shelfLife, supply);
+				}
+				break;
+			}
+			case DELETE_PRODUCT: {
+				Product product = products
+						.getProductByBarcode(new ProductBarcode(
+								in.readUTF()));
+				if (product != null) {
+					products.delete(product);
+				}
+				break;
+			}
+			case LINK_PRODUCT: {
+				Product product = products
+						.getProductByBarcode(new ProductBarcode(
+								in.readUTF()));
+				ProductContainer pc = readContainer(in);
+				if (!pc.getProducts().contains(
+						product)) {
+					pc.addProduct(product);
+				}
+				products.addToContainer(product, pc);
+				break;
+			}
+			case UNLINK_PRODUCT: {
+				Product product = products
+						.getProductByBarcode(new ProductBarcode(
+								in.readUTF()));
+				products.deleteFromContainer(
+						product, readContainer(in));
+				break;
+			}
+			case ADD_PRODUCT_GROUP: {
+				ProductContainer parent = readContainer(in);
+				String name = in.readUTF();
+				productGroups.add(new ProductGroup(
+						name, parent, readUnit(in)));
+				break;
+			}
+			case EDIT_PRODUCT_GROUP: {
+				ProductContainer parent = readContainer(in);
+				ProductGroup group = findChild(
+						parent, in.readUTF());
+				String newName = in.readUTF();
+				productGroups.edit(group, newName,
+						readUnit(in));
+				break;
+			}
+			case DELETE_PRODUCT_GROUP:
+				productGroups
+						.delete((ProductGroup) readContainer(in));
+				break;
+			default:
+				assert false : "Unknown journal record "
+						+ type;
+				break;
+		}
+	}
+}
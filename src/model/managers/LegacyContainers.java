@@ -0,0 +1,130 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import model.models.Product;
+import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
+import model.models.productContainer.StorageUnit;
+
+/**
+ * Ties the managers back together after they were read from the older
+ * per-manager data files. Each of those files holds its own copy of the
+ * storage unit tree, and containers are only equal to themselves, so every
+ * container a manager read is swapped for the one in the StorageUnitManager's
+ * tree with the same path, and the indexes keyed on containers are rebuilt.
+ *
+ * @author Group1
+ */
+class LegacyContainers {
+
+	// storage unit name followed by the group names down to the container
+	private HashMap<List<String>, ProductContainer> byPath;
+
+	private LegacyContainers() {
+		this.byPath = new HashMap<List<String>, ProductContainer>();
+		for (StorageUnit storageUnit : StorageUnitManager
+				.getInstance().getStorageUnits()
+				.values()) {
+			add(storageUnit);
+		}
+	}
+
+	/**
+	 * @pre the managers have been read from the per-manager data files
+	 * @post every manager refers only to the containers in the
+	 *       StorageUnitManager's tree
+	 */
+	static void adoptAll() {
+		LegacyContainers containers = new LegacyContainers();
+		for (StorageUnit storageUnit : StorageUnitManager
+				.getInstance().getStorageUnits()
+				.values()) {
+			containers.adoptProducts(storageUnit);
+			storageUnit.rebuildProductIndex();
+		}
+		ItemManager.getInstance().adoptContainers(
+				containers);
+		ProductManager.getInstance()
+				.adoptContainers(containers);
+		ProductGroupManager.getInstance()
+				.adoptContainers(containers);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the container in the tree with the same path as container, or
+	 *         container itself if the tree has none
+	 */
+	ProductContainer resolve(
+			ProductContainer container) {
+		if (container == null) {
+			return null;
+		}
+		ProductContainer found = this.byPath
+				.get(pathOf(container));
+		return (found == null) ? container : found;
+	}
+
+	/**
+	 * Points product at the tree's containers. Its container set is rebuilt
+	 * even if nothing changes, since the set was filled while the containers
+	 * in it were still being read.
+	 *
+	 * @pre product is not null
+	 * @post product's containers are all in the tree
+	 */
+	void adopt(Product product) {
+		List<ProductContainer> old = new ArrayList<ProductContainer>();
+		Iterator<ProductContainer> itr = product
+				.getContainers();
+		while (itr.hasNext()) {
+			old.add(itr.next());
+		}
+		for (ProductContainer container : old) {
+			product.removeFromContainer(container);
+		}
+		for (ProductContainer container : old) {
+			product.addToContainer(resolve(container));
+		}
+	}
+
+	private void add(ProductContainer container) {
+		this.byPath.put(pathOf(container),
+				container);
+		for (ProductGroup group : container
+				.getProductGroups()) {
+			add(group);
+		}
+	}
+
+	private void adoptProducts(
+			ProductContainer container) {
+		for (Product product : container
+				.getProducts()) {
+			adopt(product);
+		}
+		for (ProductGroup group : container
+				.getProductGroups()) {
+			adoptProducts(group);
+		}
+	}
+
+	private static List<String> pathOf(
+			ProductContainer container) {
+		LinkedList<String> path = new LinkedList<String>();
+		ProductContainer cur = container;
+		while (cur instanceof ProductGroup) {
+			path.addFirst(cur.getName());
+			cur = ((ProductGroup) cur).getParent();
+		}
+		path.addFirst((cur == null) ? null : cur
+				.getName());
+		return path;
+	}
+}
@@ -0,0 +1,124 @@
+package model.managers;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ModelLock guards the managers when they are used from more than one thread,
+ * for example by several barcode scanners or a background importer feeding
+ * items while the GUI reads. It is off unless the hit.concurrent system
+ * property is "true"; when it is off, every lock call is a no-op and the
+ * model stays Swing-thread only, as before.
+ *
+ * One read/write lock covers the whole model. The managers share indexes
+ * across storage units (barcodes, products, the barcode counter), so a lock
+ * per storage unit would still need this one around them.
+ *
+ * The managers take the write lock in their mutators and the read lock in
+ * their counting and lookup methods. Collections returned by the managers
+ * are live views, so another thread has to hold the read lock for as long as
+ * it iterates one, and the write lock to make several changes in one step:
+ *
+ * <pre>
+ * ModelLock.lockWrite();
+ * try {
+ * 	// look up the product, add the items
+ * } finally {
+ * 	ModelLock.unlockWrite();
+ * }
+ * </pre>
+ *
+ * A thread holding only the read lock must not call a mutator, since a read
+ * lock can't be upgraded. Notifications from other threads are delivered on
+ * the Swing thread by the NotificationBus.
+ *
+ * @author Group1
+ */
+public class ModelLock {
+
+	/**
+	 * System property that turns the lock on.
+	 */
+	public static final String CONCURRENT_PROPERTY = "hit.concurrent";
+
+	private static final boolean CONCURRENT = Boolean
+			.getBoolean(CONCURRENT_PROPERTY);
+
+	private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+
+	private ModelLock() {
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if the model may be used from several threads
+	 */
+	public static boolean isConcurrent() {
+		return CONCURRENT;
+	}
+
+	/**
+	 * @pre true
+	 * @post the calling thread holds the read lock
+	 */
+	public static void lockRead() {
+		if (CONCURRENT) {
+			LOCK.readLock().lock();
+		}
+	}
+
+	/**
+	 * @pre the calling thread holds the read lock
+	 * @post the read lock is released once
+	 */
+	public static void unlockRead() {
+		if (CONCURRENT) {
+			LOCK.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @pre the calling thread doesn't hold only the read lock
+	 * @post the calling thread holds the write lock
+	 */
+	public static void lockWrite() {
+		if (CONCURRENT) {
+			// waiting for the write lock here would wait for ourselves
+			assert !holdsReadLockOnly();
+			LOCK.writeLock().lock();
+		}
+	}
+
+	/**
+	 * @pre the calling thread holds the write lock
+	 * @post the write lock is released once
+	 */
+	public static void unlockWrite() {
+		if (CONCURRENT) {
+			LOCK.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if the calling thread holds the write lock, or the lock is
+	 *         off
+	 */
+	public static boolean isWriteLockedByCurrentThread() {
+		return !CONCURRENT
+				|| LOCK.isWriteLockedByCurrentThread();
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if the calling thread holds the read lock but not the write
+	 *         lock, so it can't take the write lock
+	 */
+	public static boolean holdsReadLockOnly() {
+		return CONCURRENT
+				&& (LOCK.getReadHoldCount() > 0)
+				&& !LOCK.isWriteLockedByCurrentThread();
+	}
+}
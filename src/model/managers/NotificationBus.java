@@ -0,0 +1,225 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
+
+import controller.notify.Notifier;
+
+/**
+ * NotificationBus holds back manager notifications while a model transaction
+ * is open. Everything one manager sends during the transaction is coalesced
+ * into a single notifier, and each manager's notifier is delivered once when
+ * the outermost transaction ends, in the order the managers first sent one.
+ * Outside a transaction notifications go straight to the observers.
+ * Transactions belong to the thread that opened them.
+ * 
+ * When ModelLock is on, notifications from threads other than the Swing thread
+ * are coalesced the same way and delivered later on the Swing thread, under
+ * the write lock, so observers always run where the views expect them.
+ * 
+ * <pre>
+ * NotificationBus.getInstance().begin();
+ * try {
+ * 	// any number of manager updates
+ * } finally {
+ * 	NotificationBus.getInstance().end();
+ * }
+ * </pre>
+ * 
+ * @author Group1
+ */
+public class NotificationBus {
+
+	private static volatile NotificationBus bus = null;
+
+	private ThreadLocal<Transaction> transaction;
+
+	// notifications from other threads waiting for the Swing thread
+	private Map<ObservableManager, Notifier> handedOff;
+
+	private boolean flushScheduled;
+
+	private NotificationBus() {
+		this.transaction = new ThreadLocal<Transaction>() {
+			@Override
+			protected Transaction initialValue() {
+				return new Transaction();
+			}
+		};
+		this.handedOff = new LinkedHashMap<ObservableManager, Notifier>();
+		this.flushScheduled = false;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the NotificationBus singleton
+	 */
+	public static NotificationBus getInstance() {
+		if (bus == null) {
+			synchronized (NotificationBus.class) {
+				if (bus == null) {
+					bus = new NotificationBus();
+				}
+			}
+		}
+		return bus;
+	}
+
+	/**
+	 * Opens a transaction. Transactions nest; only the outermost end()
+	 * delivers.
+	 * 
+	 * @pre true
+	 * @post isInTransaction()
+	 */
+	public void begin() {
+		this.transaction.get().depth++;
+	}
+
+	/**
+	 * Closes a transaction, delivering everything held back if it was the
+	 * outermost one.
+	 * 
+	 * @pre isInTransaction()
+	 * @post notifications are delivered if no transaction is left open
+	 */
+	public void end() {
+		Transaction current = this.transaction
+				.get();
+		assert current.depth > 0 : "end() without begin()";
+		current.depth--;
+		if (current.depth > 0) {
+			return;
+		}
+		if (mustHandOff()) {
+			Map<ObservableManager, Notifier> held = current.pending;
+			current.pending = new LinkedHashMap<ObservableManager, Notifier>();
+			for (Map.Entry<ObservableManager, Notifier> entry : held
+					.entrySet()) {
+				handOff(entry.getKey(),
+						entry.getValue());
+			}
+		} else {
+			deliver(current);
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true while a transaction is open
+	 */
+	public boolean isInTransaction() {
+		return this.transaction.get().depth > 0;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of managers with a notification held back by this
+	 *         thread's transaction
+	 */
+	public int getPendingCount() {
+		return this.transaction.get().pending
+				.size();
+	}
+
+	/**
+	 * Holds back a notification until the current transaction ends.
+	 * 
+	 * @pre isInTransaction()
+	 * @post source will be notified with notifier, coalesced with anything
+	 *       else it sends before then
+	 */
+	void post(ObservableManager source,
+			Notifier notifier) {
+		assert isInTransaction();
+		coalesce(this.transaction.get().pending,
+				source, notifier);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if the calling thread's notifications have to be delivered
+	 *         on the Swing thread instead
+	 */
+	boolean mustHandOff() {
+		return ModelLock.isConcurrent()
+				&& !SwingUtilities
+						.isEventDispatchThread();
+	}
+
+	/**
+	 * Queues a notification for the Swing thread.
+	 * 
+	 * @pre true
+	 * @post source will be notified on the Swing thread
+	 */
+	synchronized void handOff(
+			ObservableManager source,
+			Notifier notifier) {
+		coalesce(this.handedOff, source, notifier);
+		if (this.flushScheduled) {
+			return;
+		}
+		this.flushScheduled = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	private void flush() {
+		Transaction batch = new Transaction();
+		synchronized (this) {
+			batch.pending = this.handedOff;
+			this.handedOff = new LinkedHashMap<ObservableManager, Notifier>();
+			this.flushScheduled = false;
+		}
+		// keeps other threads out while the observers read the model
+		ModelLock.lockWrite();
+		try {
+			deliver(batch);
+		} finally {
+			ModelLock.unlockWrite();
+		}
+	}
+
+	private static void coalesce(
+			Map<ObservableManager, Notifier> pending,
+			ObservableManager source,
+			Notifier notifier) {
+		Notifier earlier = pending.get(source);
+		pending.put(source,
+				(earlier == null) ? notifier
+						: earlier.coalesce(notifier));
+	}
+
+	private static void deliver(Transaction current) {
+		// observers can change the model again while being notified
+		while (!current.pending.isEmpty()) {
+			List<Map.Entry<ObservableManager, Notifier>> batch = new ArrayList<Map.Entry<ObservableManager, Notifier>>(
+					current.pending.entrySet());
+			current.pending = new LinkedHashMap<ObservableManager, Notifier>();
+			for (Map.Entry<ObservableManager, Notifier> entry : batch) {
+				entry.getKey().deliver(
+						entry.getValue());
+			}
+		}
+	}
+
+	private static class Transaction {
+
+		private int depth = 0;
+
+		private Map<ObservableManager, Notifier> pending = new LinkedHashMap<ObservableManager, Notifier>();
+	}
+}
@@ -0,0 +1,75 @@
+package model.managers;
+
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import controller.notify.Notifier;
+
+/**
+ * Base class for the managers the views observe. Notifications sent while a
+ * NotificationBus transaction is open are handed to the bus instead of going
+ * to the observers right away. Observers added with addFirstObserver, such as
+ * a cache of view rows the other observers read from, see each notification
+ * before the rest. Notifications sent from other threads while ModelLock is
+ * on are delivered on the Swing thread.
+ * 
+ * @author Group1
+ */
+public abstract class ObservableManager extends
+		Observable {
+
+	private List<Observer> firstObservers = new CopyOnWriteArrayList<Observer>();
+
+	/**
+	 * Adds an observer that is notified before every observer added with
+	 * addObserver.
+	 * 
+	 * @pre observer is not null
+	 * @post observer sees each notification first
+	 * @param observer
+	 */
+	public void addFirstObserver(Observer observer) {
+		if (!this.firstObservers.contains(observer)) {
+			this.firstObservers.add(observer);
+		}
+	}
+
+	@Override
+	public void notifyObservers(Object arg) {
+		NotificationBus bus = NotificationBus
+				.getInstance();
+		if (!(arg instanceof Notifier)) {
+			super.notifyObservers(arg);
+			return;
+		}
+		if (!bus.isInTransaction()) {
+			if (!hasChanged()) {
+				return;
+			}
+			if (bus.mustHandOff()) {
+				clearChanged();
+				bus.handOff(this, (Notifier) arg);
+			} else {
+				deliver((Notifier) arg);
+			}
+			return;
+		}
+		if (hasChanged()) {
+			clearChanged();
+			bus.post(this, (Notifier) arg);
+		}
+	}
+
+	/**
+	 * Notifies the observers now, bypassing the bus.
+	 */
+	void deliver(Notifier notifier) {
+		for (Observer observer : this.firstObservers) {
+			observer.update(this, notifier);
+		}
+		setChanged();
+		super.notifyObservers(notifier);
+	}
+}
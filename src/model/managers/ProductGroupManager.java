@@ -2,10 +2,8 @@ package model.managers;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashSet;
-import java.util.Observable;
 import java.util.Set;
 
 import model.models.productContainer.ProductContainer;
@@ -26,9 +24,9 @@ import controller.notify.ProductContainerNotifier;
  * @author Group1
  */
 public class ProductGroupManager extends
-		Observable implements Saveable {
+		ObservableManager implements Saveable {
 
-	private static ProductGroupManager instance = null;
+	private static volatile ProductGroupManager instance = null;
 
 	private Set<ProductGroup> productGroups;
 
@@ -48,7 +46,11 @@ public class ProductGroupManager extends
 	 */
 	public static ProductGroupManager getInstance() {
 		if (instance == null) {
-			instance = new ProductGroupManager();
+			synchronized (ProductGroupManager.class) {
+				if (instance == null) {
+					instance = new ProductGroupManager();
+				}
+			}
 		}
 
 		return instance;
@@ -66,15 +68,22 @@ public class ProductGroupManager extends
 	 * @return
 	 */
 	public void add(ProductGroup newGroup) {
+		ModelLock.lockWrite();
+		try {
 
-		this.productGroups.add(newGroup);
-		newGroup.getParent().addProductGroup(
-				newGroup);
-
-		ProductContainerNotifier notifier = new ProductContainerNotifier(
-				newGroup);
-		setChanged();
-		this.notifyObservers(notifier);
+			this.productGroups.add(newGroup);
+			newGroup.getParent().addProductGroup(
+					newGroup);
+			SessionManager.getInstance()
+					.addProductGroup(newGroup);
+
+			ProductContainerNotifier notifier = new ProductContainerNotifier(
+					newGroup);
+			setChanged();
+			this.notifyObservers(notifier);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -88,15 +97,24 @@ public class ProductGroupManager extends
 	 * @return
 	 */
 	public void delete(ProductGroup groupToDelete) {
-		this.productGroups.remove(groupToDelete);
-		groupToDelete
-				.getParent()
-				.deleteProductGroup(groupToDelete);
-
-		ProductContainerNotifier notifier = new ProductContainerNotifier(
-				null);
-		setChanged();
-		this.notifyObservers(notifier);
+		ModelLock.lockWrite();
+		try {
+			this.productGroups.remove(groupToDelete);
+			ProductManager.getInstance()
+					.unlinkContainer(groupToDelete);
+			groupToDelete
+					.getParent()
+					.deleteProductGroup(groupToDelete);
+			SessionManager.getInstance()
+					.deleteProductGroup(groupToDelete);
+
+			ProductContainerNotifier notifier = new ProductContainerNotifier(
+					null);
+			setChanged();
+			this.notifyObservers(notifier);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -118,17 +136,20 @@ public class ProductGroupManager extends
 	 */
 	public void edit(ProductGroup toEdit,
 			String newName, Unit unit) {
-		String oldName = toEdit.getName();
-		toEdit.edit(newName, unit);
-		ProductContainerNotifier notifier = new ProductContainerNotifier(
-				toEdit, oldName);
-		// notifier.setOldName(oldName);
-		setChanged();
-		this.notifyObservers(notifier);
-
-		ItemManager.getInstance()
-				.updateContainerChange(toEdit,
-						oldName);
+		ModelLock.lockWrite();
+		try {
+			String oldName = toEdit.getName();
+			toEdit.edit(newName, unit);
+			SessionManager.getInstance()
+					.editProductGroup(toEdit, oldName);
+			ProductContainerNotifier notifier = new ProductContainerNotifier(
+					toEdit, oldName);
+			// notifier.setOldName(oldName);
+			setChanged();
+			this.notifyObservers(notifier);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -138,8 +159,13 @@ public class ProductGroupManager extends
 	 * @post productGroups.size() == 0.
 	 */
 	public void deleteAll() {
-		this.productGroups = new HashSet<ProductGroup>();
-		assert (this.productGroups.size() == 0);
+		ModelLock.lockWrite();
+		try {
+			this.productGroups = new HashSet<ProductGroup>();
+			assert (this.productGroups.size() == 0);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -150,7 +176,12 @@ public class ProductGroupManager extends
 	 * @return The number of ProductGroups.
 	 */
 	public int getNumberOfGroups() {
-		return this.productGroups.size();
+		ModelLock.lockRead();
+		try {
+			return this.productGroups.size();
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	/**
@@ -165,8 +196,13 @@ public class ProductGroupManager extends
 	 */
 	public boolean contains(ProductGroup child,
 			ProductContainer parent) {
-		return parent.containsProductGroup(child
-				.getName());
+		ModelLock.lockRead();
+		try {
+			return parent.containsProductGroup(child
+					.getName());
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	/**
@@ -217,28 +253,6 @@ public class ProductGroupManager extends
 		return true;
 	}
 
-	/**
-	 * Writes the data object to the object output stream
-	 * 
-	 * @pre True
-	 * @post The contents of the productGroups have been written to a
-	 *       DataObject.
-	 * @param objectOut
-	 *            The stream where the data is being written to.
-	 */
-	@Override
-	public void writeObjects(
-			ObjectOutputStream objectOut) {
-		try {
-			DataObject data = new DataObject(
-					this.productGroups);
-			objectOut.writeObject(data);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-	}
-
 	/**
 	 * Reads the object from the ObjectInputStream and initializes it properly.
 	 * 
@@ -262,6 +276,22 @@ public class ProductGroupManager extends
 		}
 	}
 
+	/**
+	 * Replaces the ProductGroups with the ones in the StorageUnitManager's
+	 * tree.
+	 * 
+	 * @pre containers is not null
+	 * @post every ProductGroup is in the tree
+	 */
+	void adoptContainers(LegacyContainers containers) {
+		Set<ProductGroup> adopted = new HashSet<ProductGroup>();
+		for (ProductGroup group : this.productGroups) {
+			adopted.add((ProductGroup) containers
+					.resolve(group));
+		}
+		this.productGroups = adopted;
+	}
+
 	/**
 	 * Specifies the file to read/write the data for this manager to.
 	 * 
@@ -294,7 +324,12 @@ public class ProductGroupManager extends
 	}
 
 	public void clear() {
-		this.productGroups.clear();
+		ModelLock.lockWrite();
+		try {
+			this.productGroups.clear();
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	public Set<ProductGroup> getProductGroups() {
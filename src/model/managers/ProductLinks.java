@@ -0,0 +1,278 @@
+package model.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import model.models.Product;
+import model.models.barcode.ProductBarcode;
+import model.models.productContainer.ProductContainer;
+
+/**
+ * The product-container relation of the ProductManager, indexed both ways:
+ * each container has its products sorted by description, and each product
+ * has the set of containers it is in. Linking or unlinking one pair touches
+ * one entry on each side, so dropping a product costs its own links and
+ * emptying a container costs its own products, however many products the
+ * other containers hold.
+ *
+ * share() hands a snapshot a copy of the two maps. The sets in them are
+ * shared with the copy, and copied here before their next change.
+ *
+ * @author Group1
+ */
+class ProductLinks {
+
+	// description first, as Product.compareTo; the barcode keeps two products
+	// with the same description apart
+	private static final Comparator<Product> BY_DESCRIPTION = new Comparator<Product>() {
+		@Override
+		public int compare(Product a, Product b) {
+			int byDescription = a.compareTo(b);
+			return (byDescription != 0) ? byDescription
+					: a.getBarcode().compareTo(
+							b.getBarcode());
+		}
+	};
+
+	private HashMap<ProductContainer, SortedSet<Product>> byContainer;
+
+	private HashMap<ProductBarcode, HashSet<ProductContainer>> byProduct;
+
+	// sets a snapshot still reads
+	private Set<Collection<?>> shared;
+
+	/**
+	 * @pre true
+	 * @post there are no links
+	 */
+	ProductLinks() {
+		this.byContainer = new HashMap<ProductContainer, SortedSet<Product>>();
+		this.byProduct = new HashMap<ProductBarcode, HashSet<ProductContainer>>();
+		this.shared = Collections
+				.newSetFromMap(new IdentityHashMap<Collection<?>, Boolean>());
+	}
+
+	/**
+	 * @pre product and container are not null
+	 * @post product is linked to container
+	 * @return false if it already was
+	 */
+	boolean link(Product product,
+			ProductContainer container) {
+		HashSet<ProductContainer> containers = this.byProduct
+				.get(product.getBarcode());
+		if ((containers != null)
+				&& containers.contains(container)) {
+			return false;
+		}
+		writableContainers(product.getBarcode())
+				.add(container);
+		writableProducts(container).add(product);
+		return true;
+	}
+
+	/**
+	 * @pre product and container are not null
+	 * @post product is not linked to container
+	 * @return false if it wasn't
+	 */
+	boolean unlink(Product product,
+			ProductContainer container) {
+		HashSet<ProductContainer> containers = this.byProduct
+				.get(product.getBarcode());
+		if ((containers == null)
+				|| !containers.contains(container)) {
+			return false;
+		}
+		containers = writableContainers(product
+				.getBarcode());
+		containers.remove(container);
+		if (containers.isEmpty()) {
+			this.byProduct.remove(product
+					.getBarcode());
+		}
+		removeFrom(container, product);
+		return true;
+	}
+
+	/**
+	 * @pre product is not null
+	 * @post product is not linked to any container
+	 * @return the containers product was linked to
+	 */
+	Set<ProductContainer> unlinkProduct(
+			Product product) {
+		HashSet<ProductContainer> containers = this.byProduct
+				.remove(product.getBarcode());
+		if (containers == null) {
+			return new HashSet<ProductContainer>();
+		}
+		for (ProductContainer container : containers) {
+			removeFrom(container, product);
+		}
+		return containers;
+	}
+
+	/**
+	 * @pre container is not null
+	 * @post no product is linked to container
+	 * @return the products that were linked to container
+	 */
+	List<Product> unlinkContainer(
+			ProductContainer container) {
+		SortedSet<Product> products = this.byContainer
+				.remove(container);
+		if (products == null) {
+			return new ArrayList<Product>();
+		}
+		for (Product product : products) {
+			HashSet<ProductContainer> containers = writableContainers(product
+					.getBarcode());
+			containers.remove(container);
+			if (containers.isEmpty()) {
+				this.byProduct.remove(product
+						.getBarcode());
+			}
+		}
+		return new ArrayList<Product>(products);
+	}
+
+	/**
+	 * Takes product out of the sorted sets of its containers, so its
+	 * description can change. reorder() must be called after the change.
+	 *
+	 * @pre product is not null
+	 * @post product is in none of the sorted sets, but keeps its links
+	 */
+	void unorder(Product product) {
+		HashSet<ProductContainer> containers = this.byProduct
+				.get(product.getBarcode());
+		if (containers != null) {
+			for (ProductContainer container : containers) {
+				writableProducts(container).remove(
+						product);
+			}
+		}
+	}
+
+	/**
+	 * @pre unorder(product) was called and nothing was linked since
+	 * @post product is back in the sorted set of each of its containers
+	 */
+	void reorder(Product product) {
+		HashSet<ProductContainer> containers = this.byProduct
+				.get(product.getBarcode());
+		if (containers != null) {
+			for (ProductContainer container : containers) {
+				writableProducts(container).add(
+						product);
+			}
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the products linked to container, sorted by description, or
+	 *         null if there are none
+	 */
+	SortedSet<Product> getProducts(
+			ProductContainer container) {
+		return this.byContainer.get(container);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the containers product is linked to, or null if there are none
+	 */
+	Set<ProductContainer> getContainers(
+			ProductBarcode product) {
+		return this.byProduct.get(product);
+	}
+
+	/**
+	 * Copies the two maps for a snapshot. Links made or dropped later don't
+	 * show through the copy, which must not be changed itself.
+	 *
+	 * @pre true
+	 * @post every set in the maps is marked as shared with the copy
+	 * @return the copy
+	 */
+	ProductLinks share() {
+		ProductLinks copy = new ProductLinks();
+		copy.byContainer.putAll(this.byContainer);
+		copy.byProduct.putAll(this.byProduct);
+		// sets no longer in the maps won't change again
+		this.shared.clear();
+		this.shared.addAll(this.byContainer.values());
+		this.shared.addAll(this.byProduct.values());
+		return copy;
+	}
+
+	/**
+	 * @pre true
+	 * @post there are no links
+	 */
+	void clear() {
+		this.byContainer.clear();
+		this.byProduct.clear();
+		this.shared.clear();
+	}
+
+	private HashSet<ProductContainer> writableContainers(
+			ProductBarcode product) {
+		HashSet<ProductContainer> containers = this.byProduct
+				.get(product);
+		if (containers == null) {
+			containers = new HashSet<ProductContainer>();
+			this.byProduct.put(product, containers);
+		} else if (this.shared.remove(containers)) {
+			containers = new HashSet<ProductContainer>(
+					containers);
+			this.byProduct.put(product, containers);
+		}
+		return containers;
+	}
+
+	private SortedSet<Product> writableProducts(
+			ProductContainer container) {
+		SortedSet<Product> products = this.byContainer
+				.get(container);
+		if (products == null) {
+			products = new TreeSet<Product>(
+					BY_DESCRIPTION);
+			this.byContainer.put(container,
+					products);
+		} else if (this.shared.remove(products)) {
+			products = new TreeSet<Product>(
+					products);
+			this.byContainer.put(container,
+					products);
+		}
+		return products;
+	}
+
+	private void removeFrom(
+			ProductContainer container,
+			Product product) {
+		SortedSet<Product> products = this.byContainer
+				.get(container);
+		if (products != null) {
+			products = writableProducts(container);
+			products.remove(product);
+			if (products.isEmpty()) {
+				this.byContainer.remove(container);
+			}
+		}
+	}
+}
@@ -2,7 +2,6 @@ package model.managers;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -10,16 +9,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Observable;
-import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
 
 import controller.notify.ProductNotifier;
 
 import model.models.Product;
 import model.models.barcode.ProductBarcode;
 import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
 import model.models.unit.Unit;
 
 /**
@@ -35,19 +32,17 @@ import model.models.unit.Unit;
  * @author Joel Denning
  * @author Group1
  */
-public class ProductManager extends Observable
+public class ProductManager extends ObservableManager
 		implements Saveable {
 
-	private static ProductManager productManager = null;
+	private static volatile ProductManager productManager = null;
 
 	HashMap<ProductBarcode, Product> products;
-	HashMap<ProductContainer, SortedSet<Product>> productsByContainer;
-	HashMap<ProductBarcode, HashSet<ProductContainer>> containersByProduct;
+	private ProductLinks links;
 
 	private ProductManager() {
 		this.products = new HashMap<ProductBarcode, Product>();
-		this.productsByContainer = new HashMap<ProductContainer, SortedSet<Product>>();
-		this.containersByProduct = new HashMap<ProductBarcode, HashSet<ProductContainer>>();
+		this.links = new ProductLinks();
 	}
 
 	/**
@@ -61,7 +56,11 @@ public class ProductManager extends Observable
 	 */
 	public static ProductManager getInstance() {
 		if (productManager == null) {
-			productManager = new ProductManager();
+			synchronized (ProductManager.class) {
+				if (productManager == null) {
+					productManager = new ProductManager();
+				}
+			}
 		}
 		return productManager;
 	}
@@ -79,61 +78,28 @@ public class ProductManager extends Observable
 	 * @return
 	 */
 	public void add(Product product) {
-		assert (product != null);
-		assert !this.products.containsKey(product
-				.getBarcode()) : "product already contains key... why add?";
-		// if(!products.containsKey(product.getBarcode()))
-		this.products.put(product.getBarcode(),
-				product);
-
-		Iterator<ProductContainer> contItr = product
-				.getContainers();
-		while (contItr.hasNext()) {
-			ProductContainer pc = contItr.next();
-			SortedSet<Product> productSet = null;
-			if (this.productsByContainer
-					.containsKey(pc)) {
-				productSet = this.productsByContainer
-						.get(pc);
-			}
-			if (productSet == null) {
-				productSet = new TreeSet<Product>();
-				this.productsByContainer.put(pc,
-						productSet);
+		ModelLock.lockWrite();
+		try {
+			assert (product != null);
+			assert !this.products.containsKey(product
+					.getBarcode()) : "product already contains key... why add?";
+			// if(!products.containsKey(product.getBarcode()))
+			this.products.put(product.getBarcode(),
+					product);
+
+			Iterator<ProductContainer> contItr = product
+					.getContainers();
+			while (contItr.hasNext()) {
+				this.links.link(product,
+						contItr.next());
 			}
-			productSet.add(this.products
-					.get(product.getBarcode()));
-
-			// productsByContainer.put(pc, productSet);
-		}
-
-		HashSet<ProductContainer> containerSet = null;
-		if (this.containersByProduct
-				.containsKey(this.products
-						.get(product.getBarcode()))) {
-			containerSet = this.containersByProduct
-					.get(this.products.get(product
-							.getBarcode()));
+			SessionManager.getInstance().addProduct(
+					product);
+			setChanged();
+			notifyObservers(new ProductNotifier(true));
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		if (containerSet == null) {
-			containerSet = new HashSet<ProductContainer>();
-			this.containersByProduct.put(
-					product.getBarcode(),
-					containerSet);
-		}
-		contItr = product.getContainers();
-		while (contItr.hasNext()) {
-			ProductContainer pc = contItr.next();
-			containerSet.add(pc);
-		}
-		// containersByProduct.put(product.getBarcode(), containerSet);
-		// System.out.println("containersByProduct " +
-		// containersByProduct.toString());
-		// System.out.println("productsbycontainer " +
-		// productsByContainer.toString());
-		// System.out.println("products " + products.toString());
-		setChanged();
-		notifyObservers(new ProductNotifier(true));
 	}
 
 	/**
@@ -153,42 +119,28 @@ public class ProductManager extends Observable
 	 */
 	public void addToContainer(Product product,
 			ProductContainer pc) {
-		assert (product != null);
-		SortedSet<Product> productSet = null;
-		if (this.productsByContainer
-				.containsKey(pc)) {
-			productSet = this.productsByContainer
-					.get(pc);
-		}
-		if (productSet == null) {
-			productSet = new TreeSet<Product>();
-			this.productsByContainer.put(pc,
-					productSet);
-		}
-		// productSet.add(products.get(product.getBarcode()));
-		productSet.add(product);
-
-		HashSet<ProductContainer> containerSet = this.containersByProduct
-				.get(product.getBarcode());
-		if (containerSet == null) {
-			containerSet = new HashSet<ProductContainer>();
-			this.containersByProduct.put(
-					product.getBarcode(),
-					containerSet);
-		}
-		containerSet.add(pc);
-
-		product.addToContainer(pc);
-		// assert !products.containsKey(product.getBarcode()) : "contains key?";
-		if (!this.products.containsKey(product
-				.getBarcode())) {
-			this.products
-					.put(product.getBarcode(),
-							product);
+		ModelLock.lockWrite();
+		try {
+			assert (product != null);
+			this.links.link(product, pc);
+
+			product.addToContainer(pc);
+			// assert !products.containsKey(product.getBarcode()) : "contains key?";
+			if (!this.products.containsKey(product
+					.getBarcode())) {
+				this.products
+						.put(product.getBarcode(),
+								product);
+			}
+			SessionManager.getInstance()
+					.addProductToContainer(product,
+							pc);
+			setChanged();
+			notifyObservers(ProductNotifier
+					.changed(product));
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		ProductNotifier notify = new ProductNotifier();
-		setChanged();
-		notifyObservers(notify);
 	}
 
 	/**
@@ -199,6 +151,9 @@ public class ProductManager extends Observable
 	 * @post A valid Product object whose information has been changed to the
 	 *       new parameters.
 	 * 
+	 * @param productContainer
+	 *            One of the Product's containers; the Product is re-sorted in
+	 *            all of them
 	 * @param newDescription
 	 *            The description of the Product
 	 * @param newSize
@@ -215,22 +170,27 @@ public class ProductManager extends Observable
 			int newThreeMonthSupply)// throws
 	// InvalidProductException
 	{
-		// if(Product.isValid(product.getBarcode(), newDescription,
-		// newShelfLife, newThreeMonthSupply))
-		// productsByContainer.remove(product);
-		Set<Product> productSet = this.productsByContainer
-				.get(productContainer);
-		productSet.remove(product);
-		product.edit(newDescription, newSize,
-				newShelfLife, newThreeMonthSupply);
-		productSet.add(product);
-		// productsByContainer.put(, value)
-
-		ProductNotifier notifier = new ProductNotifier();
-		setChanged();
-		notifyObservers(notifier);
-		// else
-		// throw new InvalidProductException("Invalid Product Parameters");
+		ModelLock.lockWrite();
+		try {
+			// if(Product.isValid(product.getBarcode(), newDescription,
+			// newShelfLife, newThreeMonthSupply))
+			// productsByContainer.remove(product);
+			this.links.unorder(product);
+			product.edit(newDescription, newSize,
+					newShelfLife, newThreeMonthSupply);
+			this.links.reorder(product);
+			// productsByContainer.put(, value)
+			SessionManager.getInstance().editProduct(
+					product);
+
+			ProductNotifier notifier = new ProductNotifier();
+			setChanged();
+			notifyObservers(notifier);
+			// else
+			// throw new InvalidProductException("Invalid Product Parameters");
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -243,54 +203,24 @@ public class ProductManager extends Observable
 	 *            The Product being removed.
 	 */
 	public void delete(Product product) {
-		assert ((product != null) && this.products
-				.containsKey(product.getBarcode()));
-		Iterator<ProductContainer> contItr = product
-				.getContainers();
-		while (contItr.hasNext()) {
-			// Iterate through every container and remove product from each one
-			ProductContainer pc = contItr.next();
-			if (this.productsByContainer
-					.containsKey(pc)) {
-				SortedSet<Product> productSet = this.productsByContainer
-						.get(pc);
-				Iterator<Product> prodItr = productSet
-						.iterator();
-				Product toRemove = null;
-				while (prodItr.hasNext()) { // Find product to remove in set
-					Product next = prodItr.next();
-					if (next.equals(product)) {
-						toRemove = next;
-					}
-				}
-				productSet.remove(toRemove);
-				// Put new product set into productsByContainer
-				if (productSet.size() > 0) {
-					this.productsByContainer.put(
-							pc, productSet);
-				} else {
-					// Remove that container from the map
-					this.productsByContainer
-							.remove(pc);
-				}
+		ModelLock.lockWrite();
+		try {
+			assert ((product != null) && this.products
+					.containsKey(product.getBarcode()));
+			for (ProductContainer pc : this.links
+					.unlinkProduct(product)) {
 				pc.removeProduct(product);
 			}
+			this.products
+					.remove(product.getBarcode());
+			SessionManager.getInstance()
+					.deleteProduct(
+							product.getBarcode());
+			setChanged();
+			this.notifyObservers(new ProductNotifier());
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		Iterator<ProductBarcode> prodItr = this.containersByProduct
-				.keySet().iterator();
-		ProductBarcode toRemove = null;
-		while (prodItr.hasNext()) // Find product to remove in set
-		{
-			ProductBarcode next = prodItr.next();
-			if (next.equals(product.getBarcode())) {
-				toRemove = next;
-			}
-		}
-		this.containersByProduct.remove(toRemove);
-		this.products
-				.remove(product.getBarcode());
-		setChanged();
-		this.notifyObservers(new ProductNotifier());
 	}
 
 	/**
@@ -305,62 +235,24 @@ public class ProductManager extends Observable
 	 */
 	public void deleteFromContainer(
 			Product product, ProductContainer pc) {
-		assert ((product != null) && (pc != null));
-		if (this.productsByContainer
-				.containsKey(pc)) {
-			SortedSet<Product> productSet = this.productsByContainer
-					.get(pc);
-			Iterator<Product> prodItr = productSet
-					.iterator();
-			Product toRemove = null;
-			while (prodItr.hasNext()) { // Find product to remove in set
-				Product next = prodItr.next();
-				if (next.equals(product)) {
-					toRemove = next;
-					break;
-				}
-			}
-			productSet.remove(toRemove);
-			// // Put new product set into productsByContainer
-			// if (productSet.size() > 0)
-			// productsByContainer.put(pc, productSet);
-			// else
-			// // Remove that container from the map
-			// productsByContainer.remove(pc);
-		}
-		if (this.containersByProduct
-				.containsKey(product.getBarcode())) {
-			HashSet<ProductContainer> contSet = this.containersByProduct
-					.get(product.getBarcode());
-			Iterator<ProductContainer> contItr = contSet
-					.iterator();
-			ProductContainer contToRemove = null;
-			while (contItr.hasNext()) { // Find container to remove in set
-				ProductContainer nextCont = contItr
-						.next();
-				if (nextCont.equals(pc)) {
-					contToRemove = nextCont;
-				}
-			}
-			contSet.remove(contToRemove);
-			// Put new product set into productsByContainer
-			if (contSet.size() > 0) {
-				this.containersByProduct.put(
-						product.getBarcode(),
-						contSet);
-			} else {
-				this.containersByProduct
-						.remove(product
-								.getBarcode());
-			}
+		ModelLock.lockWrite();
+		try {
+			assert ((product != null) && (pc != null));
+			this.links.unlink(product, pc);
+			product.removeFromContainer(pc);
+			this.products.put(product.getBarcode(),
+					product);
+			pc.removeProduct(product);
+			SessionManager.getInstance()
+					.removeProductFromContainer(
+							product, pc);
+
+			setChanged();
+			this.notifyObservers(ProductNotifier
+					.changed(product));
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		product.removeFromContainer(pc);
-		this.products.put(product.getBarcode(),
-				product);
-		pc.removeProduct(product);
-
-		setChanged();
-		this.notifyObservers(new ProductNotifier());
 	}
 
 	/**
@@ -406,12 +298,17 @@ public class ProductManager extends Observable
 	 */
 	public boolean productExists(
 			ProductBarcode barcode) {
-		assert (barcode != null);
-		boolean ret = false;
-		if (this.products.containsKey(barcode)) {
-			ret = true;
+		ModelLock.lockRead();
+		try {
+			assert (barcode != null);
+			boolean ret = false;
+			if (this.products.containsKey(barcode)) {
+				ret = true;
+			}
+			return ret;
+		} finally {
+			ModelLock.unlockRead();
 		}
-		return ret;
 	}
 
 	// This class must remain static in order to remain Serializable.
@@ -433,20 +330,6 @@ public class ProductManager extends Observable
 		}
 	}
 
-	@Override
-	public void writeObjects(
-			ObjectOutputStream objectOut) {
-		try {
-			PMDataObject data = new PMDataObject(
-					this.products,
-					this.productsByContainer,
-					this.containersByProduct);
-			objectOut.writeObject(data);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
 	@Override
 	public void readObjects(
 			ObjectInputStream objectIn) {
@@ -454,10 +337,12 @@ public class ProductManager extends Observable
 			PMDataObject data = (PMDataObject) objectIn
 					.readObject();
 			this.products = data.productsData;
-			this.productsByContainer = data.productsByContainerData;
-			this.containersByProduct = data.containersByProductData;
-			// System.out.println("loaded products by container: " +
-			// this.productsByContainer);
+			// the products hold the same links as the stored maps
+			this.links.clear();
+			for (Product product : this.products
+					.values()) {
+				indexProduct(product);
+			}
 		} catch (Exception e) { // ClassNotFoundException | IOException
 			e.printStackTrace();
 		}
@@ -470,32 +355,91 @@ public class ProductManager extends Observable
 
 	public Product getProductByBarcode(
 			ProductBarcode productBarcode) {
-		// TODO Auto-generated method stub
-		return this.products.get(productBarcode);
+		ModelLock.lockRead();
+		try {
+			// TODO Auto-generated method stub
+			return this.products.get(productBarcode);
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	public Collection<Product> getProductsByContainer(
 			ProductContainer productContainer) {
-		// System.out.println("look for\n\t" + productContainer.getName() +
-		// "\ninside of\n\t" + this.productsByContainer);
-		ArrayList<String> test = new ArrayList<String>();
-		Iterator<ProductContainer> iter = this.productsByContainer
-				.keySet().iterator();
-		while (iter.hasNext()) {
-
-			test.add(iter.next().hashCode()
-					+ ", ");
+		ModelLock.lockRead();
+		try {
+			return this.links
+					.getProducts(productContainer);
+		} finally {
+			ModelLock.unlockRead();
+		}
+	}
+
+	/**
+	 * Puts a product into the indexes without notifying anyone. Used when
+	 * rebuilding the manager from a snapshot.
+	 * 
+	 * @pre product != null
+	 * @post product is indexed under each of its containers
+	 */
+	void indexProduct(Product product) {
+		this.products.put(product.getBarcode(),
+				product);
+		Iterator<ProductContainer> contItr = product
+				.getContainers();
+		while (contItr.hasNext()) {
+			this.links.link(product, contItr.next());
+		}
+	}
+
+	/**
+	 * Points the products at the containers of the StorageUnitManager's tree
+	 * and rebuilds the indexes keyed on them.
+	 * 
+	 * @pre containers is not null
+	 * @post every indexed container is in the tree
+	 */
+	void adoptContainers(LegacyContainers containers) {
+		this.links.clear();
+		for (Product product : this.products.values()) {
+			containers.adopt(product);
+			indexProduct(product);
+		}
+	}
+
+	/**
+	 * Drops the links of container and of the groups under it, which are
+	 * being deleted. The container manager records and announces the delete.
+	 * 
+	 * @pre container is not null
+	 * @post no product is linked to container or its groups
+	 */
+	void unlinkContainer(ProductContainer container) {
+		ModelLock.lockWrite();
+		try {
+			for (Product product : this.links
+					.unlinkContainer(container)) {
+				product.removeFromContainer(container);
+			}
+			for (ProductGroup group : container
+					.getProductGroups()) {
+				unlinkContainer(group);
+			}
+		} finally {
+			ModelLock.unlockWrite();
 		}
-		// System.out.println("look for " + productContainer.hashCode() +
-		// " inside " + test);
-		// System.out.println( this.productsByContainer.get(productContainer));
-		// System.out.println(this.productsByContainer.containsKey(productContainer));
-		return this.productsByContainer
-				.get(productContainer);
 	}
 
-	HashMap<ProductBarcode, HashSet<ProductContainer>> getContainersByProduct() {
-		return this.containersByProduct;
+	/**
+	 * Copies the product-container links for an ItemSnapshot. Later changes
+	 * to the links don't show through the copy.
+	 * 
+	 * @pre the calling thread holds the write lock
+	 * @post true
+	 * @return the copy, which must not be changed
+	 */
+	ProductLinks shareLinks() {
+		return this.links.share();
 	}
 
 	HashMap<ProductBarcode, Product> getProducts() {
@@ -503,9 +447,20 @@ public class ProductManager extends Observable
 		return this.products;
 	}
 
-	HashMap<ProductContainer, SortedSet<Product>> getProductsByContainer() {
-		// TODO Auto-generated method stub
-		return this.productsByContainer;
+	/**
+	 * Removes all Products.
+	 * 
+	 * @pre true
+	 * @post no products are known
+	 */
+	public void clear() {
+		ModelLock.lockWrite();
+		try {
+			this.products.clear();
+			this.links.clear();
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	public void setChangedOverride() {
@@ -513,16 +468,21 @@ public class ProductManager extends Observable
 	}
 
 	public List<Product> getAllProducts() {
-		// TODO Auto-generated method stub
-		Iterator<ProductBarcode> iter = this.products
-				.keySet().iterator();
-		ArrayList<Product> ret = new ArrayList<Product>();
-		while (iter.hasNext()) {
-			Product curProduct = this.products
-					.get(iter.next());
-			ret.add(curProduct);
+		ModelLock.lockRead();
+		try {
+			// TODO Auto-generated method stub
+			Iterator<ProductBarcode> iter = this.products
+					.keySet().iterator();
+			ArrayList<Product> ret = new ArrayList<Product>();
+			while (iter.hasNext()) {
+				Product curProduct = this.products
+						.get(iter.next());
+				ret.add(curProduct);
+			}
+			return ret;
+		} finally {
+			ModelLock.unlockRead();
 		}
-		return ret;
 	}
 	// TreeMap
 
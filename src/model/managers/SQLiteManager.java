@@ -0,0 +1,733 @@
+package model.managers;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import model.models.Item;
+import model.models.Product;
+import model.models.barcode.ItemBarcode;
+import model.models.barcode.ProductBarcode;
+import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
+import model.models.productContainer.StorageUnit;
+import model.models.unit.Unit;
+import model.models.unit.UnitType;
+
+/**
+ * SQLiteManager keeps the Home Inventory Tracker state in a SQLite database
+ * (data/hit.sqlite) using the bundled sqlitejdbc driver. Every model operation
+ * is written as a single row statement inside an open transaction, which is
+ * committed every BATCH_SIZE operations and on saveState(), so saving never
+ * rewrites the whole inventory.
+ *
+ * Storage units and product groups share the container table; storage units
+ * have parent_id 0.
+ *
+ * @invariant Singleton
+ * @author Group1
+ */
+public class SQLiteManager extends
+		SessionManager {
+
+	/**
+	 * Number of operations grouped into one transaction.
+	 */
+	public static final int BATCH_SIZE = 100;
+
+	private static final String INSERT_ITEM = "INSERT OR REPLACE INTO item (barcode, product_barcode, "
+			+ "container_id, prior_container_id, entry_date, exit_time) "
+			+ "VALUES (?, ?, ?, NULL, ?, NULL)";
+
+	private static final String DATABASE_FILE = "hit.sqlite";
+
+	private static final String[] SCHEMA = {
+			"CREATE TABLE IF NOT EXISTS container ("
+					+ "id INTEGER PRIMARY KEY, "
+					+ "parent_id INTEGER NOT NULL, "
+					+ "name TEXT NOT NULL, "
+					+ "supply_amount REAL, "
+					+ "supply_unit INTEGER)",
+			"CREATE INDEX IF NOT EXISTS container_parent "
+					+ "ON container (parent_id, name)",
+			"CREATE TABLE IF NOT EXISTS product ("
+					+ "barcode TEXT PRIMARY KEY, "
+					+ "description TEXT NOT NULL, "
+					+ "size_amount REAL NOT NULL, "
+					+ "size_unit INTEGER NOT NULL, "
+					+ "shelf_life INTEGER NOT NULL, "
+					+ "three_month_supply INTEGER NOT NULL)",
+			"CREATE TABLE IF NOT EXISTS product_container ("
+					+ "product_barcode TEXT NOT NULL, "
+					+ "container_id INTEGER NOT NULL, "
+					+ "PRIMARY KEY (product_barcode, container_id))",
+			"CREATE INDEX IF NOT EXISTS product_container_container "
+					+ "ON product_container (container_id)",
+			"CREATE TABLE IF NOT EXISTS item ("
+					+ "barcode TEXT PRIMARY KEY, "
+					+ "product_barcode TEXT NOT NULL, "
+					+ "container_id INTEGER, "
+					+ "prior_container_id INTEGER, "
+					+ "entry_date INTEGER NOT NULL, "
+					+ "exit_time INTEGER)",
+			"CREATE INDEX IF NOT EXISTS item_product "
+					+ "ON item (product_barcode)",
+			"CREATE INDEX IF NOT EXISTS item_container "
+					+ "ON item (container_id)" };
+
+	private static SQLiteManager manager;
+
+	private Connection connection;
+
+	// containers are identified by object, names can change under us
+	private IdentityHashMap<ProductContainer, Integer> containerIds;
+
+	private HashMap<String, PreparedStatement> statements;
+
+	// kept from loadState so a lazy item history can be resolved later
+	private HashMap<Integer, ProductContainer> loadedContainers;
+
+	private HashMap<String, Product> loadedProducts;
+
+	private int pendingOperations;
+
+	// set while loading so rebuilding the managers isn't written back
+	private boolean loading;
+
+	private SQLiteManager() {
+		this.containerIds = new IdentityHashMap<ProductContainer, Integer>();
+		this.statements = new HashMap<String, PreparedStatement>();
+		this.pendingOperations = 0;
+		this.loading = false;
+	}
+
+	/**
+	 * @pre true
+	 * @post valid SQLiteManager Singleton instance returned
+	 * @return SQLiteManager Singleton instance of SQLiteManager
+	 */
+	public static SQLiteManager getInstance() {
+		if (manager == null) {
+			manager = new SQLiteManager();
+		}
+		return manager;
+	}
+
+	/**
+	 * Commits any operations that are still pending.
+	 *
+	 * @pre true
+	 * @post every operation so far is in the database
+	 */
+	@Override
+	public void saveState() {
+		try {
+			if (this.connection != null) {
+				this.connection.commit();
+			}
+			this.pendingOperations = 0;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Clears the managers and rebuilds them from the database.
+	 *
+	 * @pre true
+	 * @post managers hold the state stored in the database
+	 */
+	@Override
+	public void loadState() {
+		this.loading = true;
+		try {
+			Connection conn = getConnection();
+			conn.commit();
+			ItemManager.getInstance().clear();
+			ProductManager.getInstance().clear();
+			ProductGroupManager.getInstance()
+					.clear();
+			StorageUnitManager.getInstance()
+					.clear();
+			this.containerIds.clear();
+
+			this.loadedContainers = loadContainers(conn);
+			this.loadedProducts = loadProducts(
+					conn, this.loadedContainers);
+			if (isLazyHistory()) {
+				loadItems(conn,
+						"WHERE container_id IS NOT NULL ");
+				ItemManager.getInstance()
+						.setHistoryLoaded(false);
+				reserveHistoryBarcodes(conn);
+			} else {
+				loadItems(conn, "");
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			this.loading = false;
+		}
+	}
+
+	@Override
+	public void loadItemHistory() {
+		if (this.loadedContainers == null) {
+			return;
+		}
+		this.loading = true;
+		try {
+			loadItems(getConnection(),
+					"WHERE container_id IS NULL ");
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			this.loading = false;
+		}
+	}
+
+	@Override
+	public void saveState(List<Saveable> managers) {
+		saveState();
+	}
+
+	@Override
+	public void loadState(List<Saveable> managers) {
+		loadState();
+	}
+
+	@Override
+	public void addStorageUnit(
+			StorageUnit storageUnit) {
+		insertContainer(storageUnit, 0, null);
+	}
+
+	@Override
+	public void editStorageUnit(String oldName,
+			StorageUnit storageUnit) {
+		update("UPDATE container SET name = ? WHERE id = ?",
+				storageUnit.getName(),
+				getContainerId(storageUnit));
+	}
+
+	@Override
+	public void deleteStorageUnit(
+			StorageUnit storageUnit) {
+		deleteContainer(storageUnit);
+	}
+
+	@Override
+	public void addItem(Item item) {
+		update(INSERT_ITEM, itemParams(item));
+	}
+
+	/**
+	 * Inserts the whole batch with one JDBC batch instead of a statement per
+	 * item.
+	 */
+	@Override
+	public void addItems(Collection<Item> items) {
+		if (this.loading || items.isEmpty()) {
+			return;
+		}
+		try {
+			PreparedStatement ps = prepare(INSERT_ITEM);
+			for (Item item : items) {
+				bind(ps, itemParams(item));
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			this.pendingOperations += items.size();
+			if (this.pendingOperations >= BATCH_SIZE) {
+				saveState();
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private Object[] itemParams(Item item) {
+		return new Object[] {
+				item.getItemBarcode().toString(),
+				item.getProduct().getBarcode()
+						.toString(),
+				getContainerId(item
+						.getContainer()),
+				item.getEntryDate().getTime() };
+	}
+
+	@Override
+	public void consumeItem(Item item) {
+		update("UPDATE item SET container_id = NULL, "
+				+ "prior_container_id = ?, exit_time = ? "
+				+ "WHERE barcode = ?",
+				getContainerId(item
+						.getContainerPriorToConsume()),
+				item.getExitMillis(), item
+						.getItemBarcode().toString());
+	}
+
+	@Override
+	public void editItem(Item item) {
+		update("UPDATE item SET entry_date = ? WHERE barcode = ?",
+				item.getEntryDate().getTime(),
+				item.getItemBarcode().toString());
+	}
+
+	@Override
+	public void moveItem(Item item,
+			ProductContainer destination) {
+		update("UPDATE item SET container_id = ? WHERE barcode = ?",
+				getContainerId(destination), item
+						.getItemBarcode().toString());
+	}
+
+	@Override
+	public void addProductToContainer(
+			Product product,
+			ProductContainer container) {
+		update("INSERT OR IGNORE INTO product_container "
+				+ "(product_barcode, container_id) VALUES (?, ?)",
+				product.getBarcode().toString(),
+				getContainerId(container));
+	}
+
+	@Override
+	public void removeProductFromContainer(
+			Product product,
+			ProductContainer container) {
+		update("DELETE FROM product_container "
+				+ "WHERE product_barcode = ? AND container_id = ?",
+				product.getBarcode().toString(),
+				getContainerId(container));
+	}
+
+	@Override
+	public void addProduct(Product product) {
+		update("INSERT OR REPLACE INTO product (barcode, description, "
+				+ "size_amount, size_unit, shelf_life, three_month_supply) "
+				+ "VALUES (?, ?, ?, ?, ?, ?)",
+				product.getBarcode().toString(),
+				product.getDescription(), product
+						.getSize().getAmount(),
+				product.getSize().getUnit()
+						.ordinal(),
+				product.getShelfLife(),
+				product.getThreeMonthSupply());
+		Iterator<ProductContainer> iter = product
+				.getContainers();
+		while (iter.hasNext()) {
+			addProductToContainer(product,
+					iter.next());
+		}
+	}
+
+	@Override
+	public void editProduct(Product newProduct) {
+		update("UPDATE product SET description = ?, size_amount = ?, "
+				+ "size_unit = ?, shelf_life = ?, three_month_supply = ? "
+				+ "WHERE barcode = ?",
+				newProduct.getDescription(),
+				newProduct.getSize().getAmount(),
+				newProduct.getSize().getUnit()
+						.ordinal(),
+				newProduct.getShelfLife(),
+				newProduct.getThreeMonthSupply(),
+				newProduct.getBarcode()
+						.toString());
+	}
+
+	@Override
+	public void deleteProduct(
+			ProductBarcode productBarcode) {
+		update("DELETE FROM product_container WHERE product_barcode = ?",
+				productBarcode.toString());
+		update("DELETE FROM product WHERE barcode = ?",
+				productBarcode.toString());
+	}
+
+	@Override
+	public void addProductGroup(
+			ProductGroup productGroup) {
+		insertContainer(productGroup,
+				getContainerId(productGroup
+						.getParent()), productGroup
+						.GetThreeMonthSupply());
+	}
+
+	@Override
+	public void editProductGroup(
+			ProductGroup productGroup,
+			String oldName) {
+		Unit supply = productGroup
+				.GetThreeMonthSupply();
+		update("UPDATE container SET name = ?, supply_amount = ?, "
+				+ "supply_unit = ? WHERE id = ?",
+				productGroup.getName(), supply
+						.getAmount(), supply
+						.getUnit().ordinal(),
+				getContainerId(productGroup));
+	}
+
+	@Override
+	public void deleteProductGroup(
+			ProductGroup productGroup) {
+		deleteContainer(productGroup);
+	}
+
+	@Override
+	public void deleteDataFiles() {
+		try {
+			if (this.connection != null) {
+				for (PreparedStatement ps : this.statements
+						.values()) {
+					ps.close();
+				}
+				this.statements.clear();
+				this.connection.close();
+				this.connection = null;
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		this.containerIds.clear();
+		getDatabaseFile().delete();
+	}
+
+	private File getDatabaseFile() {
+		return new File("data"
+				+ System.getProperty("file.separator")
+				+ DATABASE_FILE);
+	}
+
+	private Connection getConnection()
+			throws SQLException {
+		if (this.connection == null) {
+			File dbFile = getDatabaseFile();
+			if (!dbFile.getParentFile().exists()) {
+				dbFile.getParentFile().mkdirs();
+			}
+			try {
+				Class.forName("org.sqlite.JDBC");
+			} catch (ClassNotFoundException e) {
+				throw new SQLException(
+						"sqlitejdbc is not on the classpath");
+			}
+			this.connection = DriverManager
+					.getConnection("jdbc:sqlite:"
+							+ dbFile.getPath());
+			Statement statement = this.connection
+					.createStatement();
+			for (String sql : SCHEMA) {
+				statement.executeUpdate(sql);
+			}
+			statement.close();
+			this.connection.setAutoCommit(false);
+		}
+		return this.connection;
+	}
+
+	private PreparedStatement prepare(String sql)
+			throws SQLException {
+		PreparedStatement ps = this.statements
+				.get(sql);
+		if (ps == null) {
+			ps = getConnection().prepareStatement(
+					sql);
+			this.statements.put(sql, ps);
+		}
+		return ps;
+	}
+
+	private void bind(PreparedStatement ps,
+			Object[] params) throws SQLException {
+		for (int c = 0; c < params.length; c++) {
+			if (params[c] instanceof Float) {
+				// sqlitejdbc only binds doubles
+				ps.setDouble(c + 1,
+						(Float) params[c]);
+			} else {
+				ps.setObject(c + 1, params[c]);
+			}
+		}
+	}
+
+	/**
+	 * Runs a single row statement in the current transaction and commits once
+	 * BATCH_SIZE operations have built up. Does nothing while loading.
+	 */
+	private void update(String sql,
+			Object... params) {
+		if (this.loading) {
+			return;
+		}
+		try {
+			PreparedStatement ps = prepare(sql);
+			bind(ps, params);
+			ps.executeUpdate();
+			this.pendingOperations++;
+			if (this.pendingOperations >= BATCH_SIZE) {
+				saveState();
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void insertContainer(
+			ProductContainer container,
+			int parentId, Unit supply) {
+		if (this.loading) {
+			return;
+		}
+		update("INSERT INTO container (parent_id, name, supply_amount, "
+				+ "supply_unit) VALUES (?, ?, ?, ?)",
+				parentId,
+				container.getName(),
+				supply == null ? null : supply
+						.getAmount(),
+				supply == null ? null : supply
+						.getUnit().ordinal());
+		try {
+			ResultSet keys = prepare(
+					"SELECT last_insert_rowid()")
+					.executeQuery();
+			if (keys.next()) {
+				this.containerIds.put(container,
+						keys.getInt(1));
+			}
+			keys.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void deleteContainer(
+			ProductContainer container) {
+		Integer id = getContainerId(container);
+		update("DELETE FROM product_container WHERE container_id = ?",
+				id);
+		update("DELETE FROM container WHERE id = ?",
+				id);
+		this.containerIds.remove(container);
+	}
+
+	/**
+	 * Finds the row id of a container, looking it up by parent and name the
+	 * first time it's seen.
+	 */
+	private Integer getContainerId(
+			ProductContainer container) {
+		if (container == null) {
+			return null;
+		}
+		Integer id = this.containerIds
+				.get(container);
+		if (id == null) {
+			int parentId = 0;
+			if (container instanceof ProductGroup) {
+				Integer found = getContainerId(((ProductGroup) container)
+						.getParent());
+				parentId = found == null ? -1
+						: found;
+			}
+			try {
+				PreparedStatement ps = prepare("SELECT id FROM container "
+						+ "WHERE parent_id = ? AND name = ?");
+				bind(ps, new Object[] { parentId,
+						container.getName() });
+				ResultSet rs = ps.executeQuery();
+				if (rs.next()) {
+					id = rs.getInt(1);
+					this.containerIds.put(container,
+							id);
+				}
+				rs.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return id;
+	}
+
+	private HashMap<Integer, ProductContainer> loadContainers(
+			Connection conn) throws SQLException {
+		HashMap<Integer, ProductContainer> containers = new HashMap<Integer, ProductContainer>();
+		Statement statement = conn
+				.createStatement();
+		// parents always have smaller ids than their children
+		ResultSet rs = statement
+				.executeQuery("SELECT id, parent_id, name, supply_amount, "
+						+ "supply_unit FROM container ORDER BY id");
+		while (rs.next()) {
+			int id = rs.getInt(1);
+			int parentId = rs.getInt(2);
+			String name = rs.getString(3);
+			ProductContainer container;
+			if (parentId == 0) {
+				StorageUnit su = new StorageUnit(
+						name);
+				StorageUnitManager.getInstance()
+						.add(su);
+				container = su;
+			} else {
+				Unit supply = new Unit(
+						rs.getFloat(4),
+						UnitType.values()[rs
+								.getInt(5)]);
+				ProductGroup pg = new ProductGroup(
+						name,
+						containers.get(parentId),
+						supply);
+				ProductGroupManager.getInstance()
+						.add(pg);
+				container = pg;
+			}
+			containers.put(id, container);
+			this.containerIds.put(container, id);
+		}
+		rs.close();
+		statement.close();
+		return containers;
+	}
+
+	private HashMap<String, Product> loadProducts(
+			Connection conn,
+			HashMap<Integer, ProductContainer> containers)
+			throws SQLException {
+		HashMap<String, List<ProductContainer>> links = new HashMap<String, List<ProductContainer>>();
+		Statement statement = conn
+				.createStatement();
+		ResultSet rs = statement
+				.executeQuery("SELECT product_barcode, container_id "
+						+ "FROM product_container");
+		while (rs.next()) {
+			List<ProductContainer> list = links
+					.get(rs.getString(1));
+			if (list == null) {
+				list = new ArrayList<ProductContainer>();
+				links.put(rs.getString(1), list);
+			}
+			ProductContainer pc = containers
+					.get(rs.getInt(2));
+			if (pc != null) {
+				list.add(pc);
+			}
+		}
+		rs.close();
+
+		HashMap<String, Product> products = new HashMap<String, Product>();
+		rs = statement
+				.executeQuery("SELECT barcode, description, size_amount, "
+						+ "size_unit, shelf_life, three_month_supply "
+						+ "FROM product");
+		while (rs.next()) {
+			String barcode = rs.getString(1);
+			List<ProductContainer> list = links
+					.get(barcode);
+			if ((list == null) || list.isEmpty()) {
+				// a product always belongs to at least one container
+				continue;
+			}
+			Product product = new Product(
+					new ProductBarcode(barcode),
+					rs.getString(2), new Unit(
+							rs.getFloat(3),
+							UnitType.values()[rs
+									.getInt(4)]),
+					rs.getInt(5), rs.getInt(6),
+					list.get(0));
+			for (ProductContainer pc : list) {
+				product.addToContainer(pc);
+				pc.addProduct(product);
+			}
+			ProductManager.getInstance().add(
+					product);
+			products.put(barcode, product);
+		}
+		rs.close();
+		statement.close();
+		return products;
+	}
+
+	/**
+	 * Moves the item barcode counter past the consumed items that were not
+	 * loaded. Barcodes are stored as fixed width digit strings, so the largest
+	 * one sorts last.
+	 */
+	private void reserveHistoryBarcodes(
+			Connection conn) throws SQLException {
+		ItemManager itemManager = ItemManager
+				.getInstance();
+		Statement statement = conn
+				.createStatement();
+		ResultSet rs = statement
+				.executeQuery("SELECT MAX(barcode) FROM item "
+						+ "WHERE container_id IS NULL "
+						+ "AND barcode LIKE '4%' "
+						+ "AND length(barcode) = 12");
+		if (rs.next() && (rs.getString(1) != null)) {
+			itemManager.getBarcodeAllocator()
+					.reserve(
+							new ItemBarcode(rs
+									.getString(1)));
+		}
+		rs.close();
+		statement.close();
+		itemManager.reserveItemBarcodes(itemManager
+				.getBarcodeAllocator().getNext());
+	}
+
+	private void loadItems(Connection conn,
+			String where) throws SQLException {
+		HashMap<Integer, ProductContainer> containers = this.loadedContainers;
+		HashMap<String, Product> products = this.loadedProducts;
+		ItemManager itemManager = ItemManager
+				.getInstance();
+		Statement statement = conn
+				.createStatement();
+		ResultSet rs = statement
+				.executeQuery("SELECT barcode, product_barcode, container_id, "
+						+ "prior_container_id, entry_date, exit_time "
+						+ "FROM item " + where
+						+ "ORDER BY entry_date");
+		while (rs.next()) {
+			Product product = products.get(rs
+					.getString(2));
+			int containerId = rs.getInt(3);
+			boolean consumed = rs.wasNull();
+			ProductContainer container = containers
+					.get(consumed ? rs.getInt(4)
+							: containerId);
+			if ((product == null)
+					|| (container == null)
+					|| (itemManager
+							.getItemByBarcode(new ItemBarcode(
+									rs.getString(1))) != null)) {
+				continue;
+			}
+			Item item = new Item(new ItemBarcode(
+					rs.getString(1)), product,
+					new Date(rs.getLong(5)),
+					container);
+			itemManager.add(item);
+			if (consumed) {
+				itemManager.consume(item, new Date(
+						rs.getLong(6)));
+			}
+		}
+		rs.close();
+		statement.close();
+	}
+}
@@ -1,15 +1,11 @@
 package model.managers;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,10 +21,19 @@ public class SerializationManager extends
 
 	private List<Saveable> managers;
 
+	public static final String SNAPSHOT_FILE_NAME = "inventory.bin";
+
+	// set while a lazily loaded snapshot still holds the consumed items
+	private BinarySnapshot snapshot;
+
+	private SnapshotWriter writer;
+
 	private static SerializationManager manager;
 
 	private SerializationManager() {
 		this.managers = new ArrayList<Saveable>();
+		this.writer = new SnapshotWriter(
+				getSnapshotFile());
 		this.managers.add(ItemManager
 				.getInstance());
 		this.managers.add(ProductGroupManager
@@ -46,85 +51,114 @@ public class SerializationManager extends
 		return manager;
 	}
 
+	/**
+	 * Encodes the managers on the calling thread and hands the snapshot to the
+	 * background writer. Use flush() to wait for it to reach the disk.
+	 */
 	@Override
-	public void saveState() {
-		for (int c = 0; c < this.managers.size(); c++) {
-			File hitFile = new File(
-					"data"
-							+ System.getProperty("file.separator")
-							+ this.managers
-									.get(c)
-									.getDataFileName()
-							+ ".data");
-
-			if (!hitFile.getParentFile().exists()) {
-				hitFile.getParentFile().mkdirs();
-			}
-			ObjectOutputStream hitOut = null;
-			try {
-				if (!hitFile.exists()) {
-					hitFile.createNewFile();
-				}
-				if (hitFile.canWrite()) {
-					OutputStream outputStream = new BufferedOutputStream(
-							new FileOutputStream(
-									hitFile));
-					hitOut = new ObjectOutputStream(
-							outputStream);
-					this.managers.get(c)
-							.writeObjects(hitOut);
-				}
-			} catch (IOException e) {
+	public synchronized void saveState() {
+		ModelLock.lockRead();
+		try {
+			this.writer.submit(BinarySnapshot
+					.encode(this.snapshot));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			ModelLock.unlockRead();
+		}
+	}
 
-			} finally {
-				if (hitOut != null) {
-					try {
-						hitOut.close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				}
+	@Override
+	public void flush() {
+		this.writer.flush();
+	}
 
-			}
-		}
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the background writer, for its save metrics
+	 */
+	public SnapshotWriter getSnapshotWriter() {
+		return this.writer;
 	}
 
 	@Override
 	public void loadState() {
-		for (int c = 0; c < this.managers.size(); c++) {
-			File hitFile = new File(
-					"data"
-							+ System.getProperty("file.separator")
-							+ this.managers
-									.get(c)
-									.getDataFileName()
-							+ ".data");
-
-			if (!hitFile.getParentFile().exists()) {
-				hitFile.getParentFile().mkdirs();
-			}
+		boolean lazyHistory = isLazyHistory();
+		this.snapshot = null;
 
-			ObjectInputStream hitIn = null;
+		File snapshotFile = getSnapshotFile();
+		if (snapshotFile.exists()) {
+			BinarySnapshot loaded = new BinarySnapshot(
+					snapshotFile);
 			try {
-				if (hitFile.exists()
-						&& hitFile.canRead()) {
-					InputStream inputStream = new BufferedInputStream(
-							new FileInputStream(
-									hitFile));
-					hitIn = new ObjectInputStream(
-							inputStream);
-					this.managers.get(c)
-							.readObjects(hitIn);
+				loaded.readLive(!lazyHistory);
+				if (lazyHistory) {
+					this.snapshot = loaded;
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
-			} finally {
-				if (hitIn != null) {
-					try {
-						hitIn.close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
+			}
+			return;
+		}
+
+		// older data directories only have the per-manager object streams
+		for (int c = 0; c < this.managers.size(); c++) {
+			readFile(this.managers.get(c));
+		}
+		LegacyContainers.adoptAll();
+	}
+
+	@Override
+	public void loadItemHistory() {
+		if (this.snapshot != null) {
+			BinarySnapshot loaded = this.snapshot;
+			this.snapshot = null;
+			try {
+				loaded.readHistory();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private File getSnapshotFile() {
+		return new File("data"
+				+ System.getProperty("file.separator")
+				+ SNAPSHOT_FILE_NAME);
+	}
+
+	private File getFile(Saveable saveable) {
+		return new File("data"
+				+ System.getProperty("file.separator")
+				+ saveable.getDataFileName()
+				+ ".data");
+	}
+
+	private void readFile(Saveable saveable) {
+		File hitFile = getFile(saveable);
+
+		if (!hitFile.getParentFile().exists()) {
+			hitFile.getParentFile().mkdirs();
+		}
+
+		ObjectInputStream hitIn = null;
+		try {
+			if (hitFile.exists() && hitFile.canRead()) {
+				InputStream inputStream = new BufferedInputStream(
+						new FileInputStream(hitFile));
+				hitIn = new ObjectInputStream(
+						inputStream);
+				saveable.readObjects(hitIn);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (hitIn != null) {
+				try {
+					hitIn.close();
+				} catch (IOException e) {
+					e.printStackTrace();
 				}
 			}
 		}
@@ -137,9 +171,8 @@ public class SerializationManager extends
 	}
 
 	@Override
-	public void editStorageUnit(
-			StorageUnit oldStorageUnit,
-			StorageUnit newStorageUnit) {
+	public void editStorageUnit(String oldName,
+			StorageUnit storageUnit) {
 
 	}
 
@@ -159,12 +192,31 @@ public class SerializationManager extends
 
 	}
 
+	@Override
+	public void editItem(Item item) {
+
+	}
+
 	@Override
 	public void moveItem(Item item,
 			ProductContainer destination) {
 
 	}
 
+	@Override
+	public void addProductToContainer(
+			Product product,
+			ProductContainer container) {
+
+	}
+
+	@Override
+	public void removeProductFromContainer(
+			Product product,
+			ProductContainer container) {
+
+	}
+
 	@Override
 	public void addProduct(Product product) {
 
@@ -188,8 +240,9 @@ public class SerializationManager extends
 	}
 
 	@Override
-	public void editProductGroup(String oldName,
-			ProductContainer parent) {
+	public void editProductGroup(
+			ProductGroup productGroup,
+			String oldName) {
 
 	}
 
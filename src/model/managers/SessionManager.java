@@ -1,5 +1,6 @@
 package model.managers;
 
+import java.util.Collection;
 import java.util.List;
 
 import model.models.Item;
@@ -13,10 +14,34 @@ public abstract class SessionManager {
 
 	private static SessionManager singleton;
 
-	public static SessionManager getInstance() {
+	/**
+	 * System property used to pick the persistence strategy. "journal" selects
+	 * the JournalManager, "sql" the SQLiteManager, anything else falls back to
+	 * the SerializationManager.
+	 */
+	public static final String SESSION_PROPERTY = "hit.session";
+
+	/**
+	 * System property that, when "true", leaves the consumed item history on
+	 * disk at startup. It is read the first time something asks for consumed
+	 * items.
+	 */
+	public static final String LAZY_HISTORY_PROPERTY = "hit.lazyHistory";
+
+	public static synchronized SessionManager getInstance() {
 		if (singleton == null) {
-			singleton = SerializationManager
-					.getInstance();
+			String session = System
+					.getProperty(SESSION_PROPERTY);
+			if ("journal".equals(session)) {
+				singleton = JournalManager
+						.getInstance();
+			} else if ("sql".equals(session)) {
+				singleton = SQLiteManager
+						.getInstance();
+			} else {
+				singleton = SerializationManager
+						.getInstance();
+			}
 		}
 		return singleton;
 	}
@@ -25,6 +50,16 @@ public abstract class SessionManager {
 	protected SessionManager() {
 	}
 
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if loadState should skip the consumed item history
+	 */
+	protected static boolean isLazyHistory() {
+		return Boolean
+				.getBoolean(LAZY_HISTORY_PROPERTY);
+	}
+
 	public abstract void loadState();
 
 	public abstract void saveState(
@@ -35,13 +70,32 @@ public abstract class SessionManager {
 
 	public abstract void saveState();
 
+	/**
+	 * Waits until everything saved so far is on disk. Sessions that save on
+	 * the calling thread have nothing to wait for.
+	 * 
+	 * @pre true
+	 * @post earlier saveState calls have completed
+	 */
+	public void flush() {
+	}
+
+	/**
+	 * Loads the consumed item history skipped by a lazy loadState. Called by
+	 * ItemManager.ensureHistoryLoaded.
+	 * 
+	 * @pre true
+	 * @post consumed items are available from the ItemManager
+	 */
+	public abstract void loadItemHistory();
+
 	// Storage Units
 	public abstract void addStorageUnit(
 			StorageUnit storageUnit);
 
 	public abstract void editStorageUnit(
-			StorageUnit oldStorageUnit,
-			StorageUnit newStorageUnit); // lookup by name
+			String oldName,
+			StorageUnit storageUnit); // lookup by name
 
 	public abstract void deleteStorageUnit(
 			StorageUnit storageUnit);
@@ -49,11 +103,36 @@ public abstract class SessionManager {
 	// Items - by item or item barcode?
 	public abstract void addItem(Item item);
 
+	/**
+	 * Records a batch of new items. Sessions that can write several rows at
+	 * once override this.
+	 * 
+	 * @pre items is not null
+	 * @post every item in items is recorded
+	 * @param items
+	 */
+	public void addItems(Collection<Item> items) {
+		for (Item item : items) {
+			addItem(item);
+		}
+	}
+
 	public abstract void consumeItem(Item item);
 
+	public abstract void editItem(Item item);
+
 	public abstract void moveItem(Item item,
 			ProductContainer destination);
 
+	// Product <-> ProductContainer links
+	public abstract void addProductToContainer(
+			Product product,
+			ProductContainer container);
+
+	public abstract void removeProductFromContainer(
+			Product product,
+			ProductContainer container);
+
 	// Products
 	public abstract void addProduct(
 			Product product);
@@ -75,13 +154,8 @@ public abstract class SessionManager {
 			ProductGroup productGroup);
 
 	public abstract void editProductGroup(
-			String oldName,
-			ProductContainer parent); // lookup
-	// by
-	// parent
-	// and
-	// old
-	// name?
+			ProductGroup productGroup,
+			String oldName); // lookup by parent and old name
 
 	public abstract void deleteProductGroup(
 			ProductGroup productGroup);
@@ -0,0 +1,253 @@
+package model.managers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * SnapshotWriter writes encoded snapshots to disk on its own thread, so saving
+ * never blocks the caller on disk I/O. Each snapshot goes to a temporary file
+ * that is synced and then renamed over the real one, so a crash leaves either
+ * the old snapshot or the new one, never a partial file. If saves are
+ * requested faster than they can be written, only the newest one is written.
+ *
+ * @author Group1
+ */
+public class SnapshotWriter implements
+		Runnable {
+
+	private File target;
+
+	private File temp;
+
+	private Thread thread;
+
+	// newest snapshot not yet picked up by the writer thread
+	private byte[] pending;
+
+	private long requested;
+
+	private long completed;
+
+	private int coalesced;
+
+	private int failures;
+
+	private int maxQueueDepth;
+
+	private long lastSaveMillis;
+
+	private long totalSaveMillis;
+
+	private int saves;
+
+	/**
+	 * @pre target is not null
+	 * @post true
+	 * @param target
+	 *            the file the snapshots end up in
+	 */
+	public SnapshotWriter(File target) {
+		this.target = target;
+		this.temp = new File(target.getPath()
+				+ ".tmp");
+	}
+
+	/**
+	 * Queues a snapshot to be written. A snapshot still waiting to be written
+	 * is replaced by this one.
+	 *
+	 * @pre snapshot is not null
+	 * @post snapshot will be written unless a newer one replaces it first
+	 * @param snapshot
+	 *            the encoded snapshot
+	 */
+	public synchronized void submit(
+			byte[] snapshot) {
+		assert snapshot != null;
+		if (this.pending != null) {
+			this.coalesced++;
+		}
+		this.pending = snapshot;
+		this.requested++;
+		this.maxQueueDepth = Math.max(
+				this.maxQueueDepth,
+				getQueueDepth());
+		if (this.thread == null) {
+			this.thread = new Thread(this,
+					"SnapshotWriter");
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Waits until every snapshot submitted so far has been written, or
+	 * replaced by one that has.
+	 *
+	 * @pre true
+	 * @post getQueueDepth() == 0 unless more saves were submitted meanwhile
+	 */
+	public synchronized void flush() {
+		long waitFor = this.requested;
+		while (this.completed < waitFor) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			byte[] snapshot;
+			long sequence;
+			synchronized (this) {
+				while (this.pending == null) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				snapshot = this.pending;
+				sequence = this.requested;
+				this.pending = null;
+			}
+
+			long start = System.currentTimeMillis();
+			boolean written = writeAtomically(snapshot);
+			long elapsed = System
+					.currentTimeMillis() - start;
+
+			synchronized (this) {
+				this.completed = sequence;
+				if (written) {
+					this.saves++;
+					this.lastSaveMillis = elapsed;
+					this.totalSaveMillis += elapsed;
+				} else {
+					this.failures++;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	private boolean writeAtomically(
+			byte[] snapshot) {
+		if (!this.target.getParentFile().exists()) {
+			this.target.getParentFile().mkdirs();
+		}
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(this.temp);
+			out.write(snapshot);
+			out.getFD().sync();
+			out.close();
+			out = null;
+			Files.move(this.temp.toPath(),
+					this.target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of saves requested but not yet on disk
+	 */
+	public synchronized int getQueueDepth() {
+		return (int) (this.requested - this.completed);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the largest queue depth seen so far
+	 */
+	public synchronized int getMaxQueueDepth() {
+		return this.maxQueueDepth;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return how many saves were dropped because a newer one replaced them
+	 */
+	public synchronized int getCoalescedSaves() {
+		return this.coalesced;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return how many snapshots have been written
+	 */
+	public synchronized int getSaveCount() {
+		return this.saves;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return how many snapshot writes failed
+	 */
+	public synchronized int getFailedSaves() {
+		return this.failures;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return milliseconds the last successful write took
+	 */
+	public synchronized long getLastSaveMillis() {
+		return this.lastSaveMillis;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return average milliseconds per successful write
+	 */
+	public synchronized long getAverageSaveMillis() {
+		if (this.saves == 0) {
+			return 0;
+		}
+		return this.totalSaveMillis / this.saves;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "saves=" + this.saves
+				+ " failed=" + this.failures
+				+ " coalesced=" + this.coalesced
+				+ " queueDepth=" + getQueueDepth()
+				+ " maxQueueDepth="
+				+ this.maxQueueDepth
+				+ " lastSaveMillis="
+				+ this.lastSaveMillis
+				+ " averageSaveMillis="
+				+ getAverageSaveMillis();
+	}
+}
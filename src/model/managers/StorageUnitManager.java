@@ -2,10 +2,8 @@ package model.managers;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.NavigableMap;
-import java.util.Observable;
 import java.util.TreeMap;
 
 import model.models.productContainer.StorageUnit;
@@ -26,9 +24,9 @@ import controller.notify.ProductContainerNotifier;
  * @author Group1
  */
 public class StorageUnitManager extends
-		Observable implements Saveable {
+		ObservableManager implements Saveable {
 
-	private static StorageUnitManager instance = null;
+	private static volatile StorageUnitManager instance = null;
 
 	private NavigableMap<String, StorageUnit> storageUnits;
 
@@ -48,7 +46,11 @@ public class StorageUnitManager extends
 	public static StorageUnitManager getInstance() {
 
 		if (instance == null) {
-			instance = new StorageUnitManager();
+			synchronized (StorageUnitManager.class) {
+				if (instance == null) {
+					instance = new StorageUnitManager();
+				}
+			}
 		}
 
 		return instance;
@@ -67,14 +69,21 @@ public class StorageUnitManager extends
 	 * @return
 	 */
 	public void add(StorageUnit storageUnit) {
-		getStorageUnits().put(
-				storageUnit.getName(),
-				storageUnit);
-		// System.out.println("storageUnits: " + getStorageUnits());
-		Notifier notifier = new ProductContainerNotifier(
-				storageUnit);
-		setChanged();
-		notifyObservers(notifier);
+		ModelLock.lockWrite();
+		try {
+			getStorageUnits().put(
+					storageUnit.getName(),
+					storageUnit);
+			// System.out.println("storageUnits: " + getStorageUnits());
+			SessionManager.getInstance()
+					.addStorageUnit(storageUnit);
+			Notifier notifier = new ProductContainerNotifier(
+					storageUnit);
+			setChanged();
+			notifyObservers(notifier);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -95,15 +104,22 @@ public class StorageUnitManager extends
 	 */
 	public void edit(String oldName,
 			String newName) {
-		StorageUnit toEdit = getStorageUnits()
-				.remove(oldName);
-		toEdit.edit(newName);
-		getStorageUnits().put(toEdit.getName(),
-				toEdit);
-		Notifier notifier = new ProductContainerNotifier(
-				toEdit);
-		setChanged();
-		notifyObservers(notifier);
+		ModelLock.lockWrite();
+		try {
+			StorageUnit toEdit = getStorageUnits()
+					.remove(oldName);
+			toEdit.edit(newName);
+			getStorageUnits().put(toEdit.getName(),
+					toEdit);
+			SessionManager.getInstance()
+					.editStorageUnit(oldName, toEdit);
+			Notifier notifier = new ProductContainerNotifier(
+					toEdit);
+			setChanged();
+			notifyObservers(notifier);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -118,11 +134,23 @@ public class StorageUnitManager extends
 	 * @return
 	 */
 	public void delete(String name) {
-		getStorageUnits().remove(name);
-		Notifier notifier = new ProductContainerNotifier(
-				null);
-		setChanged();
-		notifyObservers(notifier);
+		ModelLock.lockWrite();
+		try {
+			StorageUnit deleted = getStorageUnits()
+					.remove(name);
+			if (deleted != null) {
+				ProductManager.getInstance()
+						.unlinkContainer(deleted);
+				SessionManager.getInstance()
+						.deleteStorageUnit(deleted);
+			}
+			Notifier notifier = new ProductContainerNotifier(
+					null);
+			setChanged();
+			notifyObservers(notifier);
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	/**
@@ -156,7 +184,12 @@ public class StorageUnitManager extends
 	 * @return The number of StorageUnits.
 	 */
 	public int getNumStorageUnits() {
-		return getStorageUnits().size();
+		ModelLock.lockRead();
+		try {
+			return getStorageUnits().size();
+		} finally {
+			ModelLock.unlockRead();
+		}
 	}
 
 	/**
@@ -170,13 +203,18 @@ public class StorageUnitManager extends
 	 *         otherwise.
 	 */
 	public boolean contains(String name) {
-		if (name == null) {
-			return false;
-		}
-		if (getStorageUnits().containsKey(name)) {
-			return true;
-		} else {
-			return false;
+		ModelLock.lockRead();
+		try {
+			if (name == null) {
+				return false;
+			}
+			if (getStorageUnits().containsKey(name)) {
+				return true;
+			} else {
+				return false;
+			}
+		} finally {
+			ModelLock.unlockRead();
 		}
 	}
 
@@ -187,32 +225,13 @@ public class StorageUnitManager extends
 	 * @post storageUnits.size() == 0.
 	 */
 	public void deleteAll() {
-		setStorageUnits(new TreeMap<String, StorageUnit>());
-		assert (getStorageUnits().size() == 0);
-	}
-
-	/**
-	 * Writes the data object to the object output stream
-	 * 
-	 * @pre True
-	 * @post The contents of the productGroups have been written to a
-	 *       DataObject.
-	 * @param objectOut
-	 *            The stream where the data is being written to.
-	 * @param objectIn
-	 *            The stream from which the data is read.
-	 */
-	@Override
-	public void writeObjects(
-			ObjectOutputStream objectOut) {
+		ModelLock.lockWrite();
 		try {
-			DataObject data = new DataObject(
-					getStorageUnits());
-			objectOut.writeObject(data);
-		} catch (IOException e) {
-			e.printStackTrace();
+			setStorageUnits(new TreeMap<String, StorageUnit>());
+			assert (getStorageUnits().size() == 0);
+		} finally {
+			ModelLock.unlockWrite();
 		}
-
 	}
 
 	/**
@@ -267,7 +286,12 @@ public class StorageUnitManager extends
 	}
 
 	public void clear() {
-		getStorageUnits().clear();
+		ModelLock.lockWrite();
+		try {
+			getStorageUnits().clear();
+		} finally {
+			ModelLock.unlockWrite();
+		}
 	}
 
 	public NavigableMap<String, StorageUnit> getStorageUnits() {
@@ -2,7 +2,6 @@ package model.managers;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,16 +25,6 @@ public class TestManager implements Saveable {
 		return this.strings;
 	}
 
-	@Override
-	public void writeObjects(
-			ObjectOutputStream objectOut) {
-		try {
-			objectOut.writeObject(this.strings);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
 	@Override
 	public void readObjects(
 			ObjectInputStream objectIn) {
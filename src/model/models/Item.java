@@ -1,8 +1,13 @@
 package model.models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.Date;
 
+import common.util.DateUtils;
 import model.models.barcode.ItemBarcode;
 import model.models.productContainer.ProductContainer;
 
@@ -14,12 +19,44 @@ import model.models.productContainer.ProductContainer;
 public class Item implements Serializable,
 		Comparable<Object> {
 
+	private static final long serialVersionUID = 4652323489318563142L;
+
+	// written with the Date fields items had before their times were packed
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("product",
+					Product.class),
+			new ObjectStreamField("barcode",
+					ItemBarcode.class),
+			new ObjectStreamField("entryDate",
+					Date.class),
+			new ObjectStreamField("exitTime",
+					Date.class),
+			new ObjectStreamField(
+					"expirationDate", Date.class),
+			new ObjectStreamField("container",
+					ProductContainer.class),
+			new ObjectStreamField(
+					"containerPriorToConsume",
+					ProductContainer.class) };
+
+	/**
+	 * Expiration day of an item whose product has no shelf life.
+	 */
+	public static final int NO_EXPIRATION = Integer.MIN_VALUE;
+
+	private static final long NOT_CONSUMED = Long.MIN_VALUE;
+
 	private Product product;
 
 	private ItemBarcode barcode;
 
-	private Date entryDate, exitTime,
-			expirationDate; // custom DateTime class?
+	// days since 1 January 1970 in the local time zone
+	private int entryDay;
+
+	private int expirationDay;
+
+	// milliseconds since 1970, or NOT_CONSUMED
+	private long exitTime;
 
 	private ProductContainer container;
 	private ProductContainer containerPriorToConsume;
@@ -34,7 +71,6 @@ public class Item implements Serializable,
 	 * @param entryDate
 	 * @param container
 	 */
-	@SuppressWarnings("deprecation")
 	public Item(ItemBarcode barcode,
 			Product product, Date entryDate,
 			ProductContainer container) {
@@ -49,31 +85,10 @@ public class Item implements Serializable,
 
 		this.barcode = barcode;
 		this.product = product;
-		this.entryDate = entryDate;
 		this.container = container;
-
-		if (this.product.getShelfLife() > 0) {
-			this.expirationDate = new Date();
-			this.expirationDate
-					.setHours(entryDate
-							.getHours());
-			this.expirationDate
-					.setMinutes(entryDate
-							.getMinutes());
-			this.expirationDate
-					.setSeconds(entryDate
-							.getSeconds());
-
-			this.expirationDate
-					.setYear(entryDate.getYear()
-							+ (this.product
-									.getShelfLife() / 12));
-			this.expirationDate
-					.setMonth(entryDate
-							.getMonth()
-							+ (this.product
-									.getShelfLife() % 12));
-		}
+		this.exitTime = NOT_CONSUMED;
+		setEntryDay(DateUtils.toEpochDay(entryDate
+				.getTime()));
 	}
 
 	// public Item(ProductContainer productContainer, Product product,
@@ -117,16 +132,65 @@ public class Item implements Serializable,
 		return this.barcode;
 	}
 
+	/**
+	 * @pre true
+	 * @post true
+	 * @return midnight at the start of the day this item was entered
+	 */
 	public Date getEntryDate() {
-		return this.entryDate;
+		return new Date(
+				DateUtils.startOfDay(this.entryDay));
 	}
 
-	private Date getExitTime() {
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the day this item was entered, counted from 1 January 1970
+	 */
+	public int getEntryDay() {
+		return this.entryDay;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the time this item was consumed, null if it hasn't been
+	 */
+	public Date getExitTime() {
+		return (this.exitTime == NOT_CONSUMED) ? null
+				: new Date(this.exitTime);
+	}
+
+	/**
+	 * @pre this item is consumed
+	 * @post true
+	 * @return the time this item was consumed, in milliseconds since 1970
+	 */
+	public long getExitMillis() {
+		assert this.exitTime != NOT_CONSUMED;
 		return this.exitTime;
 	}
 
+	/**
+	 * @pre true
+	 * @post true
+	 * @return midnight at the start of the day this item expires, null if its
+	 *         product has no shelf life
+	 */
 	public Date getExpirationDate() {
-		return this.expirationDate;
+		return (this.expirationDay == NO_EXPIRATION) ? null
+				: new Date(DateUtils
+						.startOfDay(this.expirationDay));
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the day this item expires, counted from 1 January 1970, or
+	 *         NO_EXPIRATION
+	 */
+	public int getExpirationDay() {
+		return this.expirationDay;
 	}
 
 	public ItemBarcode getItemBarcode() {
@@ -187,7 +251,21 @@ public class Item implements Serializable,
 	 *       product container set to null.
 	 */
 	public void consume() {
-		this.exitTime = new Date();
+		consume(new Date());
+	}
+
+	/**
+	 * Item gets consumed at the given time. Used when replaying a consume that
+	 * was recorded earlier.
+	 * 
+	 * @pre exitTime != null
+	 * @post item is consumed, exitTime set to exitTime, item product container
+	 *       set to null.
+	 * @param exitTime
+	 */
+	public void consume(Date exitTime) {
+		assert exitTime != null;
+		this.exitTime = exitTime.getTime();
 		this.containerPriorToConsume = this.container;
 		this.container = ProductContainer.CONSUMED_ITEMS;
 	}
@@ -201,7 +279,7 @@ public class Item implements Serializable,
 	}
 
 	/**
-	 * Equals based on compareTo. Only equal if entry/exit times are same exact.
+	 * Equals based on barcodes, which are unique to an item.
 	 */
 	@Override
 	public boolean equals(Object obj) {
@@ -209,23 +287,8 @@ public class Item implements Serializable,
 				|| (obj.getClass() != Item.class)) {
 			return false;
 		}
-		Item newItem = (Item) obj;
-		if (this.barcode.equals(newItem.barcode)) {
-			return true;
-		}
-
-		if (newItem.exitTime != null) {
-			if (this.exitTime == null) {
-				return false;
-			} else {
-				return this.exitTime
-						.equals(newItem.exitTime);
-			}
-		} else if (this.exitTime != null) {
-			return false;
-		}
-		return this.entryDate
-				.equals(newItem.entryDate);
+		return this.barcode
+				.equals(((Item) obj).barcode);
 	}
 
 	/**
@@ -233,8 +296,8 @@ public class Item implements Serializable,
 	 * 
 	 * If both are Items, it compares exit times (if both have, if one has and
 	 * the other doesn't then it puts the exit time one towards the end of the
-	 * list). Otherwise the one with the earlier date goes in front. If the
-	 * dates and times are the same, then it orders by barcode.
+	 * list). Otherwise the one with the earlier entry day goes in front. If
+	 * the days or times are the same, then it orders by barcode.
 	 */
 	@Override
 	public int compareTo(Object obj) {
@@ -246,34 +309,21 @@ public class Item implements Serializable,
 
 		// assert !newItem.barcode.equals(barcode); //this should never happen
 
-		if (newItem.exitTime != null) {
-			if (this.exitTime == null) {
+		if (newItem.exitTime != NOT_CONSUMED) {
+			if (this.exitTime == NOT_CONSUMED) {
 				return -1;
-			} else {
-				int dateStamp = this.exitTime
-						.compareTo(newItem.exitTime);
-				if (dateStamp == 0) {
-					return this.barcode
-							.toString()
-							.compareTo(
-									newItem.barcode
-											.toString());
-				} else {
-					return dateStamp;
-				}
+			} else if (this.exitTime != newItem.exitTime) {
+				return (this.exitTime < newItem.exitTime) ? -1
+						: 1;
 			}
-		} else if (this.exitTime != null) {
+		} else if (this.exitTime != NOT_CONSUMED) {
 			return 1;
+		} else if (this.entryDay != newItem.entryDay) {
+			return (this.entryDay < newItem.entryDay) ? -1
+					: 1;
 		}
-		int dateStamp = this.entryDate
-				.compareTo(newItem.entryDate);
-		if (dateStamp == 0) {
-			return this.barcode.toString()
-					.compareTo(
-							newItem.barcode
-									.toString());
-		}
-		return dateStamp;
+		return this.barcode
+				.compareTo(newItem.barcode);
 	}
 
 	@Override
@@ -293,28 +343,62 @@ public class Item implements Serializable,
 	 * @param entryDate
 	 */
 	public void setEntryDate(Date entryDate) {
-		this.entryDate = entryDate;
-		if (this.product.getShelfLife() > 0) {
-			this.expirationDate = new Date();
-			this.expirationDate
-					.setHours(entryDate
-							.getHours());
-			this.expirationDate
-					.setMinutes(entryDate
-							.getMinutes());
-			this.expirationDate
-					.setSeconds(entryDate
-							.getSeconds());
-
-			this.expirationDate
-					.setYear(entryDate.getYear()
-							+ (this.product
-									.getShelfLife() / 12));
-			this.expirationDate
-					.setMonth(entryDate
-							.getMonth()
-							+ (this.product
-									.getShelfLife() % 12));
-		}
+		setEntryDay(DateUtils.toEpochDay(entryDate
+				.getTime()));
+	}
+
+	private void setEntryDay(int entryDay) {
+		this.entryDay = entryDay;
+		int shelfLife = this.product.getShelfLife();
+		this.expirationDay = (shelfLife > 0) ? DateUtils
+				.addMonths(entryDay, shelfLife)
+				: NO_EXPIRATION;
+	}
+
+	private void writeObject(ObjectOutputStream out)
+			throws IOException {
+		ObjectOutputStream.PutField fields = out
+				.putFields();
+		fields.put("product", this.product);
+		fields.put("barcode", this.barcode);
+		fields.put("entryDate", getEntryDate());
+		fields.put("exitTime", getExitTime());
+		fields.put("expirationDate",
+				getExpirationDate());
+		fields.put("container", this.container);
+		fields.put("containerPriorToConsume",
+				this.containerPriorToConsume);
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream.GetField fields = in
+				.readFields();
+		this.product = (Product) fields.get(
+				"product", null);
+		this.barcode = (ItemBarcode) fields.get(
+				"barcode", null);
+		this.container = (ProductContainer) fields
+				.get("container", null);
+		this.containerPriorToConsume = (ProductContainer) fields
+				.get("containerPriorToConsume",
+						null);
+
+		// the product may not be read yet, so the stored expiration is kept
+		Date entryDate = (Date) fields.get(
+				"entryDate", null);
+		Date exitTime = (Date) fields.get(
+				"exitTime", null);
+		Date expirationDate = (Date) fields.get(
+				"expirationDate", null);
+		this.entryDay = DateUtils.toEpochDay(entryDate
+				.getTime());
+		this.exitTime = (exitTime == null) ? NOT_CONSUMED
+				: exitTime.getTime();
+		this.expirationDay = (expirationDate == null) ? NO_EXPIRATION
+				: DateUtils.toEpochDay(expirationDate
+						.getTime());
 	}
-}
\ No newline at end of file
+}
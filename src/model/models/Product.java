@@ -16,6 +16,9 @@ import model.models.unit.Unit;
  */
 public class Product implements Serializable,
 		Comparable<Object> {
+
+	private static final long serialVersionUID = 5281070636261341599L;
+
 	private int threeMonthSupply;
 
 	private Date creationDate;
@@ -44,6 +47,9 @@ public class Product implements Serializable,
 	 *            The shelf life of the Product
 	 * @param threeMonthSupply
 	 *            The three-month supply of the Product
+	 * @param cont
+	 *            The first container of the Product, or null to add the
+	 *            containers later
 	 */
 	public Product(ProductBarcode barcode,
 			String description, Unit size,
@@ -56,7 +62,9 @@ public class Product implements Serializable,
 		this.threeMonthSupply = threeMonthSupply;
 		this.creationDate = new Date();
 		this.containers = new HashSet<ProductContainer>();
-		this.containers.add(cont);
+		if (cont != null) {
+			this.containers.add(cont);
+		}
 	}
 
 	/**
@@ -151,6 +159,21 @@ public class Product implements Serializable,
 		return this.creationDate;
 	}
 
+	/**
+	 * Restores the Product's creation date when it is read back from a
+	 * snapshot.
+	 * 
+	 * @pre creationDate != null
+	 * @post getCreationDate() == creationDate
+	 * 
+	 * @param creationDate
+	 *            The Product's original creation date.
+	 */
+	public void setCreationDate(Date creationDate) {
+		assert creationDate != null;
+		this.creationDate = creationDate;
+	}
+
 	/**
 	 * Returns the Product's barcode.
 	 * 
@@ -221,16 +244,13 @@ public class Product implements Serializable,
 	public void removeFromContainer(
 			ProductContainer container) {
 		assert (container != null);
-		Iterator<ProductContainer> itr = this.containers
-				.iterator();
-		HashSet<ProductContainer> newSet = new HashSet<ProductContainer>();
-		while (itr.hasNext()) {
-			ProductContainer cont = itr.next();
-			if (!cont.equals(container)) {
-				newSet.add(cont);
-			}
+		if (!this.containers.remove(container)) {
+			// a set read from an older data file may hold containers under the
+			// hash codes they had before they were fully read
+			this.containers = new HashSet<ProductContainer>(
+					this.containers);
+			this.containers.remove(container);
 		}
-		this.containers = newSet;
 	}
 
 	/**
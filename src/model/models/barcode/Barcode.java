@@ -1,19 +1,64 @@
 package model.models.barcode;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 /**
  * Abstract parent class to ItemBarcode and ProductBarcode
- * 
+ *
+ * A barcode of up to 18 digits, which is every UPC and EAN code, is kept
+ * packed in a long as 10^length + the digits, so leading zeros survive and
+ * equality, hashing and ordering are done on the number. Anything else is
+ * kept as the string it was made from. The string of a packed barcode is only
+ * built when toString() is called.
+ *
  * @author Group1
  */
 public abstract class Barcode implements
 		Serializable, Comparable<Object> {
 
-	protected final String barcode;
+	// the value older data files were written with
+	private static final long serialVersionUID = -5053408019833789742L;
+
+	// written as the string, the way it always was
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField(
+			"barcode", String.class) };
+
+	/** longest barcode that is packed */
+	protected static final int MAX_PACKED_LENGTH = 18;
+
+	private static final long[] POWERS = new long[MAX_PACKED_LENGTH + 1];
+
+	static {
+		POWERS[0] = 1;
+		for (int c = 1; c < POWERS.length; c++) {
+			POWERS[c] = POWERS[c - 1] * 10;
+		}
+	}
+
+	// 10^length + digits, or 0 if the barcode isn't packed
+	private long packed;
+
+	// only set if the barcode isn't packed
+	private String text;
 
 	protected Barcode(String barcode) {
-		this.barcode = barcode;
+		setCode(barcode);
+	}
+
+	/**
+	 * @pre 0 <= length <= MAX_PACKED_LENGTH and 0 <= digits < 10^length
+	 * @post toString() is digits padded with zeros to length
+	 */
+	protected Barcode(long digits, int length) {
+		assert (length >= 0)
+				&& (length <= MAX_PACKED_LENGTH);
+		assert (digits >= 0)
+				&& (digits < POWERS[length]);
+		this.packed = POWERS[length] + digits;
 	}
 
 	/**
@@ -21,27 +66,72 @@ public abstract class Barcode implements
 	 * @post true Returns a string representation of the barcode
 	 */
 	@Override
-	public String toString() { // remember to remove below
-		// return barcode + "[" + hashCode() + "]";
-		return this.barcode;
+	public String toString() {
+		if (!isPacked()) {
+			return this.text;
+		}
+		int length = length();
+		char[] chars = new char[length];
+		long digits = this.packed - POWERS[length];
+		for (int c = length - 1; c >= 0; c--) {
+			chars[c] = (char) ('0' + (digits % 10));
+			digits /= 10;
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return true if the barcode is all digits and is held as a number
+	 */
+	public boolean isPacked() {
+		return this.packed != 0;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the number of characters in the barcode
+	 */
+	public int length() {
+		if (!isPacked()) {
+			return (this.text == null) ? 0
+					: this.text.length();
+		}
+		int length = 0;
+		while ((length < MAX_PACKED_LENGTH)
+				&& (POWERS[length + 1] <= this.packed)) {
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the digits of the barcode as a number, or -1 if it isn't packed
+	 */
+	public long getDigits() {
+		return isPacked() ? this.packed
+				- POWERS[length()] : -1;
 	}
 
 	@Override
 	public abstract boolean equals(Object bc);
 
-	// if(bc != null && bc instanceof Barcode) {
-	// return hashCode() == ((Barcode)bc).hashCode();
-	// }
-	// return false;
-	// assert (bc instanceof Barcode);
-	// boolean ret = false;
-	// if (barcode.equalsIgnoreCase(((Barcode) bc).toString()))
-	// ret = true;
-	// return ret;
-
 	@Override
-	public abstract int hashCode();
+	public int hashCode() {
+		if (!isPacked()) {
+			return (this.text == null) ? 0
+					: this.text.hashCode();
+		}
+		return (int) (this.packed ^ (this.packed >>> 32));
+	}
 
+	/**
+	 * Orders barcodes the way their strings would be ordered.
+	 */
 	@Override
 	public int compareTo(Object obj) {
 		if ((obj == null)
@@ -49,8 +139,84 @@ public abstract class Barcode implements
 			return -1;
 		}
 		Barcode other = (Barcode) obj;
-		return this.barcode
-				.compareTo(other.barcode);
+		if (!isPacked() || !other.isPacked()) {
+			return toString().compareTo(
+					other.toString());
+		}
+		if (this.packed == other.packed) {
+			return 0;
+		}
+		int length = length();
+		int otherLength = other.length();
+		long digits = this.packed - POWERS[length];
+		long otherDigits = other.packed
+				- POWERS[otherLength];
+
+		// line the digits up on the left; a prefix goes first
+		if (length < otherLength) {
+			digits *= POWERS[otherLength - length];
+		} else {
+			otherDigits *= POWERS[length
+					- otherLength];
+		}
+		if (digits != otherDigits) {
+			return (digits < otherDigits) ? -1 : 1;
+		}
+		return (length < otherLength) ? -1 : 1;
+	}
+
+	/**
+	 * @pre other is not null
+	 * @post true
+	 * @return true if other holds the same characters as this barcode
+	 */
+	protected boolean sameCode(Barcode other) {
+		if (this.packed != other.packed) {
+			return false;
+		}
+		return isPacked()
+				|| ((this.text == null) ? (other.text == null)
+						: this.text.equals(other.text));
+	}
+
+	private void setCode(String barcode) {
+		this.packed = pack(barcode);
+		this.text = (this.packed == 0) ? barcode
+				: null;
+	}
+
+	/**
+	 * @return 10^length + digits, or 0 if barcode is null, too long or has a
+	 *         character that isn't a digit
+	 */
+	private static long pack(String barcode) {
+		if ((barcode == null)
+				|| (barcode.length() > MAX_PACKED_LENGTH)) {
+			return 0;
+		}
+		long digits = 0;
+		for (int c = 0; c < barcode.length(); c++) {
+			int digit = barcode.charAt(c) - '0';
+			if ((digit < 0) || (digit > 9)) {
+				return 0;
+			}
+			digits = (digits * 10) + digit;
+		}
+		return POWERS[barcode.length()] + digits;
 	}
 
+	private void writeObject(ObjectOutputStream out)
+			throws IOException {
+		ObjectOutputStream.PutField fields = out
+				.putFields();
+		fields.put("barcode", toString());
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException,
+			ClassNotFoundException {
+		setCode((String) in.readFields().get(
+				"barcode", null));
+	}
 }
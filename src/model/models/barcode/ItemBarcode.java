@@ -10,9 +10,15 @@ import java.io.Serializable;
 public class ItemBarcode extends Barcode
 		implements Serializable {
 
+	// the value older data files were written with
+	private static final long serialVersionUID = 3648454627115192686L;
+
 	public static final ItemBarcode BOGUS_ITEMBARCODE = new ItemBarcode(
 			"000000000000");
 
+	/** number of digits in a UPC-A barcode */
+	public static final int UPC_LENGTH = 12;
+
 	/**
 	 * @pre barcode is a valid item barcode. Inorder to be a valid item barcode
 	 *      it must be a valid UPC barcode and unique.
@@ -24,6 +30,16 @@ public class ItemBarcode extends Barcode
 		// assert isValid(barcode); //took out for testing bad itembarcodes
 	}
 
+	/**
+	 * @pre 0 <= upc < 10^12
+	 * @post toString() is upc padded with zeros to twelve digits
+	 * @param upc
+	 *            the twelve digits of the barcode, check digit last
+	 */
+	public ItemBarcode(long upc) {
+		super(upc, UPC_LENGTH);
+	}
+
 	/**
 	 * Used to validate item barcode strings. Inorder to be a valid item barcode
 	 * it must be a valid UPC barcode and unique.
@@ -33,58 +49,19 @@ public class ItemBarcode extends Barcode
 	 * @return true if the barcode string is a valid item barcode
 	 */
 	public static boolean isValid(String barcode) {
-		if (barcode == null) {
+		if ((barcode == null)
+				|| (barcode.length() != UPC_LENGTH)) {
 			return false;
 		}
-		int evenValues = 0;
-		int oddValues = 0;
-		if (barcode.length() == 12) {
-			if (!Character
-					.isDigit(barcode.charAt(barcode
-							.length() - 1))) {
+		long upc = 0;
+		for (int c = 0; c < UPC_LENGTH; c++) {
+			int digit = barcode.charAt(c) - '0';
+			if ((digit < 0) || (digit > 9)) {
 				return false;
 			}
-			for (int c = 0; c < (barcode.length() - 1); c++) {
-				if (!Character.isDigit(barcode
-						.charAt(c))) {
-					return false;
-				} else {
-					if ((c % 2) == 0) {
-						oddValues += Integer
-								.parseInt(Character
-										.toString(barcode
-												.charAt(c)));
-					} else {
-						evenValues += Integer
-								.parseInt(Character
-										.toString(barcode
-												.charAt(c)));
-					}
-				}
-			}
-			int checkSum = oddValues * 3;
-			checkSum += evenValues;
-			checkSum = checkSum % 10;
-			checkSum = 10 - checkSum;
-			// possibly wrong
-			if (checkSum == 10) {
-				checkSum = 0;
-			}
-			// end
-			if (checkSum == Integer
-					.parseInt(Character.toString(barcode.charAt(barcode
-							.length() - 1)))) {
-				return true;
-			}
-			System.out.println(barcode
-					+ " should be "
-					+ barcode.substring(0,
-							barcode.length() - 1)
-					+ checkSum);
-			System.exit(0);
-			return false;
+			upc = (upc * 10) + digit;
 		}
-		return false;
+		return hasValidCheckDigit(upc);
 	}
 
 	/**
@@ -92,15 +69,40 @@ public class ItemBarcode extends Barcode
 	 * must be a valid UPC barcode and unique.
 	 * 
 	 * @param barcode
-	 *            the barcode string to validate
-	 * @return true if the barcode string is a valid item barcode
+	 *            the barcode to validate
+	 * @return true if the barcode is a valid item barcode
 	 */
 	public static boolean isValid(
 			ItemBarcode barcode) {
-		if (barcode == null) {
-			return false;
+		return (barcode != null)
+				&& barcode.isPacked()
+				&& (barcode.length() == UPC_LENGTH)
+				&& hasValidCheckDigit(barcode
+						.getDigits());
+	}
+
+	/**
+	 * @pre 0 <= body < 10^11
+	 * @post true
+	 * @return the check digit of the UPC-A barcode whose first eleven digits
+	 *         are body
+	 */
+	public static int checkDigit(long body) {
+		// counting from the left, digits 1, 3, ..., 11 are weighted by 3;
+		// the last of those is the last digit of body
+		int sum = 0;
+		for (int c = UPC_LENGTH - 2; c >= 0; c--) {
+			int digit = (int) (body % 10);
+			body /= 10;
+			sum += ((c % 2) == 0) ? (digit * 3)
+					: digit;
 		}
-		return isValid(barcode.barcode);
+		return (10 - (sum % 10)) % 10;
+	}
+
+	private static boolean hasValidCheckDigit(
+			long upc) {
+		return checkDigit(upc / 10) == (upc % 10);
 	}
 
 	/**
@@ -118,14 +120,6 @@ public class ItemBarcode extends Barcode
 				|| (obj.getClass() != ItemBarcode.class)) {
 			return false;
 		}
-		ItemBarcode other = (ItemBarcode) obj;
-
-		// return other.barcode.equals(barcode);
-		return other.hashCode() == hashCode();
-	}
-
-	@Override
-	public int hashCode() {
-		return this.barcode.hashCode();
+		return sameCode((ItemBarcode) obj);
 	}
 }
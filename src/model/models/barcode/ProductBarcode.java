@@ -10,6 +10,9 @@ import java.io.Serializable;
 public class ProductBarcode extends Barcode
 		implements Serializable {
 
+	// the value older data files were written with
+	private static final long serialVersionUID = 1448533600667255585L;
+
 	/**
 	 * @pre barcode is a valid non-empty numeric product barcode string
 	 * @post true
@@ -35,29 +38,44 @@ public class ProductBarcode extends Barcode
 				|| barcode.equals("")) {
 			return false;
 		}
-		if (!barcode.matches("[0-9]*")) {
-			return false;
+		for (int c = 0; c < barcode.length(); c++) {
+			char digit = barcode.charAt(c);
+			if ((digit < '0') || (digit > '9')) {
+				return false;
+			}
 		}
 		return true;
 	}
 
+	/**
+	 * Used to validate product barcodes. In order to be a valid product barcode
+	 * it must be a non empty numeric string.
+	 * 
+	 * @pre true
+	 * @post correct boolean value for validity of barcode
+	 * @param barcode
+	 *            the barcode to validate
+	 * @return true if barcode is a valid product barcode
+	 */
+	public static boolean isValid(
+			ProductBarcode barcode) {
+		if (barcode == null) {
+			return false;
+		}
+		if (barcode.isPacked()) {
+			return barcode.length() > 0;
+		}
+		// too long to pack, or not numeric
+		return (barcode.length() > MAX_PACKED_LENGTH)
+				&& isValid(barcode.toString());
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if ((obj == null)
 				|| (obj.getClass() != ProductBarcode.class)) {
 			return false;
 		}
-		ProductBarcode other = (ProductBarcode) obj;
-
-		return other.hashCode() == hashCode();// other.barcode.equals(barcode);
+		return sameCode((ProductBarcode) obj);
 	}
-
-	int hashcode = -1;// for debugging purposes
-
-	@Override
-	public int hashCode() {
-		this.hashcode = this.barcode.hashCode();
-		return this.hashcode;
-	}
-
 }
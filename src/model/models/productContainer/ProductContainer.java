@@ -1,8 +1,14 @@
 package model.models.productContainer;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import model.models.Item;
 import model.models.Product;
@@ -13,27 +19,56 @@ import model.models.barcode.ProductBarcode;
  * 
  * @author Chris McNeill
  * @invariant productGroups.size() >= 0
- * @invariant items.size() >= 0
+ * @invariant itemCount >= 0
  * @invariant products.size() >= 0
  * */
 public abstract class ProductContainer implements
 		Serializable {
 
+	private static final long serialVersionUID = -3834375263032375167L;
+
 	public final static ProductContainer CONSUMED_ITEMS = null;
 
+	private static final AtomicInteger NEXT_ID = new AtomicInteger(
+			1);
+
+	// identifies this container for as long as the program runs; it doesn't
+	// change when the container is renamed and isn't saved
+	private transient int id;
+
 	protected String name;
 
 	protected List<ProductGroup> productGroups;
 
-	protected List<Product> products;
+	// insertion ordered set; older data files hold a LinkedList here
+	protected Collection<Product> products;
+
+	// the ItemManager keeps the items themselves; a container only counts
+	// the ones directly in it, in all and for each product
+	private transient int itemCount;
 
-	protected List<Item> items;
+	private transient HashMap<ProductBarcode, int[]> itemCounts;
 
 	protected ProductContainer(String name) {
+		this.id = NEXT_ID.getAndIncrement();
 		this.name = name;
 		this.productGroups = new LinkedList<ProductGroup>();
-		this.items = new LinkedList<Item>();
-		this.products = new LinkedList<Product>();
+		this.products = new LinkedHashSet<Product>();
+		this.itemCounts = new HashMap<ProductBarcode, int[]>();
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.id = NEXT_ID.getAndIncrement();
+		// the items older files hold are counted again as the ItemManager
+		// indexes them
+		this.itemCounts = new HashMap<ProductBarcode, int[]>();
+		if (!(this.products instanceof LinkedHashSet)) {
+			this.products = new LinkedHashSet<Product>(
+					this.products);
+		}
 	}
 
 	/**
@@ -48,6 +83,7 @@ public abstract class ProductContainer implements
 	 */
 	public void addProductGroup(ProductGroup toAdd) {
 		this.productGroups.add(toAdd);
+		getStorageUnit().indexProductGroup(toAdd);
 	}
 
 	/**
@@ -64,6 +100,10 @@ public abstract class ProductContainer implements
 			ProductGroup toDelete) {
 		boolean success = this.productGroups
 				.remove(toDelete);
+		if (success) {
+			getStorageUnit().unindexProductGroup(
+					toDelete);
+		}
 
 		return success;
 	}
@@ -79,7 +119,44 @@ public abstract class ProductContainer implements
 	 *            The item being added to this ProductContainer.
 	 */
 	public void addItem(Item toAdd) {
-		this.items.add(toAdd);
+		int[] count = this.itemCounts.get(toAdd
+				.getProduct().getBarcode());
+		if (count == null) {
+			count = new int[1];
+			this.itemCounts.put(toAdd.getProduct()
+					.getBarcode(), count);
+		}
+		count[0]++;
+		this.itemCount++;
+	}
+
+	/**
+	 * Adds a batch of Items to the ProductContainer.
+	 * 
+	 * @pre every item in toAdd has been validated with Item's isValid method
+	 * @post every item in toAdd is contained within this ProductContainer
+	 * 
+	 * @param toAdd
+	 *            The Items being added.
+	 */
+	public void addItems(Collection<Item> toAdd) {
+		HashMap<ProductBarcode, int[]> counts = this.itemCounts;
+		ProductBarcode lastBarcode = null;
+		int[] count = null;
+		for (Item item : toAdd) {
+			ProductBarcode barcode = item
+					.getProduct().getBarcode();
+			if (!barcode.equals(lastBarcode)) {
+				lastBarcode = barcode;
+				count = counts.get(barcode);
+				if (count == null) {
+					count = new int[1];
+					counts.put(barcode, count);
+				}
+			}
+			count[0]++;
+		}
+		this.itemCount += toAdd.size();
 	}
 
 	/**
@@ -93,10 +170,17 @@ public abstract class ProductContainer implements
 	 * @return True if removal was successful, false otherwise.
 	 */
 	public boolean removeItem(Item toRemove) {
-		boolean success = this.items
-				.remove(toRemove);
-
-		return success;
+		int[] count = this.itemCounts.get(toRemove
+				.getProduct().getBarcode());
+		if (count == null) {
+			return false;
+		}
+		if (--count[0] == 0) {
+			this.itemCounts.remove(toRemove
+					.getProduct().getBarcode());
+		}
+		this.itemCount--;
+		return true;
 	}
 
 	/**
@@ -111,6 +195,8 @@ public abstract class ProductContainer implements
 	 */
 	public void addProduct(Product toAdd) {
 		this.products.add(toAdd);
+		getStorageUnit().indexProduct(
+				toAdd.getBarcode(), this);
 	}
 
 	/**
@@ -126,6 +212,10 @@ public abstract class ProductContainer implements
 	public boolean removeProduct(Product toRemove) {
 		boolean success = this.products
 				.remove(toRemove);
+		if (success) {
+			getStorageUnit().unindexProduct(
+					toRemove.getBarcode(), this);
+		}
 
 		return success;
 	}
@@ -138,7 +228,7 @@ public abstract class ProductContainer implements
 	 * @return True if this ProductContainer contains no items, false otherwise.
 	 */
 	public boolean containsNoItems() {
-		return (this.items.size() == 0);
+		return (this.itemCount == 0);
 	}
 
 	/**
@@ -207,31 +297,8 @@ public abstract class ProductContainer implements
 	public boolean containsProduct(
 			ProductBarcode productBarcode) {
 		assert ProductBarcode
-				.isValid(productBarcode
-						.toString());
-		// System.out.println("products size = " + this.products.size());
-		for (int c = 0; c < this.products.size(); c++) {
-			// System.out.println(sb.toString() + " " + productBarcode + " - " +
-			// this.products.get(c).getBarcode());
-			if (this.products.get(c).getBarcode()
-					.equals(productBarcode)) {
-				return true;
-			}
-		}
-		// System.out.println("productGroups size = " +
-		// this.productGroups.size());
-		for (int c = 0; c < this.productGroups
-				.size(); c++) {
-
-			// System.out.println(sb.toString() + " " + productBarcode + " - " +
-			// this.productGroups.get(c).getName());
-			if (this.productGroups.get(c)
-					.containsProduct(
-							productBarcode)) {
-				return true;
-			}
-		}
-		return false;
+				.isValid(productBarcode);
+		return findProductContainer(productBarcode) != null;
 	}
 
 	/**
@@ -268,21 +335,20 @@ public abstract class ProductContainer implements
 	 */
 	public ProductContainer findProductContainer(
 			ProductBarcode productBarcode) {
-		for (int c = 0; c < this.products.size(); c++) {
-			if (this.products.get(c).getBarcode()
-					.equals(productBarcode)) {
-				return this;
+		ProductContainer found = getStorageUnit()
+				.lookupProduct(productBarcode);
+		// the index covers the whole storage unit, so make sure the hit is
+		// this container or one below it
+		ProductContainer ancestor = found;
+		while (ancestor != null) {
+			if (ancestor == this) {
+				return found;
 			}
-		}
-
-		for (int c = 0; c < this.productGroups
-				.size(); c++) {
-			ProductContainer foundProductContainer = this.productGroups
-					.get(c).findProductContainer(
-							productBarcode);
-			if (foundProductContainer != null) {
-				return foundProductContainer;
+			if (ancestor.getClass() == StorageUnit.class) {
+				return null;
 			}
+			ancestor = ((ProductGroup) ancestor)
+					.getParent();
 		}
 		return null;
 	}
@@ -329,21 +395,10 @@ public abstract class ProductContainer implements
 	 * @post True
 	 * @return A list of Products.
 	 */
-	public List<Product> getProducts() {
+	public Collection<Product> getProducts() {
 		return this.products;
 	}
 
-	/**
-	 * Gets a list of all Items contained in this immediate ProductContainer.
-	 * 
-	 * @pre True
-	 * @post True
-	 * @return A list of Items.
-	 */
-	public List<Item> getItems() {
-		return this.items;
-	}
-
 	/**
 	 * Checks if the name of a potential ProductContainer is valid.
 	 * 
@@ -361,26 +416,46 @@ public abstract class ProductContainer implements
 		return true;
 	}
 
+	/**
+	 * Returns the id this ProductContainer was given when it was created or
+	 * loaded.
+	 * 
+	 * @pre True
+	 * @post True
+	 * @return a positive id no other ProductContainer has
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * ProductContainers are only equal to themselves. The managers key their
+	 * indexes on containers, and a container keeps its id when it is renamed
+	 * or its parent is, so renaming one needs no rehashing.
+	 */
 	@Override
-	public abstract boolean equals(Object obj);
+	public final boolean equals(Object obj) {
+		return this == obj;
+	}
 
 	@Override
-	public abstract int hashCode();
+	public final int hashCode() {
+		return this.id;
+	}
 
+	/**
+	 * Counts the items of a product directly in this ProductContainer.
+	 * 
+	 * @pre product is not null
+	 * @post True
+	 * @param product
+	 * @return the number of items of product in this ProductContainer
+	 */
 	public int getItemCountByProduct(
 			Product product) {
-		// Item[] items = new Items[];
-		// ArrayList<Item> itemsByProduct = new ArrayList<Item>();
-		int ret = 0;
-		for (int c = 0; c < this.items.size(); c++) {
-			if (this.items.get(c).getProduct()
-					.equals(product)) {
-				ret++;
-				// itemsByProduct.add(items.get(c));
-			}
-		}
-		// return itemsByProduct.size();
-		return ret;
+		int[] count = this.itemCounts.get(product
+				.getBarcode());
+		return count == null ? 0 : count[0];
 	}
 
 	public abstract String getParentName();
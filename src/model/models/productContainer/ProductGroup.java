@@ -12,6 +12,9 @@ import model.models.unit.UnitType;
  */
 public class ProductGroup extends
 		ProductContainer implements Serializable {
+
+	private static final long serialVersionUID = 1909101828176550070L;
+
 	private ProductContainer parent;
 
 	private Unit threeMonthSupply;
@@ -127,44 +130,6 @@ public class ProductGroup extends
 		return this.parent;
 	}
 
-	/**
-	 * Creates a hash-code for this ProductGroup.
-	 * 
-	 * @pre True
-	 * @post True
-	 * @return A hash-code.
-	 */
-	@Override
-	public int hashCode() {
-		// <<<<<<< HEAD
-		//
-		// //System.out.println("hashcode");
-		// =======
-		if ((this.name == null)
-				|| (this.parent == null)) {
-			return 1;
-		}
-		// >>>>>>> 373f842cf4cac40f77d1ff8db8e2af6381378974 .close()
-		assert this.name != null : "null productGroup name but parent is "
-				+ this.parent.name;
-		assert this.parent != null : "null parent but name is "
-				+ this.name; // new
-		// ProductGroup(
-		return this.name.hashCode()
-				+ this.parent.hashCode();
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if ((obj == null)
-				|| (obj.getClass() != ProductGroup.class)) {
-			return false;
-		} else {
-			return (hashCode() == ((ProductGroup) obj)
-					.hashCode());
-		}
-	}
-
 	@Override
 	public String toString() {
 		if (this.parent == null) {
@@ -1,6 +1,12 @@
 package model.models.productContainer;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import model.models.Product;
+import model.models.barcode.ProductBarcode;
 
 /**
  * Holds Products and Items.
@@ -9,6 +15,13 @@ import java.io.Serializable;
  */
 public class StorageUnit extends ProductContainer
 		implements Serializable {
+
+	private static final long serialVersionUID = 6192870497306785688L;
+
+	// the containers in this storage unit holding each product, in the order
+	// they were added; not serialized, see rebuildProductIndex()
+	private transient HashMap<ProductBarcode, List<ProductContainer>> productIndex;
+
 	/**
 	 * Creates a new StorageUnit object.
 	 * 
@@ -20,6 +33,7 @@ public class StorageUnit extends ProductContainer
 	public StorageUnit(String name) {
 		super(name);
 		// this.name = name;
+		this.productIndex = new HashMap<ProductBarcode, List<ProductContainer>>();
 	}
 
 	/**
@@ -59,44 +73,110 @@ public class StorageUnit extends ProductContainer
 		return true;
 	}
 
+	@Override
+	public String toString() {
+		return this.name;
+	}
+
+	@Override
+	public String getParentName() {
+		return this.name;
+	}
+
 	/**
-	 * Creates a hash-code for this StorageUnit.
+	 * Looks up the container in this storage unit that holds the product.
+	 * While a product is being moved between two containers of this unit, the
+	 * one it was in first is returned.
 	 * 
-	 * @pre True
-	 * @post True
-	 * @return A hash-code corresponding to this StorageUnit.
+	 * @pre productBarcode is not null
+	 * @post true
+	 * @param productBarcode
+	 * @return the container holding the product, or null if there is none
 	 */
-	@Override
-	public int hashCode() {
-		if (this.name == null) {
-			return new String(
-					"root - null name in storage unit")
-					.hashCode();
-		}
-		return this.name.hashCode();
+	ProductContainer lookupProduct(
+			ProductBarcode productBarcode) {
+		assert this.productIndex != null : "index not rebuilt after deserialization";
+		List<ProductContainer> holders = this.productIndex
+				.get(productBarcode);
+		return (holders == null) ? null : holders
+				.get(0);
 	}
 
-	@Override
-	public boolean equals(Object obj) {
-		int myHash = hashCode();
+	void indexProduct(
+			ProductBarcode productBarcode,
+			ProductContainer container) {
+		if (this.productIndex == null) {
+			// rebuildProductIndex() will pick it up from the tree
+			return;
+		}
+		List<ProductContainer> holders = this.productIndex
+				.get(productBarcode);
+		if (holders == null) {
+			holders = new ArrayList<ProductContainer>(
+					1);
+			this.productIndex.put(productBarcode,
+					holders);
+		}
+		holders.add(container);
+	}
 
-		if ((obj == null)
-				|| (obj.getClass() != StorageUnit.class)) {
-			return false;
+	void unindexProduct(
+			ProductBarcode productBarcode,
+			ProductContainer container) {
+		if (this.productIndex == null) {
+			return;
+		}
+		List<ProductContainer> holders = this.productIndex
+				.get(productBarcode);
+		if ((holders != null)
+				&& holders.remove(container)
+				&& holders.isEmpty()) {
+			this.productIndex
+					.remove(productBarcode);
 		}
-		int theirHash = ((StorageUnit) obj)
-				.hashCode();
+	}
 
-		return (myHash == theirHash);
+	void indexProductGroup(ProductGroup group) {
+		for (Product product : group
+				.getProducts()) {
+			indexProduct(product.getBarcode(),
+					group);
+		}
+		for (ProductGroup child : group
+				.getProductGroups()) {
+			indexProductGroup(child);
+		}
 	}
 
-	@Override
-	public String toString() {
-		return this.name;
+	void unindexProductGroup(ProductGroup group) {
+		for (Product product : group
+				.getProducts()) {
+			unindexProduct(product.getBarcode(),
+					group);
+		}
+		for (ProductGroup child : group
+				.getProductGroups()) {
+			unindexProductGroup(child);
+		}
 	}
 
-	@Override
-	public String getParentName() {
-		return this.name;
+	/**
+	 * Rebuilds the product index from the containers of this storage unit.
+	 * The index isn't serialized, so this has to be called once a storage unit
+	 * read from an object stream is complete.
+	 * 
+	 * @pre the calling thread holds the write lock, or no other thread uses
+	 *      the model yet
+	 * @post every product in this storage unit is indexed
+	 */
+	public void rebuildProductIndex() {
+		this.productIndex = new HashMap<ProductBarcode, List<ProductContainer>>();
+		for (Product product : getProducts()) {
+			indexProduct(product.getBarcode(),
+					this);
+		}
+		for (ProductGroup child : getProductGroups()) {
+			indexProductGroup(child);
+		}
 	}
 }
@@ -9,6 +9,9 @@ import java.io.Serializable;
  */
 public class Unit implements Serializable {
 
+	// the value older data files were written with
+	private static final long serialVersionUID = -3280638288931271420L;
+
 	private float amount;
 
 	private UnitType unit;
@@ -98,6 +101,81 @@ public class Unit implements Serializable {
 		return true;
 	}
 
+	/**
+	 * Checks whether amounts in one unit type can be expressed in another.
+	 * Weights convert to weights and volumes to volumes; counts only match
+	 * counts.
+	 * 
+	 * @pre from and to are not null
+	 * @post true
+	 * @param from
+	 * @param to
+	 * @return true if convert(amount, from, to) is defined
+	 */
+	public static boolean isConvertible(UnitType from,
+			UnitType to) {
+		return dimension(from) == dimension(to);
+	}
+
+	/**
+	 * Converts an amount from one unit type to another.
+	 * 
+	 * @pre isConvertible(from, to)
+	 * @post true
+	 * @param amount
+	 *            the amount in from units
+	 * @param from
+	 * @param to
+	 * @return the same amount in to units
+	 */
+	public static double convert(double amount,
+			UnitType from, UnitType to) {
+		assert isConvertible(from, to);
+		return (amount * baseAmount(from))
+				/ baseAmount(to);
+	}
+
+	// 0 for counts, 1 for weights, 2 for volumes
+	private static int dimension(UnitType unit) {
+		switch (unit) {
+			case Pounds:
+			case Ounces:
+			case Grams:
+			case Kilograms:
+				return 1;
+			case Gallons:
+			case Quarts:
+			case Pints:
+			case FluidOunces:
+			case Liters:
+				return 2;
+			default:
+				return 0;
+		}
+	}
+
+	// grams for weights, liters for volumes
+	private static double baseAmount(UnitType unit) {
+		switch (unit) {
+			case Pounds:
+				return 453.59237;
+			case Ounces:
+				return 28.349523125;
+			case Kilograms:
+				return 1000;
+			case Gallons:
+				return 3.785411784;
+			case Quarts:
+				return 0.946352946;
+			case Pints:
+				return 0.473176473;
+			case FluidOunces:
+				return 0.0295735295625;
+			default:
+				return 1;
+		}
+	}
+
 	/**
 	 * Returns the String of the unit formatted properly
 	 * 
@@ -0,0 +1,100 @@
+package model.reports;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import model.managers.ItemManager;
+import model.models.Item;
+import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
+import common.report.ReportBuilder;
+import common.util.DateUtils;
+
+/**
+ * The expired items report: every live item whose expiration date has passed.
+ * The items come from the ItemManager's expiration index, so only the
+ * expired items are looked at.
+ * 
+ * @author Group1
+ */
+public class ExpiredReport {
+
+	private final Date date;
+
+	private List<Item> items;
+
+	/**
+	 * Finds the items expired as of date.
+	 * 
+	 * @pre date is not null
+	 * @post getItems() holds every live item that expired before date
+	 * @param date
+	 *            the date the report is for
+	 */
+	public ExpiredReport(Date date) {
+		this.date = new Date(date.getTime());
+		this.items = ItemManager.getInstance()
+				.getExpiredItems(date);
+		Collections.sort(this.items,
+				new Comparator<Item>() {
+					@Override
+					public int compare(Item a, Item b) {
+						int byDescription = a
+								.getProduct()
+								.getDescription()
+								.compareToIgnoreCase(
+										b.getProduct()
+												.getDescription());
+						return (byDescription != 0) ? byDescription
+								: a.getEntryDay()
+										- b.getEntryDay();
+					}
+				});
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the expired items, by product description and then entry date
+	 */
+	public List<Item> getItems() {
+		return Collections
+				.unmodifiableList(this.items);
+	}
+
+	/**
+	 * Writes the report.
+	 * 
+	 * @pre builder is empty
+	 * @post builder holds the report, ready to be closed
+	 * @param builder
+	 */
+	public void write(ReportBuilder builder) {
+		builder.addTitle("Expired Items Report");
+		builder.addText("Items expired as of "
+				+ DateUtils.formatDateTime(this.date));
+		builder.startTable("Description",
+				"Storage Unit", "Product Group",
+				"Entry Date", "Expire Date",
+				"Item Barcode");
+		for (Item item : this.items) {
+			ProductContainer container = item
+					.getContainer();
+			builder.addRow(
+					item.getProduct()
+							.getDescription(),
+					container.getStorageUnit()
+							.getName(),
+					(container instanceof ProductGroup) ? container
+							.getName() : "",
+					DateUtils.formatDate(item
+							.getEntryDate()),
+					DateUtils.formatDate(item
+							.getExpirationDate()),
+					item.getItemBarcode().toString());
+		}
+		builder.endTable();
+	}
+}
@@ -0,0 +1,226 @@
+package model.reports;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import model.managers.ItemManager;
+import model.managers.ItemSnapshot;
+import model.models.Item;
+import model.models.Product;
+import common.report.ReportBuilder;
+import common.util.DateUtils;
+
+/**
+ * The removed items report: how many items of each product were removed since
+ * a date, next to how many are left. The counts come from the exit time index
+ * of an ItemManager snapshot, so the report only looks at the items removed
+ * since that date, however long the history is, and the removed and current
+ * counts are from the same moment even while items keep being scanned.
+ * 
+ * @author Group1
+ */
+public class RemovedReport {
+
+	private static final String RUNS_FILE = "./data/reports.properties";
+
+	private static final String LAST_RUN = "removed.lastRun";
+
+	private final Date since;
+
+	private final Date until;
+
+	private List<ProductRemovals> products;
+
+	/**
+	 * Counts the items removed from since until now.
+	 * 
+	 * @pre since is not null
+	 * @post getProducts() holds every product with an item removed since
+	 * @param since
+	 *            earliest removal counted
+	 */
+	public RemovedReport(Date since) {
+		this.since = new Date(since.getTime());
+		this.until = new Date();
+		this.products = new ArrayList<ProductRemovals>();
+
+		ItemSnapshot snapshot = ItemManager
+				.getInstance().snapshot();
+		Map<Product, Integer> removed = new LinkedHashMap<Product, Integer>();
+		for (Item item : snapshot
+				.getConsumedItemsBetween(since,
+						this.until)) {
+			Integer count = removed.get(item
+					.getProduct());
+			removed.put(item.getProduct(),
+					(count == null) ? 1 : count + 1);
+		}
+		for (Map.Entry<Product, Integer> entry : removed
+				.entrySet()) {
+			Product product = entry.getKey();
+			this.products.add(new ProductRemovals(
+					product, entry.getValue(),
+					snapshot.getItemsByProduct(product)
+							.size()));
+		}
+		Collections.sort(this.products,
+				new Comparator<ProductRemovals>() {
+					@Override
+					public int compare(
+							ProductRemovals a,
+							ProductRemovals b) {
+						return a.product
+								.getDescription()
+								.compareToIgnoreCase(
+										b.product
+												.getDescription());
+					}
+				});
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the products with removed items, by description
+	 */
+	public List<ProductRemovals> getProducts() {
+		return Collections
+				.unmodifiableList(this.products);
+	}
+
+	/**
+	 * Writes the report.
+	 * 
+	 * @pre builder is empty
+	 * @post builder holds the report, ready to be closed
+	 * @param builder
+	 */
+	public void write(ReportBuilder builder) {
+		builder.addTitle("Items Removed Since "
+				+ DateUtils.formatDateTime(this.since));
+		builder.startTable("Description", "Size",
+				"Product Barcode", "Removed",
+				"Current Supply");
+		for (ProductRemovals entry : this.products) {
+			builder.addRow(
+					entry.product.getDescription(),
+					entry.product.getSize()
+							.getUnitString(),
+					entry.product.getBarcode()
+							.toString(),
+					Integer.toString(entry.removed),
+					Integer.toString(entry.current));
+		}
+		builder.endTable();
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return when the report was last run, or null if it never has been
+	 */
+	public static Date getLastRun() {
+		Properties runs = loadRuns();
+		String lastRun = runs.getProperty(LAST_RUN);
+		if (lastRun == null) {
+			return null;
+		}
+		try {
+			return new Date(Long.parseLong(lastRun));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Remembers when the report was run, for the next "since last time" report.
+	 * 
+	 * @pre true
+	 * @post getLastRun() is when this report was worked out
+	 */
+	public void recordRun() {
+		Properties runs = loadRuns();
+		runs.setProperty(LAST_RUN,
+				Long.toString(this.until.getTime()));
+		try {
+			OutputStream out = new FileOutputStream(
+					RUNS_FILE);
+			try {
+				runs.store(out, null);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static Properties loadRuns() {
+		Properties runs = new Properties();
+		File file = new File(RUNS_FILE);
+		if (!file.exists()) {
+			return runs;
+		}
+		try {
+			InputStream in = new FileInputStream(
+					file);
+			try {
+				runs.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return runs;
+	}
+
+	/**
+	 * A product with items removed in the report's range.
+	 */
+	public static class ProductRemovals {
+
+		private final Product product;
+
+		private final int removed;
+
+		private final int current;
+
+		ProductRemovals(Product product,
+				int removed, int current) {
+			this.product = product;
+			this.removed = removed;
+			this.current = current;
+		}
+
+		public Product getProduct() {
+			return this.product;
+		}
+
+		/**
+		 * @return the number of items removed in the range
+		 */
+		public int getRemoved() {
+			return this.removed;
+		}
+
+		/**
+		 * @return the number of live items now
+		 */
+		public int getCurrent() {
+			return this.current;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package model.reports;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import model.managers.ItemManager;
+import model.managers.ModelLock;
+import model.managers.ProductManager;
+import model.managers.StorageUnitManager;
+import model.models.Product;
+import model.models.productContainer.ProductContainer;
+import model.models.productContainer.ProductGroup;
+import model.models.productContainer.StorageUnit;
+import model.models.unit.Unit;
+import model.models.unit.UnitType;
+import common.report.ReportBuilder;
+
+/**
+ * The N-month supply report: every product and product group that holds less
+ * than N months' worth of supply, going by its three-month supply.
+ * 
+ * The report is worked out from counts the model already keeps up to date
+ * instead of from the items. A product's supply is the size of its item set
+ * in the ItemManager, and a group's supply is folded up the group tree from
+ * each container's per-product item counts, so the cost grows with the
+ * number of products and groups, not with the number of items.
+ * 
+ * @author Group1
+ */
+public class SupplyReport {
+
+	// the unit each family of units is added up in
+	private static final UnitType[] BASES = {
+			UnitType.Count, UnitType.Grams,
+			UnitType.Liters };
+
+	private static final DecimalFormat AMOUNT = new DecimalFormat(
+			"0.##");
+
+	private final int months;
+
+	private List<ProductSupply> products;
+
+	private List<GroupSupply> groups;
+
+	/**
+	 * Works out the report for the current state of the model.
+	 * 
+	 * @pre months > 0
+	 * @post the report lists every product and group below its N-month supply
+	 * @param months
+	 *            N, the number of months of supply wanted
+	 */
+	public SupplyReport(int months) {
+		assert months > 0;
+		this.months = months;
+		this.products = new ArrayList<ProductSupply>();
+		this.groups = new ArrayList<GroupSupply>();
+		ModelLock.lockRead();
+		try {
+			findProducts();
+			for (StorageUnit unit : StorageUnitManager
+					.getInstance().getStorageUnits()
+					.values()) {
+				fold(unit);
+			}
+		} finally {
+			ModelLock.unlockRead();
+		}
+		Collections.sort(this.groups,
+				new Comparator<GroupSupply>() {
+					@Override
+					public int compare(
+							GroupSupply a,
+							GroupSupply b) {
+						int byName = a.group
+								.getName()
+								.compareToIgnoreCase(
+										b.group.getName());
+						return (byName != 0) ? byName
+								: a.group
+										.getParentName()
+										.compareToIgnoreCase(
+												b.group.getParentName());
+					}
+				});
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return N
+	 */
+	public int getMonths() {
+		return this.months;
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the products below their N-month supply, by description
+	 */
+	public List<ProductSupply> getProducts() {
+		return Collections
+				.unmodifiableList(this.products);
+	}
+
+	/**
+	 * @pre true
+	 * @post true
+	 * @return the product groups below their N-month supply, by name
+	 */
+	public List<GroupSupply> getGroups() {
+		return Collections
+				.unmodifiableList(this.groups);
+	}
+
+	/**
+	 * Writes the report.
+	 * 
+	 * @pre builder is empty
+	 * @post builder holds the report, ready to be closed
+	 * @param builder
+	 */
+	public void write(ReportBuilder builder) {
+		String supply = this.months
+				+ "-Month Supply";
+		builder.addTitle(supply + " Report");
+
+		builder.addHeading("Products");
+		builder.startTable("Description",
+				"Barcode", supply, "Current Supply");
+		for (ProductSupply entry : this.products) {
+			builder.addRow(
+					entry.product.getDescription(),
+					entry.product.getBarcode()
+							.toString(),
+					format(entry.needed,
+							UnitType.Count),
+					format(entry.current,
+							UnitType.Count));
+		}
+		builder.endTable();
+
+		builder.addHeading("Product Groups");
+		builder.startTable("Product Group",
+				"Storage Unit", supply,
+				"Current Supply");
+		for (GroupSupply entry : this.groups) {
+			UnitType unit = entry.group
+					.GetThreeMonthSupply().getUnit();
+			builder.addRow(entry.group.getName(),
+					entry.group.getStorageUnit()
+							.getName(),
+					format(entry.needed, unit),
+					format(entry.current, unit));
+		}
+		builder.endTable();
+	}
+
+	private void findProducts() {
+		ItemManager itemManager = ItemManager
+				.getInstance();
+		for (Product product : ProductManager
+				.getInstance().getAllProducts()) {
+			if (product.getThreeMonthSupply() <= 0) {
+				continue;
+			}
+			double needed = nMonthSupply(product
+					.getThreeMonthSupply());
+			int current = itemManager
+					.getLiveItemCount(product
+							.getBarcode());
+			if (current < needed) {
+				this.products.add(new ProductSupply(
+						product, needed, current));
+			}
+		}
+		Collections.sort(this.products,
+				new Comparator<ProductSupply>() {
+					@Override
+					public int compare(
+							ProductSupply a,
+							ProductSupply b) {
+						return a.product
+								.getDescription()
+								.compareToIgnoreCase(
+										b.product
+												.getDescription());
+					}
+				});
+	}
+
+	/**
+	 * Adds up the supply in container and everything under it, one total for
+	 * each family of units, and records the groups that fall short on the way.
+	 */
+	private double[] fold(ProductContainer container) {
+		double[] totals = new double[BASES.length];
+		for (Product product : container
+				.getProducts()) {
+			int count = container
+					.getItemCountByProduct(product);
+			if (count == 0) {
+				continue;
+			}
+			Unit size = product.getSize();
+			int base = base(size.getUnit());
+			totals[base] += Unit.convert(count
+					* (double) size.getAmount(),
+					size.getUnit(), BASES[base]);
+		}
+		for (ProductGroup child : container
+				.getProductGroups()) {
+			double[] childTotals = fold(child);
+			for (int b = 0; b < totals.length; b++) {
+				totals[b] += childTotals[b];
+			}
+		}
+
+		if (container instanceof ProductGroup) {
+			ProductGroup group = (ProductGroup) container;
+			Unit threeMonthSupply = group
+					.GetThreeMonthSupply();
+			if ((threeMonthSupply != null)
+					&& (threeMonthSupply.getAmount() > 0)) {
+				int base = base(threeMonthSupply
+						.getUnit());
+				double needed = nMonthSupply(threeMonthSupply
+						.getAmount());
+				double current = Unit.convert(
+						totals[base], BASES[base],
+						threeMonthSupply.getUnit());
+				if (current < needed) {
+					this.groups.add(new GroupSupply(
+							group, needed, current));
+				}
+			}
+		}
+		return totals;
+	}
+
+	private double nMonthSupply(
+			double threeMonthSupply) {
+		return (threeMonthSupply * this.months) / 3;
+	}
+
+	private static int base(UnitType unit) {
+		for (int b = 0; b < BASES.length; b++) {
+			if (Unit.isConvertible(unit, BASES[b])) {
+				return b;
+			}
+		}
+		throw new IllegalArgumentException(
+				"No base unit for " + unit);
+	}
+
+	private static String format(double amount,
+			UnitType unit) {
+		synchronized (AMOUNT) {
+			return AMOUNT.format(amount) + " "
+					+ unit;
+		}
+	}
+
+	/**
+	 * A product below its N-month supply.
+	 */
+	public static class ProductSupply {
+
+		private final Product product;
+
+		private final double needed;
+
+		private final int current;
+
+		ProductSupply(Product product,
+				double needed, int current) {
+			this.product = product;
+			this.needed = needed;
+			this.current = current;
+		}
+
+		public Product getProduct() {
+			return this.product;
+		}
+
+		/**
+		 * @return the N-month supply, in items
+		 */
+		public double getNeeded() {
+			return this.needed;
+		}
+
+		/**
+		 * @return the number of live items
+		 */
+		public int getCurrent() {
+			return this.current;
+		}
+	}
+
+	/**
+	 * A product group below its N-month supply. Amounts are in the unit of the
+	 * group's three-month supply.
+	 */
+	public static class GroupSupply {
+
+		private final ProductGroup group;
+
+		private final double needed;
+
+		private final double current;
+
+		GroupSupply(ProductGroup group,
+				double needed, double current) {
+			this.group = group;
+			this.needed = needed;
+			this.current = current;
+		}
+
+		public ProductGroup getGroup() {
+			return this.group;
+		}
+
+		public double getNeeded() {
+			return this.needed;
+		}
+
+		public double getCurrent() {
+			return this.current;
+		}
+	}
+}